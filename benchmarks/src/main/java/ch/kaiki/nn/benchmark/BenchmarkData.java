@@ -0,0 +1,75 @@
+package ch.kaiki.nn.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Helper to create reproducible synthetic data for the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Parses a layer configuration like "784,128,10" as passed by a benchmark parameter.
+     *
+     * @param configuration the comma separated node counts.
+     * @return the node count per layer.
+     */
+    static int[] parseConfiguration(String configuration) {
+        String[] values = configuration.split(",");
+        int[] nodes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            nodes[i] = Integer.parseInt(values[i].trim());
+        }
+        return nodes;
+    }
+
+    /**
+     * Creates uniformly distributed input values in the range [0, 1).
+     *
+     * @param seed    the seed of the random number generator.
+     * @param samples the sample count.
+     * @param length  the length of a sample.
+     * @return the input values.
+     */
+    static double[][] inputs(long seed, int samples, int length) {
+        Random random = new Random(seed);
+        double[][] values = new double[samples][length];
+        for (int i = 0; i < samples; i++) {
+            for (int j = 0; j < length; j++) {
+                values[i][j] = random.nextDouble();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Creates one-hot encoded target values, smoothed to 0.1 and 0.9. This keeps sigmoid outputs away from
+     * saturation, where the gradient of the cross entropy is not defined.
+     *
+     * @param seed    the seed of the random number generator.
+     * @param samples the sample count.
+     * @param length  the length of a sample.
+     * @return the target values.
+     */
+    static double[][] targets(long seed, int samples, int length) {
+        Random random = new Random(seed);
+        double[][] values = new double[samples][length];
+        for (int i = 0; i < samples; i++) {
+            Arrays.fill(values[i], 0.1);
+            values[i][random.nextInt(length)] = 0.9;
+        }
+        return values;
+    }
+
+    /**
+     * Reduces the log output of the library, which would otherwise be written on every epoch or generation.
+     */
+    static void quietLogging() {
+        Logger.getLogger("").setLevel(Level.WARNING);
+    }
+}
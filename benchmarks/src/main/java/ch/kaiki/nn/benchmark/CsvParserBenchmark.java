@@ -0,0 +1,84 @@
+package ch.kaiki.nn.benchmark;
+
+import ch.kaiki.nn.data.CsvParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of a synthetic csv file in the mnist layout (label and 784 pixels per row), comparing the csv
+ * parser to splitting lines read by a BufferedReader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvParserBenchmark {
+
+    private static final int PIXELS = 28 * 28;
+
+    @Param({"2000"})
+    public int rows;
+
+    private byte[] content;
+    private CsvParser sequential;
+    private CsvParser parallel;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder("label");
+        for (int i = 0; i < PIXELS; i++) {
+            csv.append(",pixel").append(i);
+        }
+        csv.append('\n');
+        for (int r = 0; r < rows; r++) {
+            csv.append(random.nextInt(10));
+            for (int i = 0; i < PIXELS; i++) {
+                csv.append(',').append(random.nextInt(4) == 0 ? random.nextInt(256) : 0);
+            }
+            csv.append('\n');
+        }
+        content = csv.toString().getBytes(StandardCharsets.UTF_8);
+        sequential = new CsvParser.Builder().setLabelColumn(0).setOneHotWidth(10).build();
+        parallel = new CsvParser.Builder().setLabelColumn(0).setOneHotWidth(10)
+                .setParallelism(Runtime.getRuntime().availableProcessors()).build();
+    }
+
+    @Benchmark
+    public CsvParser.Result parseSequential() {
+        return sequential.parse(content);
+    }
+
+    @Benchmark
+    public CsvParser.Result parseParallel() {
+        return parallel.parse(content);
+    }
+
+    @Benchmark
+    public List<double[]> readLineSplit() throws IOException {
+        List<double[]> result = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content)))) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                double[] row = new double[PIXELS];
+                for (int i = 0; i < PIXELS; i++) {
+                    row[i] = Double.parseDouble(values[i + 1]);
+                }
+                result.add(row);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,27 @@
+package ch.kaiki.nn.benchmark;
+
+import ch.kaiki.nn.data.Dataset;
+import ch.kaiki.nn.data.DatasetType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading of the bundled sample datasets from the classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatasetBenchmark {
+
+    @Param({"XOR", "CUSTOM", "IRIS"})
+    public DatasetType type;
+
+    @Benchmark
+    public Dataset load() {
+        return new Dataset(type);
+    }
+}
@@ -0,0 +1,73 @@
+package ch.kaiki.nn.benchmark;
+
+import ch.kaiki.nn.neuralnet.BatchMode;
+import ch.kaiki.nn.neuralnet.CostFunction;
+import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import ch.kaiki.nn.util.Rectifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the training throughput in samples per second for different rectifiers, cost functions and batch modes.
+ * The rectifier is applied to the hidden layers, the output layer uses sigmoid to keep all cost functions defined.
+ * The learning rate is fixed below the default, as cross entropy diverges with the default rate on unbounded rectifiers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FitBenchmark {
+
+    private static final int SAMPLES = 256;
+    private static final int BATCH_SIZE = 16;
+    private static final double LEARNING_RATE = 0.01;
+
+    @Param({"RELU", "LEAKY_RELU", "SIGMOID", "TANH", "GELU"})
+    public Rectifier rectifier;
+
+    @Param({"MSE_NAIVE", "MSE", "CROSS_ENTROPY"})
+    public CostFunction costFunction;
+
+    @Param({"SUM", "MEAN"})
+    public BatchMode batchMode;
+
+    @Param({"16,32,32,4"})
+    public String configuration;
+
+    private NeuralNetwork neuralNetwork;
+    private double[][] inputs;
+    private double[][] outputs;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkData.quietLogging();
+        int[] nodes = BenchmarkData.parseConfiguration(configuration);
+        neuralNetwork = new NeuralNetwork.Builder(nodes)
+                .setDefaultRectifier(rectifier)
+                .setLastLayerRectifier(Rectifier.SIGMOID)
+                .setCostFunction(costFunction)
+                .setBatchMode(batchMode)
+                .setLearningRate(LEARNING_RATE)
+                .setSamplingSeed(44L)
+                .build();
+        inputs = BenchmarkData.inputs(42, SAMPLES, nodes[0]);
+        outputs = BenchmarkData.targets(43, SAMPLES, nodes[nodes.length - 1]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void fitEpoch() {
+        // one shuffled pass over all samples
+        neuralNetwork.fit(inputs, outputs, SAMPLES, BATCH_SIZE);
+    }
+
+    @Benchmark
+    public Object fitSample() {
+        index = (index + 1) % SAMPLES;
+        return neuralNetwork.fit(inputs[index], outputs[index]);
+    }
+}
@@ -0,0 +1,81 @@
+package ch.kaiki.nn.benchmark;
+
+import ch.kaiki.nn.genetic.GeneticBatch;
+import ch.kaiki.nn.genetic.GeneticObject;
+import ch.kaiki.nn.genetic.IGene;
+import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to run one generation of the genetic algorithm, i.e. creating and mutating the population,
+ * letting every object perform its task and evolving the best genes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"50", "200"})
+    public int populationSize;
+
+    @Param({"100"})
+    public int steps;
+
+    private GeneticBatch<SyntheticObject, NeuralNetwork> batch;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        BenchmarkData.quietLogging();
+        SyntheticObject.steps = steps;
+        batch = new GeneticBatch<>(SyntheticObject.class, NeuralNetwork.class, new NeuralNetwork.Builder(4, 8, 2).build(), populationSize);
+    }
+
+    @Benchmark
+    public IGene runGeneration() {
+        return batch.processGeneration();
+    }
+
+    /**
+     * A synthetic task, which predicts a fixed number of steps and rewards outputs close to a target.
+     */
+    public static class SyntheticObject extends GeneticObject {
+
+        static volatile int steps;
+        private final double[] input = {0.1, 0.2, 0.3, 0.4};
+        private int step;
+        private long fitness;
+
+        public SyntheticObject(NeuralNetwork gene) {
+            super(gene);
+        }
+
+        @Override
+        public boolean perform() {
+            List<Double> output = predict(input);
+            fitness += Math.round((1 - Math.abs(output.get(0) - output.get(1))) * 100);
+            input[step % input.length] = output.get(0);
+            return ++step < steps;
+        }
+
+        @Override
+        public long getFitness() {
+            return fitness;
+        }
+
+        @Override
+        public boolean isImmature() {
+            return false;
+        }
+
+        @Override
+        public boolean hasReachedGoal() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ch.kaiki.nn.benchmark;
+
+import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import ch.kaiki.nn.neuralnet.Precision;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of a single prediction. The sample mode additionally reports the percentiles of the latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredictBenchmark {
+
+    @Param({"2,4,1", "4,16,16,4", "784,128,64,10"})
+    public String configuration;
+
+    private NeuralNetwork neuralNetwork;
+    private NeuralNetwork singleNeuralNetwork;
+    private double[] input;
+    private float[] floatInput;
+    private float[] floatOutput;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkData.quietLogging();
+        int[] nodes = BenchmarkData.parseConfiguration(configuration);
+        neuralNetwork = new NeuralNetwork.Builder(nodes).build();
+        singleNeuralNetwork = neuralNetwork.convert(Precision.SINGLE);
+        input = BenchmarkData.inputs(42, 1, nodes[0])[0];
+        floatInput = new float[input.length];
+        for (int i = 0; i < input.length; i++) {
+            floatInput[i] = (float) input[i];
+        }
+        floatOutput = new float[nodes[nodes.length - 1]];
+    }
+
+    @Benchmark
+    public List<Double> predict() {
+        return neuralNetwork.predict(input);
+    }
+
+    @Benchmark
+    public float[] predictSingle() {
+        singleNeuralNetwork.predict(floatInput, floatOutput);
+        return floatOutput;
+    }
+}
@@ -0,0 +1,62 @@
+package ch.kaiki.nn.benchmark;
+
+import ch.kaiki.nn.data.NNSerializer;
+import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialization round trips of a neural network, once through NNSerializer on the file system
+ * and once in memory to separate the cost of java serialization from the file i/o.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"4,16,4", "784,128,64,10"})
+    public String configuration;
+
+    private NeuralNetwork neuralNetwork;
+    private Path directory;
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkData.quietLogging();
+        neuralNetwork = new NeuralNetwork.Builder(BenchmarkData.parseConfiguration(configuration)).build();
+        directory = Files.createTempDirectory("nn_benchmark_");
+        // NNSerializer joins directory and file name with a backslash
+        path = directory + "\\" + NeuralNetwork.class.getSimpleName() + ".ser";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(new File(path).toPath());
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public NeuralNetwork fileRoundTrip() {
+        NNSerializer.serialize(neuralNetwork, directory.toString(), false);
+        return NNSerializer.deserializeNeuralNetwork(path);
+    }
+
+    @Benchmark
+    public Object memoryRoundTrip() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(neuralNetwork);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        }
+    }
+}
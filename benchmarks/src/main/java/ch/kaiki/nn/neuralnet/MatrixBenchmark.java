@@ -0,0 +1,62 @@
+package ch.kaiki.nn.neuralnet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the matrix kernels used by forward and backward propagation. The shapes are given as
+ * rows x inner x columns, where a column count of 1 corresponds to the matrix-vector product of a single sample.
+ * This class lives in the package of Matrix, as Matrix is not part of the public api.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+
+    @Param({"16x16x1", "128x784x1", "16x16x16", "64x64x64", "128x784x32", "256x256x256"})
+    public String shape;
+
+    private Matrix a;
+    private Matrix b;
+    private double[] x;
+    private double[] out;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] dimensions = shape.split("x");
+        int rows = Integer.parseInt(dimensions[0]);
+        int inner = Integer.parseInt(dimensions[1]);
+        int cols = Integer.parseInt(dimensions[2]);
+        Random random = new Random(42);
+        a = new Matrix(random(random, rows, inner));
+        b = new Matrix(random(random, inner, cols));
+        x = random(random, 1, inner)[0];
+        out = new double[rows];
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return Matrix.multiply(a, b);
+    }
+
+    @Benchmark
+    public double[] multiplyVector() {
+        Matrix.multiply(a, x, out);
+        return out;
+    }
+
+    private static double[][] random(Random random, int rows, int cols) {
+        double[][] values = new double[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                values[i][j] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return values;
+    }
+}
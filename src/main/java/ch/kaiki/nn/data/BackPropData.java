@@ -1,14 +1,35 @@
 package ch.kaiki.nn.data;
 
-import ch.kaiki.nn.neuralnet.Matrix;
-
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.SplittableRandom;
 
+/**
+ * This class collects the cost and the classification scores of every training iteration of a neural network.
+ * The iterations are stored in primitive columns; which iterations are kept is decided by the history policy.
+ * The cumulative values, the latest entry and the confusion matrix always cover all iterations.
+ * The reservoir is sampled with the random generator given at construction, so a seeded generator reproduces it.
+ */
 public class BackPropData implements Serializable {
     private static final long serialVersionUID = 2L;
-    private SortedMap<Integer, BackPropEntity> iterationMap = new TreeMap<>();
+    private static final int INITIAL_CAPACITY = 64;
+    private HistoryPolicy historyPolicy;
+    private int historySize;
+    private Columns history;
+    private int head;
+    private int stride = 1;
+    private long addedCount;
+    private BackPropEntity last;
     private double[][] confusionMatrix;
     private double costSum;
     private int tpSum;
@@ -18,6 +39,47 @@ public class BackPropData implements Serializable {
     private boolean initialized;
     private int[] iterCount;
     private boolean isBinary;
+    private transient SplittableRandom random;
+    private transient SortedMap<Integer, BackPropEntity> view;
+    private transient boolean shared;
+
+    /**
+     * Creates an instance which keeps all iterations.
+     */
+    public BackPropData() {
+        this(HistoryPolicy.ALL, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates an instance which keeps the iterations according to the given history policy.
+     *
+     * @param historyPolicy the policy deciding which iterations are kept.
+     * @param historySize   the maximal count of kept iterations. Is ignored by HistoryPolicy.ALL.
+     */
+    public BackPropData(HistoryPolicy historyPolicy, int historySize) {
+        this(historyPolicy, historySize, new SplittableRandom());
+    }
+
+    /**
+     * Creates an instance which keeps the iterations according to the given history policy.
+     *
+     * @param historyPolicy the policy deciding which iterations are kept.
+     * @param historySize   the maximal count of kept iterations. Is ignored by HistoryPolicy.ALL.
+     * @param random        the random generator deciding which iterations are replaced by HistoryPolicy.RESERVOIR.
+     */
+    public BackPropData(HistoryPolicy historyPolicy, int historySize, SplittableRandom random) {
+        if (historyPolicy == null) {
+            throw new NullPointerException("History policy must not be null!");
+        } else if (random == null) {
+            throw new NullPointerException("Random generator must not be null!");
+        } else if (historySize < 1) {
+            throw new IllegalArgumentException("History size must be an integer above 0!");
+        }
+        this.random = random;
+        this.historyPolicy = historyPolicy;
+        this.historySize = historyPolicy == HistoryPolicy.ALL ? Integer.MAX_VALUE : historySize;
+        this.history = new Columns(historyPolicy == HistoryPolicy.ALL ? INITIAL_CAPACITY : Math.min(historySize, INITIAL_CAPACITY));
+    }
 
     public void add(int iteration, double cost, double[] actual, double[] expected) {
         if (!initialized) {
@@ -81,12 +143,70 @@ public class BackPropData implements Serializable {
                 }
             }
         }
-        BackPropEntity backPropEntity = new BackPropEntity(cost, tp, fp, tn, fn, costSum, tpSum, fpSum, tnSum, fnSum);
-        iterationMap.put(iteration, backPropEntity);
+        store(iteration, cost, tp, fp, tn, fn);
+    }
+
+    /**
+     * Returns the kept iterations as read-only map sorted by iteration. The map is a snapshot, which does not
+     * include iterations added later. Its entities are created on access.
+     * With HistoryPolicy.ALL, the map is a view over the stored columns, which are only appended to, so it is
+     * returned without copying. With the other policies, the kept iterations are copied in order once and the copy
+     * is returned until the next iteration is added.
+     *
+     * @return the kept iterations by iteration.
+     */
+    public synchronized SortedMap<Integer, BackPropEntity> getMap() {
+        if (view != null) {
+            return view;
+        }
+        if (historyPolicy == HistoryPolicy.ALL) {
+            view = new HistoryView(history, 0, history.size);
+            shared = true;
+            return view;
+        }
+        int[] order = new int[history.size];
+        if (historyPolicy == HistoryPolicy.RESERVOIR) {
+            Integer[] positions = new Integer[history.size];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = i;
+            }
+            Arrays.sort(positions, Comparator.comparingInt(i -> history.iterations[i]));
+            for (int i = 0; i < order.length; i++) {
+                order[i] = positions[i];
+            }
+        } else {
+            for (int i = 0; i < order.length; i++) {
+                order[i] = (head + i) % history.capacity();
+            }
+        }
+        view = new HistoryView(history.copy(order), 0, order.length);
+        return view;
+    }
+
+    /**
+     * Returns the entity of the latest iteration, independent of the history policy.
+     *
+     * @return the latest entity or null if nothing was added yet.
+     */
+    public synchronized BackPropEntity getLast() {
+        return last;
+    }
+
+    /**
+     * Returns the count of iterations added so far, including the ones not kept by the history policy.
+     *
+     * @return the count of added iterations.
+     */
+    public synchronized long getAddedCount() {
+        return addedCount;
+    }
+
+    public HistoryPolicy getHistoryPolicy() {
+        return historyPolicy;
     }
 
-    public SortedMap<Integer, BackPropEntity> getMap() {
-        return iterationMap;
+    public int getHistorySize() {
+        return historySize;
     }
 
     public double[][] getConfusionMatrix() {
@@ -110,6 +230,98 @@ public class BackPropData implements Serializable {
         return transpose(normalizedMatrix);
     }
 
+    private synchronized void store(int iteration, double cost, int tp, int fp, int tn, int fn) {
+        addedCount++;
+        view = null;
+        last = new BackPropEntity(cost, tp, fp, tn, fn, costSum, tpSum, fpSum, tnSum, fnSum);
+        int size = history.size;
+        if (size > 0 && historyPolicy != HistoryPolicy.RESERVOIR) {
+            int latest = (head + size - 1) % history.capacity();
+            if (history.iterations[latest] == iteration) {
+                if (shared) {
+                    // the columns are viewed by a map handed out before, which must not change
+                    history = history.grow(history.capacity());
+                    shared = false;
+                }
+                // an iteration added again replaces the kept one, as a map would do
+                write(latest, iteration, cost, tp, fp, tn, fn);
+                return;
+            }
+        }
+        switch (historyPolicy) {
+            case ALL:
+                if (size == history.capacity()) {
+                    history = history.grow(size * 2);
+                    shared = false;
+                }
+                write(size, iteration, cost, tp, fp, tn, fn);
+                history.size++;
+                break;
+            case RING_BUFFER:
+                if (size < historySize) {
+                    if (size == history.capacity()) {
+                        history = history.grow((int) Math.min((long) size * 2, historySize));
+                    }
+                    write(size, iteration, cost, tp, fp, tn, fn);
+                    history.size++;
+                } else {
+                    write(head, iteration, cost, tp, fp, tn, fn);
+                    head = (head + 1) % historySize;
+                }
+                break;
+            case RESERVOIR:
+                if (size < historySize) {
+                    if (size == history.capacity()) {
+                        history = history.grow((int) Math.min((long) size * 2, historySize));
+                    }
+                    write(size, iteration, cost, tp, fp, tn, fn);
+                    history.size++;
+                } else {
+                    long index = random.nextLong(addedCount);
+                    if (index < historySize) {
+                        write((int) index, iteration, cost, tp, fp, tn, fn);
+                    }
+                }
+                break;
+            case DOWNSAMPLING:
+                if ((addedCount - 1) % stride != 0) {
+                    break;
+                }
+                if (size == historySize) {
+                    // keep every second entry, i.e. every iteration at a multiple of the doubled stride
+                    history.compact();
+                    stride *= 2;
+                    if ((addedCount - 1) % stride != 0) {
+                        break;
+                    }
+                    size = history.size;
+                }
+                if (size == history.capacity()) {
+                    history = history.grow((int) Math.min((long) size * 2, historySize));
+                }
+                write(size, iteration, cost, tp, fp, tn, fn);
+                history.size++;
+                break;
+        }
+    }
+
+    private void write(int index, int iteration, double cost, int tp, int fp, int tn, int fn) {
+        history.set(index, iteration, cost, tp, fp, tn, fn, costSum, tpSum, fpSum, tnSum, fnSum);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // the random generator is not serializable, a deserialized reservoir continues unseeded
+        random = new SplittableRandom();
+        if (history == null) {
+            // serialized before the history was stored in columns: the tree map of iterations is not restored
+            historyPolicy = HistoryPolicy.ALL;
+            historySize = Integer.MAX_VALUE;
+            history = new Columns(INITIAL_CAPACITY);
+            stride = 1;
+        }
+    }
+
     private int getMaxIndex(double[] actual) {
         double val = Double.MIN_VALUE;
         int index = 0;
@@ -131,6 +343,239 @@ public class BackPropData implements Serializable {
         }
         return tmp;
     }
-}
 
+    /**
+     * Primitive columns holding the values of the kept iterations. The derived scores are computed by the
+     * BackPropEntity on access.
+     */
+    private static final class Columns implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private int size;
+        private int[] iterations;
+        private double[] cost;
+        private int[] tp;
+        private int[] fp;
+        private int[] tn;
+        private int[] fn;
+        private double[] costSum;
+        private int[] tpSum;
+        private int[] fpSum;
+        private int[] tnSum;
+        private int[] fnSum;
+
+        private Columns(int capacity) {
+            iterations = new int[capacity];
+            cost = new double[capacity];
+            tp = new int[capacity];
+            fp = new int[capacity];
+            tn = new int[capacity];
+            fn = new int[capacity];
+            costSum = new double[capacity];
+            tpSum = new int[capacity];
+            fpSum = new int[capacity];
+            tnSum = new int[capacity];
+            fnSum = new int[capacity];
+        }
+
+        private int capacity() {
+            return iterations.length;
+        }
+
+        private void set(int i, int iteration, double cost, int tp, int fp, int tn, int fn, double costSum, int tpSum, int fpSum, int tnSum, int fnSum) {
+            this.iterations[i] = iteration;
+            this.cost[i] = cost;
+            this.tp[i] = tp;
+            this.fp[i] = fp;
+            this.tn[i] = tn;
+            this.fn[i] = fn;
+            this.costSum[i] = costSum;
+            this.tpSum[i] = tpSum;
+            this.fpSum[i] = fpSum;
+            this.tnSum[i] = tnSum;
+            this.fnSum[i] = fnSum;
+        }
+
+        private void move(int from, int to) {
+            set(to, iterations[from], cost[from], tp[from], fp[from], tn[from], fn[from], costSum[from], tpSum[from], fpSum[from], tnSum[from], fnSum[from]);
+        }
 
+        private Columns grow(int capacity) {
+            Columns columns = new Columns(capacity);
+            for (int i = 0; i < size; i++) {
+                columns.set(i, iterations[i], cost[i], tp[i], fp[i], tn[i], fn[i], costSum[i], tpSum[i], fpSum[i], tnSum[i], fnSum[i]);
+            }
+            columns.size = size;
+            return columns;
+        }
+
+        private void compact() {
+            int kept = 0;
+            for (int i = 0; i < size; i += 2) {
+                move(i, kept++);
+            }
+            size = kept;
+        }
+
+        private Columns copy(int[] order) {
+            Columns columns = new Columns(order.length);
+            for (int i = 0; i < order.length; i++) {
+                int j = order[i];
+                columns.set(i, iterations[j], cost[j], tp[j], fp[j], tn[j], fn[j], costSum[j], tpSum[j], fpSum[j], tnSum[j], fnSum[j]);
+            }
+            columns.size = order.length;
+            return columns;
+        }
+
+        private BackPropEntity entity(int i) {
+            return new BackPropEntity(cost[i], tp[i], fp[i], tn[i], fn[i], costSum[i], tpSum[i], fpSum[i], tnSum[i], fnSum[i]);
+        }
+
+        private int indexOf(int iteration, int from, int to) {
+            int index = Arrays.binarySearch(iterations, from, to, iteration);
+            return index < 0 ? -1 : index;
+        }
+
+        private int lowerBound(int iteration, int from, int to) {
+            int index = Arrays.binarySearch(iterations, from, to, iteration);
+            return index < 0 ? -index - 1 : index;
+        }
+    }
+
+    /**
+     * Read-only sorted map over columns ordered by iteration, restricted to the index range from (inclusive)
+     * to to (exclusive).
+     */
+    private static final class HistoryView extends AbstractMap<Integer, BackPropEntity> implements SortedMap<Integer, BackPropEntity> {
+        private final Columns columns;
+        private final int from;
+        private final int to;
+
+        private HistoryView(Columns columns, int from, int to) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && columns.indexOf((Integer) key, from, to) >= 0;
+        }
+
+        @Override
+        public BackPropEntity get(Object key) {
+            if (!(key instanceof Integer)) {
+                return null;
+            }
+            int index = columns.indexOf((Integer) key, from, to);
+            return index < 0 ? null : columns.entity(index);
+        }
+
+        @Override
+        public Comparator<? super Integer> comparator() {
+            return null;
+        }
+
+        @Override
+        public SortedMap<Integer, BackPropEntity> subMap(Integer fromKey, Integer toKey) {
+            if (fromKey > toKey) {
+                throw new IllegalArgumentException("fromKey must not be greater than toKey!");
+            }
+            return new HistoryView(columns, columns.lowerBound(fromKey, from, to), columns.lowerBound(toKey, from, to));
+        }
+
+        @Override
+        public SortedMap<Integer, BackPropEntity> headMap(Integer toKey) {
+            return new HistoryView(columns, from, columns.lowerBound(toKey, from, to));
+        }
+
+        @Override
+        public SortedMap<Integer, BackPropEntity> tailMap(Integer fromKey) {
+            return new HistoryView(columns, columns.lowerBound(fromKey, from, to), to);
+        }
+
+        @Override
+        public Integer firstKey() {
+            if (from == to) {
+                throw new NoSuchElementException();
+            }
+            return columns.iterations[from];
+        }
+
+        @Override
+        public Integer lastKey() {
+            if (from == to) {
+                throw new NoSuchElementException();
+            }
+            return columns.iterations[to - 1];
+        }
+
+        @Override
+        public Set<Integer> keySet() {
+            return new AbstractSet<Integer>() {
+                @Override
+                public Iterator<Integer> iterator() {
+                    return new IndexIterator<Integer>() {
+                        @Override
+                        Integer get(int index) {
+                            return columns.iterations[index];
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return HistoryView.this.size();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+            };
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, BackPropEntity>> entrySet() {
+            return new AbstractSet<Map.Entry<Integer, BackPropEntity>>() {
+                @Override
+                public Iterator<Map.Entry<Integer, BackPropEntity>> iterator() {
+                    return new IndexIterator<Map.Entry<Integer, BackPropEntity>>() {
+                        @Override
+                        Map.Entry<Integer, BackPropEntity> get(int index) {
+                            return new SimpleImmutableEntry<>(columns.iterations[index], columns.entity(index));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return HistoryView.this.size();
+                }
+            };
+        }
+
+        private abstract class IndexIterator<T> implements Iterator<T> {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return index < to;
+            }
+
+            @Override
+            public T next() {
+                if (index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+
+            abstract T get(int index);
+        }
+    }
+}
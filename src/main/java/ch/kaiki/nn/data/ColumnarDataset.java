@@ -0,0 +1,433 @@
+package ch.kaiki.nn.data;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A dataset stored in a binary file, which is memory-mapped instead of loaded to the heap. The file holds a header
+ * followed by two contiguous blocks: the inputs of all samples and the expected outputs of all samples, each in row
+ * order and either in single or double precision. As only the pages of the accessed samples are loaded by the
+ * operating system, datasets larger than the available memory can be fitted batch by batch.
+ * <p>
+ * The blocks are mapped in segments of up to 2 GB, so the file size is only limited by the address space.
+ * Reading samples does not change the state of the mapping, so a dataset may be read by multiple threads.
+ * <p>
+ * Layout of the header (64 bytes, little-endian): magic number, format version, bytes per value (4 or 8),
+ * input count, output count, reserved, row count (long), offset of the input block (long), offset of the output
+ * block (long), padding.
+ */
+public class ColumnarDataset implements Closeable {
+
+    private static final int MAGIC = 0x444E4E4B;        // "KNND" in little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int valueSize;
+    private final int inputCount;
+    private final int outputCount;
+    private final int rowCount;
+    private final Block inputs;
+    private final Block outputs;
+
+    private ColumnarDataset(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // read until the header is complete or the end of the file is reached
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a columnar dataset!");
+            } else if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported columnar dataset version " + header.getInt(4) + "!");
+            }
+            valueSize = header.getInt(8);
+            inputCount = header.getInt(12);
+            outputCount = header.getInt(16);
+            long rows = header.getLong(24);
+            long inputOffset = header.getLong(32);
+            long outputOffset = header.getLong(40);
+            if ((valueSize != Float.BYTES && valueSize != Double.BYTES) || inputCount < 1 || outputCount < 1 || rows < 0 || rows > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt header of columnar dataset " + path + "!");
+            } else if (outputOffset + rows * outputCount * valueSize > channel.size()) {
+                throw new IOException("Columnar dataset " + path + " is truncated!");
+            }
+            rowCount = (int) rows;
+            inputs = new Block(channel, inputOffset, rowCount, inputCount * valueSize);
+            outputs = new Block(channel, outputOffset, rowCount, outputCount * valueSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a columnar dataset file and maps it read-only.
+     *
+     * @param path the path of the file.
+     * @return the mapped dataset.
+     * @throws IOException if the file cannot be read or is not a columnar dataset.
+     */
+    public static ColumnarDataset open(Path path) throws IOException {
+        if (path == null) {
+            throw new NullPointerException("Path must not be null!");
+        }
+        return new ColumnarDataset(path);
+    }
+
+    /**
+     * Writes the given samples to a columnar dataset file.
+     *
+     * @param target          the path of the file to write.
+     * @param inputSet        the inputs of the samples.
+     * @param expectedOutputs the expected outputs of the samples.
+     * @param singlePrecision true to store the values as float, false to store them as double.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path target, double[][] inputSet, double[][] expectedOutputs, boolean singlePrecision) throws IOException {
+        if (target == null || inputSet == null || expectedOutputs == null) {
+            throw new NullPointerException("Target, inputSet and expectedOutputs are required!");
+        } else if (inputSet.length != expectedOutputs.length) {
+            throw new IllegalArgumentException("Input set and expected outputs must have the same length!");
+        } else if (inputSet.length == 0) {
+            throw new IllegalArgumentException("Dataset must not be empty!");
+        }
+        int inputCount = inputSet[0].length;
+        int outputCount = expectedOutputs[0].length;
+        int valueSize = singlePrecision ? Float.BYTES : Double.BYTES;
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            BlockWriter writer = new BlockWriter(channel, valueSize);
+            for (int i = 0; i < inputSet.length; i++) {
+                writer.write(checkRow(inputSet[i], inputCount, i));
+            }
+            for (int i = 0; i < expectedOutputs.length; i++) {
+                writer.write(checkRow(expectedOutputs[i], outputCount, i));
+            }
+            writer.flush();
+            writeHeader(channel, valueSize, inputCount, outputCount, inputSet.length);
+        }
+    }
+
+    /**
+     * Writes the training data of the given dataset to a columnar dataset file.
+     *
+     * @param target          the path of the file to write.
+     * @param dataset         the dataset to convert.
+     * @param singlePrecision true to store the values as float, false to store them as double.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path target, Dataset dataset, boolean singlePrecision) throws IOException {
+        write(target, dataset.getX(), dataset.getY(), singlePrecision);
+    }
+
+    /**
+     * Converts a csv file of the sample format to a columnar dataset file. Each line holds the comma separated
+     * inputs and the comma separated expected outputs of a sample, separated by a semicolon, after a header line.
+     * The csv file is streamed line by line, so it may be larger than the available memory. The expected outputs
+     * are buffered in a temporary file next to the target.
+     *
+     * @param csv             the csv input stream.
+     * @param target          the path of the file to write.
+     * @param singlePrecision true to store the values as float, false to store them as double.
+     * @return the count of converted samples.
+     * @throws IOException if the csv cannot be read or the file cannot be written.
+     */
+    public static int convert(InputStream csv, Path target, boolean singlePrecision) throws IOException {
+        if (csv == null || target == null) {
+            throw new NullPointerException("csv and target are required!");
+        }
+        int valueSize = singlePrecision ? Float.BYTES : Double.BYTES;
+        Path parent = target.toAbsolutePath().getParent();
+        Path outputFile = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+             FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel outputChannel = FileChannel.open(outputFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            BlockWriter inputWriter = new BlockWriter(channel, valueSize);
+            BlockWriter outputWriter = new BlockWriter(outputChannel, valueSize);
+            int inputCount = -1;
+            int outputCount = -1;
+            int rows = 0;
+            int lineNumber = 1;
+            String line = reader.readLine();        // header
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split(";");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Line " + lineNumber + " must hold inputs and outputs separated by a semicolon!");
+                }
+                double[] input = parse(parts[0], lineNumber);
+                double[] output = parse(parts[1], lineNumber);
+                if (inputCount < 0) {
+                    inputCount = input.length;
+                    outputCount = output.length;
+                }
+                inputWriter.write(checkRow(input, inputCount, lineNumber - 1));
+                outputWriter.write(checkRow(output, outputCount, lineNumber - 1));
+                rows++;
+            }
+            if (rows == 0) {
+                throw new IllegalArgumentException("Dataset must not be empty!");
+            }
+            inputWriter.flush();
+            outputWriter.flush();
+            long size = outputChannel.size();
+            for (long transferred = 0; transferred < size; ) {
+                transferred += outputChannel.transferTo(transferred, size - transferred, channel);
+            }
+            writeHeader(channel, valueSize, inputCount, outputCount, rows);
+            return rows;
+        } finally {
+            Files.deleteIfExists(outputFile);
+        }
+    }
+
+    /**
+     * Returns the count of samples.
+     *
+     * @return the row count.
+     */
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the count of input values per sample.
+     *
+     * @return the input count.
+     */
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    /**
+     * Returns the count of expected output values per sample.
+     *
+     * @return the output count.
+     */
+    public int getOutputCount() {
+        return outputCount;
+    }
+
+    /**
+     * Returns true if the values are stored as float.
+     *
+     * @return true for single precision, false for double precision.
+     */
+    public boolean isSinglePrecision() {
+        return valueSize == Float.BYTES;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Copies the inputs of a sample to the given array.
+     *
+     * @param row    the index of the sample.
+     * @param target the array of at least the input count to write to.
+     */
+    public void readInput(int row, double[] target) {
+        inputs.read(row, target, inputCount, valueSize);
+    }
+
+    /**
+     * Copies the inputs of a sample to the given array.
+     *
+     * @param row    the index of the sample.
+     * @param target the array of at least the input count to write to.
+     */
+    public void readInput(int row, float[] target) {
+        inputs.read(row, target, inputCount, valueSize);
+    }
+
+    /**
+     * Copies the expected outputs of a sample to the given array.
+     *
+     * @param row    the index of the sample.
+     * @param target the array of at least the output count to write to.
+     */
+    public void readOutput(int row, double[] target) {
+        outputs.read(row, target, outputCount, valueSize);
+    }
+
+    /**
+     * Copies the expected outputs of a sample to the given array.
+     *
+     * @param row    the index of the sample.
+     * @param target the array of at least the output count to write to.
+     */
+    public void readOutput(int row, float[] target) {
+        outputs.read(row, target, outputCount, valueSize);
+    }
+
+    /**
+     * Returns the class of every sample as done by Sampler.classesOf(double[][]). The output block is read sequentially,
+     * but only a single row is held in memory.
+     *
+     * @return the classes.
+     */
+    public int[] getClasses() {
+        int[] classes = new int[rowCount];
+        double[][] row = new double[1][outputCount];
+        for (int i = 0; i < rowCount; i++) {
+            readOutput(i, row[0]);
+            classes[i] = Sampler.classesOf(row)[0];
+        }
+        return classes;
+    }
+
+    /**
+     * Closes the file channel. The mapping itself is released as soon as this dataset is garbage collected.
+     *
+     * @throws IOException if the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return path + " (" + rowCount + " samples, " + inputCount + " inputs, " + outputCount + " outputs, " + (isSinglePrecision() ? "float" : "double") + ")";
+    }
+
+    private static double[] checkRow(double[] row, int count, int index) {
+        if (row == null) {
+            throw new NullPointerException("Row " + index + " must not be null!");
+        } else if (row.length != count) {
+            throw new IllegalArgumentException("Row " + index + " holds " + row.length + " instead of " + count + " values!");
+        }
+        return row;
+    }
+
+    private static double[] parse(String values, int lineNumber) {
+        String[] parts = values.split(",");
+        double[] result = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                result[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + " holds invalid value '" + parts[i] + "'!", e);
+            }
+        }
+        return result;
+    }
+
+    private static void writeHeader(FileChannel channel, int valueSize, int inputCount, int outputCount, int rows) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long inputOffset = HEADER_SIZE;
+        long outputOffset = inputOffset + (long) rows * inputCount * valueSize;
+        header.putInt(MAGIC).putInt(VERSION).putInt(valueSize).putInt(inputCount).putInt(outputCount).putInt(0)
+                .putLong(rows).putLong(inputOffset).putLong(outputOffset);
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * A block of rows of the same byte size, mapped in segments of whole rows.
+     */
+    private static class Block {
+        private final MappedByteBuffer[] segments;
+        private final int rowsPerSegment;
+        private final int rowSize;
+
+        Block(FileChannel channel, long offset, int rows, int rowSize) throws IOException {
+            this.rowSize = rowSize;
+            this.rowsPerSegment = Math.max(1, Integer.MAX_VALUE / rowSize);
+            int segmentCount = (rows + rowsPerSegment - 1) / rowsPerSegment;
+            segments = new MappedByteBuffer[segmentCount];
+            for (int s = 0; s < segmentCount; s++) {
+                int segmentRows = Math.min(rowsPerSegment, rows - s * rowsPerSegment);
+                long position = offset + (long) s * rowsPerSegment * rowSize;
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) segmentRows * rowSize);
+                segments[s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        void read(int row, double[] target, int count, int valueSize) {
+            MappedByteBuffer segment = segments[row / rowsPerSegment];
+            int position = (row % rowsPerSegment) * rowSize;
+            if (valueSize == Float.BYTES) {
+                for (int i = 0; i < count; i++) {
+                    target[i] = segment.getFloat(position + i * Float.BYTES);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    target[i] = segment.getDouble(position + i * Double.BYTES);
+                }
+            }
+        }
+
+        void read(int row, float[] target, int count, int valueSize) {
+            MappedByteBuffer segment = segments[row / rowsPerSegment];
+            int position = (row % rowsPerSegment) * rowSize;
+            if (valueSize == Float.BYTES) {
+                for (int i = 0; i < count; i++) {
+                    target[i] = segment.getFloat(position + i * Float.BYTES);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    target[i] = (float) segment.getDouble(position + i * Double.BYTES);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes rows of values sequentially to a channel through a direct buffer.
+     */
+    private static class BlockWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final int valueSize;
+
+        BlockWriter(FileChannel channel, int valueSize) {
+            this.channel = channel;
+            this.valueSize = valueSize;
+        }
+
+        void write(double[] row) throws IOException {
+            for (double value : row) {
+                if (buffer.remaining() < valueSize) {
+                    flush();
+                }
+                if (valueSize == Float.BYTES) {
+                    buffer.putFloat((float) value);
+                } else {
+                    buffer.putDouble(value);
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,735 @@
+package ch.kaiki.nn.data;
+
+import ch.kaiki.nn.util.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A parser for numeric csv files, which reads the values directly from the bytes of the file instead of creating a
+ * string per line and field. Files are memory-mapped in windows of up to 1 GB, every window is split at line breaks
+ * into chunks, which are parsed concurrently if the parallelism is above 1. The rows keep the order of the file.
+ * <p>
+ * Each row is split into inputs and expected outputs, either by an output delimiter (e.g. "0.1,2.2;1,0") or by a
+ * label column, whose value is converted to a one-hot vector or kept as single output. Values may be quoted, but
+ * quoted values must not contain delimiters or line breaks. Rows which cannot be parsed are skipped and reported,
+ * or fail the parsing in strict mode.
+ */
+public class CsvParser {
+
+    private static final Logger LOG = LoggerFactory.getLogger("CsvParser logger");
+    private static final long WINDOW_SIZE = 1 << 30;
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private byte delimiter;
+    private byte outputDelimiter;
+    private boolean header;
+    private int labelColumn;
+    private int oneHotWidth;
+    private String[] labels;
+    private byte[][] labelBytes;
+    private boolean[] ignoredColumns;
+    private int parallelism;
+    private boolean strict;
+
+    private CsvParser() {
+    }
+
+    /**
+     * Parses a csv file. The file is memory-mapped, so it is not copied to the heap.
+     *
+     * @param file the path of the csv file.
+     * @return the parsed rows.
+     * @throws IOException if the file cannot be read.
+     */
+    public Result parse(Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("File must not be null!");
+        }
+        Collector collector = new Collector();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(WINDOW_SIZE, size - position);
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+                if (position + length < size) {
+                    end = lastLineEnd(window, end);
+                    if (end == 0) {
+                        throw new IOException("Line at byte " + position + " of " + file + " exceeds " + WINDOW_SIZE + " bytes!");
+                    }
+                }
+                parse(window, end, position == 0, collector);
+                position += end;
+            }
+        }
+        return collector.finish();
+    }
+
+    /**
+     * Parses a csv input stream. The stream is read to a byte array at once.
+     *
+     * @param inputStream the csv input stream.
+     * @return the parsed rows.
+     * @throws IOException if the stream cannot be read.
+     */
+    public Result parse(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            throw new NullPointerException("Input stream must not be null!");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(32, inputStream.available()));
+        byte[] buffer = new byte[1 << 16];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, read);
+        }
+        return parse(bytes.toByteArray());
+    }
+
+    /**
+     * Parses csv content.
+     *
+     * @param content the bytes of the csv content.
+     * @return the parsed rows.
+     */
+    public Result parse(byte[] content) {
+        if (content == null) {
+            throw new NullPointerException("Content must not be null!");
+        }
+        Collector collector = new Collector();
+        parse(ByteBuffer.wrap(content), content.length, true, collector);
+        return collector.finish();
+    }
+
+    /**
+     * Returns the names of the labels, which are mapped to their index.
+     *
+     * @return the label names or null if the labels are numeric.
+     */
+    public String[] getLabels() {
+        return labels == null ? null : labels.clone();
+    }
+
+    private void parse(ByteBuffer buffer, int end, boolean first, Collector collector) {
+        int start = 0;
+        if (first && header) {
+            start = Math.min(end, nextLineStart(buffer, 0, end));
+            collector.lines++;
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        int chunkCount = parallelism == 1 ? 1 : Math.max(1, Math.min(parallelism * CHUNKS_PER_THREAD, (end - start) / MIN_CHUNK_SIZE));
+        int from = start;
+        for (int c = 1; c <= chunkCount && from < end; c++) {
+            int to = c == chunkCount ? end : Math.max(from, Math.min(end, nextLineStart(buffer, start + (int) ((long) (end - start) * c / chunkCount), end)));
+            if (to > from) {
+                chunks.add(new Chunk(buffer, from, to));
+            }
+            from = to;
+        }
+        if (chunks.size() == 1) {
+            chunks.get(0).call();
+        } else if (!chunks.isEmpty()) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (Future<Chunk> future : pool.invokeAll(chunks)) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Parsing was interrupted!", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+        for (Chunk chunk : chunks) {
+            collector.add(chunk);
+        }
+    }
+
+    private static int nextLineStart(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static int lastLineEnd(ByteBuffer buffer, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Parses a decimal number. If the digits fit into 53 bits and the decimal exponent is within +/-22, the number
+     * is computed from the digits by a single multiplication or division, which rounds exactly as Double.parseDouble()
+     * does. All other numbers are passed to Double.parseDouble().
+     */
+    static double parseDouble(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        byte b = buffer.get(i);
+        boolean negative = b == '-';
+        if (negative || b == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        boolean digits = false;
+        while (i < to && (b = buffer.get(i)) >= '0' && b <= '9') {
+            mantissa = mantissa * 10 + (b - '0');
+            digits = true;
+            i++;
+            if (mantissa >= 1L << 53) {
+                return parseSlow(buffer, from, to);
+            }
+        }
+        if (i < to && buffer.get(i) == '.') {
+            i++;
+            while (i < to && (b = buffer.get(i)) >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                exponent--;
+                digits = true;
+                i++;
+                if (mantissa >= 1L << 53) {
+                    return parseSlow(buffer, from, to);
+                }
+            }
+        }
+        if (digits && i < to && ((b = buffer.get(i)) == 'e' || b == 'E')) {
+            i++;
+            boolean negativeExponent = i < to && buffer.get(i) == '-';
+            if (i < to && (negativeExponent || buffer.get(i) == '+')) {
+                i++;
+            }
+            int value = 0;
+            boolean exponentDigits = false;
+            while (i < to && (b = buffer.get(i)) >= '0' && b <= '9') {
+                value = Math.min(1000, value * 10 + (b - '0'));
+                exponentDigits = true;
+                i++;
+            }
+            if (!exponentDigits) {
+                return parseSlow(buffer, from, to);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (!digits || i != to || exponent < -22 || exponent > 22) {
+            return parseSlow(buffer, from, to);
+        }
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    private static double parseSlow(ByteBuffer buffer, int from, int to) {
+        return Double.parseDouble(toString(buffer, from, to));
+    }
+
+    private static String toString(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A line range of a window, parsed by a single thread.
+     */
+    private class Chunk implements Callable<Chunk> {
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+        private final List<double[]> inputs = new ArrayList<>();
+        private final List<double[]> outputs = new ArrayList<>();
+        private final List<MalformedRow> malformedRows = new ArrayList<>();
+        private int[] rowLines = new int[64];
+        private int lines;
+        private double[] values = new double[16];
+
+        Chunk(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Chunk call() {
+            int lineStart = start;
+            while (lineStart < end) {
+                int lineEnd = nextLineStart(buffer, lineStart, end);
+                int contentEnd = lineEnd;
+                while (contentEnd > lineStart && isWhitespace(buffer.get(contentEnd - 1))) {
+                    contentEnd--;
+                }
+                if (contentEnd > lineStart) {
+                    parseRow(lineStart, contentEnd);
+                }
+                lines++;
+                lineStart = lineEnd;
+            }
+            return this;
+        }
+
+        private void parseRow(int from, int to) {
+            int count = 0;
+            int outputStart = -1;
+            int column = 0;
+            double[] label = null;
+            int fieldStart = from;
+            try {
+                while (true) {
+                    int fieldEnd = fieldStart;
+                    byte b;
+                    while (fieldEnd < to && (b = buffer.get(fieldEnd)) != delimiter && b != outputDelimiter) {
+                        fieldEnd++;
+                    }
+                    if (column >= ignoredColumns.length || !ignoredColumns[column]) {
+                        int valueStart = trimStart(fieldStart, fieldEnd);
+                        int valueEnd = trimEnd(valueStart, fieldEnd);
+                        if (valueEnd - valueStart > 1 && buffer.get(valueStart) == '"' && buffer.get(valueEnd - 1) == '"') {
+                            valueStart++;
+                            valueEnd--;
+                        }
+                        if (valueStart == valueEnd) {
+                            throw new IllegalArgumentException("empty value");
+                        } else if (column == labelColumn) {
+                            label = parseLabel(valueStart, valueEnd);
+                        } else {
+                            if (count == values.length) {
+                                values = Arrays.copyOf(values, count * 2);
+                            }
+                            values[count++] = parseDouble(buffer, valueStart, valueEnd);
+                        }
+                    }
+                    if (fieldEnd == to) {
+                        break;
+                    } else if (outputDelimiter != delimiter && buffer.get(fieldEnd) == outputDelimiter) {
+                        if (outputStart >= 0) {
+                            throw new IllegalArgumentException("more than one output delimiter");
+                        }
+                        outputStart = count;
+                    }
+                    column++;
+                    fieldStart = fieldEnd + 1;
+                }
+            } catch (IllegalArgumentException e) {
+                String message = e instanceof NumberFormatException ? "invalid value '" + CsvParser.toString(buffer, fieldStart, fieldEnd(fieldStart, to)).trim() + "'" : e.getMessage();
+                malformedRows.add(new MalformedRow(lines, "column " + column + ": " + message));
+                return;
+            }
+            if (labelColumn >= 0) {
+                if (label == null) {
+                    malformedRows.add(new MalformedRow(lines, "missing label column " + labelColumn));
+                    return;
+                }
+                inputs.add(Arrays.copyOf(values, count));
+                outputs.add(label);
+            } else if (outputDelimiter != delimiter) {
+                if (outputStart < 0) {
+                    malformedRows.add(new MalformedRow(lines, "missing output delimiter"));
+                    return;
+                }
+                inputs.add(Arrays.copyOf(values, outputStart));
+                outputs.add(Arrays.copyOfRange(values, outputStart, count));
+            } else {
+                inputs.add(Arrays.copyOf(values, count));
+                outputs.add(new double[0]);
+            }
+            if (inputs.size() > rowLines.length) {
+                rowLines = Arrays.copyOf(rowLines, rowLines.length * 2);
+            }
+            rowLines[inputs.size() - 1] = lines;
+        }
+
+        private double[] parseLabel(int from, int to) {
+            int index = -1;
+            if (labelBytes != null) {
+                for (int l = 0; l < labelBytes.length && index < 0; l++) {
+                    if (matches(labelBytes[l], from, to)) {
+                        index = l;
+                    }
+                }
+                if (index < 0) {
+                    throw new IllegalArgumentException("unknown label '" + CsvParser.toString(buffer, from, to) + "'");
+                }
+            } else {
+                double value = parseDouble(buffer, from, to);
+                if (oneHotWidth == 0) {
+                    return new double[]{value};
+                } else if (value != (int) value || value < 0 || value >= oneHotWidth) {
+                    throw new IllegalArgumentException("label " + value + " is not an index below " + oneHotWidth);
+                }
+                index = (int) value;
+            }
+            if (oneHotWidth == 0) {
+                return new double[]{index};
+            } else if (index >= oneHotWidth) {
+                throw new IllegalArgumentException("label index " + index + " is not below " + oneHotWidth);
+            }
+            double[] oneHot = new double[oneHotWidth];
+            oneHot[index] = 1;
+            return oneHot;
+        }
+
+        private boolean matches(byte[] label, int from, int to) {
+            if (label.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < label.length; i++) {
+                if (label[i] != buffer.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int fieldEnd(int from, int to) {
+            int i = from;
+            byte b;
+            while (i < to && (b = buffer.get(i)) != delimiter && b != outputDelimiter) {
+                i++;
+            }
+            return i;
+        }
+
+        private int trimStart(int from, int to) {
+            while (from < to && isWhitespace(buffer.get(from))) {
+                from++;
+            }
+            return from;
+        }
+
+        private int trimEnd(int from, int to) {
+            while (to > from && isWhitespace(buffer.get(to - 1))) {
+                to--;
+            }
+            return to;
+        }
+
+        private boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+        }
+    }
+
+    /**
+     * Concatenates the rows of the chunks in file order and checks that all rows have the same length.
+     */
+    private class Collector {
+        private final List<double[]> inputs = new ArrayList<>();
+        private final List<double[]> outputs = new ArrayList<>();
+        private final List<MalformedRow> malformedRows = new ArrayList<>();
+        private long lines;
+
+        void add(Chunk chunk) {
+            for (MalformedRow row : chunk.malformedRows) {
+                malformedRows.add(new MalformedRow(lines + row.line + 1, row.message));
+            }
+            for (int row = 0; row < chunk.inputs.size(); row++) {
+                addRow(chunk, row);
+            }
+            lines += chunk.lines;
+        }
+
+        private void addRow(Chunk chunk, int row) {
+            double[] input = chunk.inputs.get(row);
+            double[] output = chunk.outputs.get(row);
+            if (!inputs.isEmpty() && (input.length != inputs.get(0).length || output.length != outputs.get(0).length)) {
+                malformedRows.add(new MalformedRow(lines + chunk.rowLines[row] + 1, "holds " + input.length + " inputs and " + output.length
+                        + " outputs instead of " + inputs.get(0).length + " inputs and " + outputs.get(0).length + " outputs"));
+                return;
+            }
+            inputs.add(input);
+            outputs.add(output);
+        }
+
+        Result finish() {
+            Collections.sort(malformedRows, (a, b) -> Long.compare(a.line, b.line));
+            if (!malformedRows.isEmpty()) {
+                if (strict) {
+                    throw new IllegalArgumentException("Malformed row at " + malformedRows.get(0) + (malformedRows.size() > 1 ? " (" + (malformedRows.size() - 1) + " more)" : "") + "!");
+                }
+                LOG.log(Level.WARNING, "Skipped " + malformedRows.size() + " malformed rows, first at " + malformedRows.get(0) + ".");
+            }
+            return new Result(inputs.toArray(new double[0][]), outputs.toArray(new double[0][]), malformedRows);
+        }
+    }
+
+    /**
+     * The rows of a parsed csv file.
+     */
+    public static class Result {
+        private final double[][] inputs;
+        private final double[][] outputs;
+        private final List<MalformedRow> malformedRows;
+
+        private Result(double[][] inputs, double[][] outputs, List<MalformedRow> malformedRows) {
+            this.inputs = inputs;
+            this.outputs = outputs;
+            this.malformedRows = Collections.unmodifiableList(malformedRows);
+        }
+
+        /**
+         * Returns the inputs of the parsed rows.
+         *
+         * @return the inputs.
+         */
+        public double[][] getX() {
+            return inputs;
+        }
+
+        /**
+         * Returns the expected outputs of the parsed rows. If neither a label column nor an output delimiter is set,
+         * the expected outputs are empty.
+         *
+         * @return the expected outputs.
+         */
+        public double[][] getY() {
+            return outputs;
+        }
+
+        /**
+         * Returns the rows which could not be parsed and were skipped.
+         *
+         * @return the malformed rows in file order.
+         */
+        public List<MalformedRow> getMalformedRows() {
+            return malformedRows;
+        }
+
+        public int size() {
+            return inputs.length;
+        }
+    }
+
+    /**
+     * A row which could not be parsed.
+     */
+    public static class MalformedRow {
+        private final long line;
+        private final String message;
+
+        private MalformedRow(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * Returns the line number of the row, starting at 1 with the first line of the file.
+         *
+         * @return the line number.
+         */
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+
+    /**
+     * The builder configures a csv parser.
+     */
+    public static class Builder {
+
+        private char delimiter = ',';
+        private Character outputDelimiter;
+        private boolean header = true;
+        private int labelColumn = -1;
+        private int oneHotWidth;
+        private String[] labels;
+        private int[] ignoredColumns = new int[0];
+        private int parallelism = 1;
+        private boolean strict;
+
+        /**
+         * Setter for the delimiter of the values. Default is ','.
+         * @param delimiter an ASCII character.
+         * @return the Builder.
+         */
+        public Builder setDelimiter(char delimiter) {
+            this.delimiter = delimiter;
+            return this;
+        }
+
+        /**
+         * Setter for the delimiter between the inputs and the expected outputs of a row, e.g. ';' for rows like
+         * "0.1,2.2;1,0". Must not be combined with a label column. Default is null, i.e. no output delimiter.
+         * @param outputDelimiter an ASCII character or null.
+         * @return the Builder.
+         */
+        public Builder setOutputDelimiter(Character outputDelimiter) {
+            this.outputDelimiter = outputDelimiter;
+            return this;
+        }
+
+        /**
+         * Setter for the header. If true, the first line is skipped. Default is true.
+         * @param header true if the file has a header line.
+         * @return the Builder.
+         */
+        public Builder setHeader(boolean header) {
+            this.header = header;
+            return this;
+        }
+
+        /**
+         * Setter for the label column. The value of this column is the expected output of the row, all other columns
+         * are inputs. Default is -1, i.e. no label column.
+         * @param labelColumn the index of the label column or -1.
+         * @return the Builder.
+         */
+        public Builder setLabelColumn(int labelColumn) {
+            this.labelColumn = labelColumn;
+            return this;
+        }
+
+        /**
+         * Setter for the one-hot width. If above 0, a label is converted to a vector of this length, which is 1 at the
+         * index of the label and 0 otherwise. If 0, the label is kept as single expected output. Default is 0.
+         * @param oneHotWidth the count of classes or 0.
+         * @return the Builder.
+         */
+        public Builder setOneHotWidth(int oneHotWidth) {
+            this.oneHotWidth = oneHotWidth;
+            return this;
+        }
+
+        /**
+         * Setter for the label names. If set, the label column holds names, which are mapped to their index in the
+         * given order. Otherwise, the label column holds numbers.
+         * @param labels the label names.
+         * @return the Builder.
+         */
+        public Builder setLabels(String... labels) {
+            this.labels = labels;
+            return this;
+        }
+
+        /**
+         * Setter for the columns to skip, e.g. an id column.
+         * @param ignoredColumns the indices of the columns to skip.
+         * @return the Builder.
+         */
+        public Builder setIgnoredColumns(int... ignoredColumns) {
+            this.ignoredColumns = ignoredColumns;
+            return this;
+        }
+
+        /**
+         * Setter for the parallelism. If above 1, large files are split into chunks, which are parsed by this
+         * count of threads. Default is 1.
+         * @param parallelism the count of threads.
+         * @return the Builder.
+         */
+        public Builder setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Setter for the strict mode. If true, parsing fails with an IllegalArgumentException if a row is malformed.
+         * Otherwise, malformed rows are skipped, logged and reported by the result. Default is false.
+         * @param strict true to fail on malformed rows.
+         * @return the Builder.
+         */
+        public Builder setStrict(boolean strict) {
+            this.strict = strict;
+            return this;
+        }
+
+        /**
+         * Creates the csv parser.
+         * @return the csv parser.
+         */
+        public CsvParser build() {
+            CsvParser parser = new CsvParser();
+            if (delimiter > 127 || delimiter == '"' || delimiter == '\n') {
+                throw new IllegalArgumentException("Delimiter must be an ASCII character other than quote or line break!");
+            }
+            parser.delimiter = (byte) delimiter;
+            if (outputDelimiter != null && (outputDelimiter > 127 || outputDelimiter == '"' || outputDelimiter == '\n' || outputDelimiter == delimiter)) {
+                throw new IllegalArgumentException("Output delimiter must be an ASCII character other than quote, line break or delimiter!");
+            } else if (outputDelimiter != null && labelColumn >= 0) {
+                throw new IllegalArgumentException("Output delimiter and label column must not be combined!");
+            }
+            parser.outputDelimiter = outputDelimiter == null ? parser.delimiter : (byte) outputDelimiter.charValue();
+            parser.header = header;
+            if (labelColumn < -1) {
+                throw new IllegalArgumentException("Label column must be -1 or above!");
+            }
+            parser.labelColumn = labelColumn;
+            if (oneHotWidth < 0) {
+                throw new IllegalArgumentException("One-hot width must not be negative!");
+            } else if (oneHotWidth > 0 && labelColumn < 0) {
+                throw new IllegalArgumentException("One-hot width requires a label column!");
+            }
+            parser.oneHotWidth = oneHotWidth;
+            if (labels != null) {
+                if (labelColumn < 0) {
+                    throw new IllegalArgumentException("Labels require a label column!");
+                }
+                parser.labels = labels.clone();
+                parser.labelBytes = new byte[labels.length][];
+                for (int i = 0; i < labels.length; i++) {
+                    if (labels[i] == null) {
+                        throw new NullPointerException("Labels must not be null!");
+                    }
+                    parser.labelBytes[i] = labels[i].getBytes(StandardCharsets.UTF_8);
+                }
+            }
+            if (ignoredColumns == null) {
+                throw new NullPointerException("Ignored columns must not be null!");
+            }
+            parser.ignoredColumns = new boolean[Arrays.stream(ignoredColumns).max().orElse(-1) + 1];
+            for (int column : ignoredColumns) {
+                if (column < 0 || column == labelColumn) {
+                    throw new IllegalArgumentException("Ignored columns must not be negative or the label column!");
+                }
+                parser.ignoredColumns[column] = true;
+            }
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be an integer above 0!");
+            }
+            parser.parallelism = parallelism;
+            parser.strict = strict;
+            return parser;
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package ch.kaiki.nn.data;
 
 import java.io.*;
-import java.net.URISyntaxException;
-import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -12,8 +11,6 @@ public class Dataset implements Serializable {
 
     private static final long serialVersionUID = 2L;
     private DatasetType type;
-    private static final String COMMA_DELIMITER = ",";
-    private static final String SEMICOLON_DELIMITER = ";";
 
     private String[] featureLabels = new String[0];
     List<double[]> _X = new ArrayList<>();
@@ -45,127 +42,72 @@ public class Dataset implements Serializable {
         }
     }
 
-    private void loadXOrData() {
-        URL inputStream = this.getClass().getClassLoader().getResource("samples/xor/xor.csv");
-        try (BufferedReader br = new BufferedReader(new FileReader(new File(inputStream.toURI())))) {
-
-            String line;
-            boolean skip = true;
-            while ((line = br.readLine()) != null) {
-                if (skip) {
-                    skip = false;
-                    continue;
-                }
-                String[] values = line.split(SEMICOLON_DELIMITER);
-                _X.add(convertStringArrayToDoubleArray(values[0].split(COMMA_DELIMITER)));
-                _y.add(convertStringArrayToDoubleArray(values[1].split(COMMA_DELIMITER)));
-            }
-
-            shuffle(true);
-
-            split(1);
+    /**
+     * Loads a dataset from a csv file.
+     *
+     * @param file   the path of the csv file.
+     * @param parser the csv parser configured for the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public Dataset(Path file, CsvParser parser) throws IOException {
+        if (file == null || parser == null) {
+            throw new NullPointerException("File and parser are required!");
+        }
+        load(parser.parse(file));
+        if (parser.getLabels() != null) {
+            featureLabels = parser.getLabels();
+        }
+    }
 
+    private void loadXOrData() {
+        CsvParser parser = new CsvParser.Builder().setOutputDelimiter(';').build();
+        if (loadResource("samples/xor/xor.csv", parser)) {
             featureLabels = new String[] {"true / false"};
-
-        } catch (IOException | URISyntaxException e) {
-            e.printStackTrace();
         }
     }
 
     private void loadCustomData() {
-        URL inputStream = this.getClass().getClassLoader().getResource("samples/custom/custom.csv");
-        try (BufferedReader br = new BufferedReader(new FileReader(new File(inputStream.toURI())))) {
-
-            String line;
-            boolean skip = true;
-            while ((line = br.readLine()) != null) {
-                if (skip) {
-                    skip = false;
-                    continue;
-                }
-                String[] values = line.split(SEMICOLON_DELIMITER);
-                _X.add(convertStringArrayToDoubleArray(values[0].split(COMMA_DELIMITER)));
-                _y.add(convertStringArrayToDoubleArray(values[1].split(COMMA_DELIMITER)));
-            }
-
-            shuffle(false);
-
-            split(1);
-
+        CsvParser parser = new CsvParser.Builder().setOutputDelimiter(';').build();
+        if (loadResource("samples/custom/custom.csv", parser)) {
             featureLabels = new String[] {"0","1","2","3"};
-
-        } catch (IOException | URISyntaxException e) {
-            e.printStackTrace();
         }
     }
 
     private void loadIrisData() {
-        URL inputStream = this.getClass().getClassLoader().getResource("samples/iris/iris.csv");
-        try (BufferedReader br = new BufferedReader(new FileReader(new File(inputStream.toURI())))) {
-            featureLabels = new String[] {"Setosa","Versicolor","Virginica"};
-            String line;
-            boolean skip = true;
-            while ((line = br.readLine()) != null) {
-                if (skip) {
-                    skip = false;
-                    continue;
-                }
-                String[] values = line.split(COMMA_DELIMITER);
-                String[] strArr = new String[4];
-                for (int i = 0; i < 4; i++) {
-                    strArr[i] = values[i + 1];
-                }
-                _X.add(convertStringArrayToDoubleArray(strArr));
-                for (int i = 0; i < featureLabels.length; i++) {
-                    if (featureLabels[i].equals(values[4])) {
-                        _y.add(new double[]{i});
-                    }
-                }
-
-            }
-
-            shuffle(true);
-
-            split(1);
-
-
-        } catch (IOException | URISyntaxException e) {
-            e.printStackTrace();
-        }
+        featureLabels = new String[] {"Setosa","Versicolor","Virginica"};
+        CsvParser parser = new CsvParser.Builder().setLabelColumn(4).setLabels(featureLabels).build();
+        loadResource("samples/iris/iris.csv", parser);
     }
 
     private void loadMnistData() {
-        URL inputStreamTrain = this.getClass().getClassLoader().getResource("samples/mnist/mnist_train.csv");
-        URL inputStreamTest = this.getClass().getClassLoader().getResource("samples/mnist/mnist_test.csv");
-        try (BufferedReader brTrain = new BufferedReader(new FileReader(new File(inputStreamTrain.toURI())));
-             BufferedReader brTest = new BufferedReader(new FileReader(new File(inputStreamTest.toURI())));) {
-
-            String line;
-            boolean skip = true;
-            while ((line = brTrain.readLine()) != null) {
-                if (skip) {
-                    skip = false;
-                    continue;
-                }
-                String[] values = line.split(COMMA_DELIMITER);
-                String[] strArr = new String[28*28];
-                for (int i = 0; i < 28*28; i++) {
-                    strArr[i] = values[i + 1];
-                }
-                _X.add(convertStringArrayToDoubleArray(strArr));
-                _y.add(toOneHot(values[0], 10));
-            }
-
-            shuffle(false);
-
-            split(1);
+        CsvParser parser = new CsvParser.Builder().setLabelColumn(0).setOneHotWidth(10)
+                .setParallelism(Runtime.getRuntime().availableProcessors()).build();
+        if (loadResource("samples/mnist/mnist_train.csv", parser)) {
             featureLabels = new String[] {"0","1","2","3","4","5","6","7","8","9"};
+        }
+    }
 
-        } catch (IOException | URISyntaxException e) {
+    private boolean loadResource(String name, CsvParser parser) {
+        InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream(name);
+        if (inputStream == null) {
+            throw new IllegalStateException("Resource " + name + " not found!");
+        }
+        try (InputStream in = inputStream) {
+            load(parser.parse(in));
+            return true;
+        } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
     }
 
+    private void load(CsvParser.Result result) {
+        Collections.addAll(_X, result.getX());
+        Collections.addAll(_y, result.getY());
+        shuffle(false);
+        split(1);
+    }
+
     private void split(double split) {
         int splitIter = (int) (this._X.size() * split);
         double[][] x = new double[splitIter][];
@@ -197,25 +139,6 @@ public class Dataset implements Serializable {
         Collections.shuffle(_y, seed);
     }
 
-    private double[] toOneHot(String digit, int length) {
-        int index = Integer.parseInt(digit);
-        double[] result = new double[length];
-        result[index] = 1;
-        return result;
-    }
-
-    private double[] convertStringArrayToDoubleArray(String[] str) {
-        double[] d = new double[str.length];
-        try {
-            for (int i = 0; i < str.length; i++) {
-                d[i] = Double.parseDouble(str[i]);
-            }
-        } catch (Exception e) {
-
-        }
-        return d;
-    }
-
     public String[] getFeatureLabels() {
         return featureLabels;
     }
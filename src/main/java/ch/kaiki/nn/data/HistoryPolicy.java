@@ -0,0 +1,42 @@
+package ch.kaiki.nn.data;
+
+/**
+ * The history policy decides which training iterations are kept by BackPropData. Except for ALL, at most the
+ * configured history size is kept, so the memory used for the history does not grow with the training time.
+ * The cumulative values and the confusion matrix always cover all iterations.
+ */
+public enum HistoryPolicy {
+
+    /**
+     * Keeps every iteration.
+     */
+    ALL("Keep all iterations"),
+    /**
+     * Keeps the latest iterations in a ring buffer, the oldest iteration is overwritten first.
+     */
+    RING_BUFFER("Keep the latest iterations"),
+    /**
+     * Keeps a uniform random sample of all iterations by reservoir sampling.
+     */
+    RESERVOIR("Keep a uniform random sample of iterations"),
+    /**
+     * Keeps every 2^k-th iteration. Whenever the history is full, every second kept iteration is dropped and k is
+     * increased by one, so the history always spans the whole training with a decreasing resolution.
+     */
+    DOWNSAMPLING("Keep every 2^k-th iteration");
+
+    private final String description;
+
+    HistoryPolicy(String description) {
+        this.description = description + " (" + this.name() + ")";
+    }
+
+    /**
+     * Gets short description of the history policy.
+     *
+     * @return the description.
+     */
+    public String getDescription() {
+        return description;
+    }
+}
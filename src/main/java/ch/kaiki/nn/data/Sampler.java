@@ -0,0 +1,338 @@
+package ch.kaiki.nn.data;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A sampler draws the indices of the samples to fit from an input set according to a sampling strategy.
+ * Shuffled strategies permute the indices in place by Fisher-Yates once per epoch, so drawing a sample does not
+ * allocate. All random numbers are taken from a SplittableRandom of the given seed, so the sequence of indices is
+ * reproducible. A sampler is not thread safe.
+ */
+public class Sampler {
+
+    private final SamplingStrategy strategy;
+    private final SplittableRandom random;
+    private final int size;
+    private final int[] permutation;
+    private final int[][] strata;
+    private final int[] strataPositions;
+    private final double[] strataOffsets;
+    private final double[] cumulativeWeights;
+    private int position;
+    private long drawn;
+
+    /**
+     * Creates a sampler for an input set with the given expected outputs. The class of a sample is the index of its
+     * highest expected output or, if there is a single output, whether it is above 0.5.
+     *
+     * @param strategy          the sampling strategy.
+     * @param expectedOutputSet the expected outputs of the input set.
+     * @param seed              the seed of the random numbers.
+     */
+    public Sampler(SamplingStrategy strategy, double[][] expectedOutputSet, long seed) {
+        this(strategy, expectedOutputSet.length, requiresClasses(strategy) ? classesOf(expectedOutputSet) : null, seed);
+    }
+
+    /**
+     * Creates a sampler for an input set of the given size. The classes are required by stratified and weighted
+     * sampling only and may be null otherwise.
+     *
+     * @param strategy the sampling strategy.
+     * @param size     the count of samples of the input set.
+     * @param classes  the class of every sample of the input set.
+     * @param seed     the seed of the random numbers.
+     */
+    public Sampler(SamplingStrategy strategy, int size, int[] classes, long seed) {
+        this(strategy, size, classes, strategy == SamplingStrategy.WEIGHTED && classes != null ? balancedWeights(classes) : null, seed);
+    }
+
+    /**
+     * Creates a sampler drawing samples with replacement and a probability proportional to the given weights.
+     *
+     * @param weights the non-negative weight of every sample of the input set.
+     * @param seed    the seed of the random numbers.
+     */
+    public Sampler(double[] weights, long seed) {
+        this(SamplingStrategy.WEIGHTED, weights.length, null, weights, seed);
+    }
+
+    private Sampler(SamplingStrategy strategy, int size, int[] classes, double[] weights, long seed) {
+        if (strategy == null) {
+            throw new NullPointerException("Sampling strategy must not be null!");
+        } else if (size < 1) {
+            throw new IllegalArgumentException("Input set must not be empty!");
+        } else if (requiresClasses(strategy) && classes == null && weights == null) {
+            throw new NullPointerException("Classes must not be null for sampling strategy " + strategy + "!");
+        } else if (classes != null && classes.length != size) {
+            throw new IllegalArgumentException("Class count does not match input set size!");
+        }
+        this.strategy = strategy;
+        this.random = new SplittableRandom(seed);
+        this.size = size;
+        this.position = size;
+        switch (strategy) {
+            case SHUFFLE:
+                permutation = identity(size);
+                strata = null;
+                strataPositions = null;
+                strataOffsets = null;
+                cumulativeWeights = null;
+                break;
+            case STRATIFIED:
+                permutation = new int[size];
+                strata = groupByClass(classes);
+                strataPositions = new int[strata.length];
+                strataOffsets = new double[strata.length];
+                cumulativeWeights = null;
+                break;
+            case WEIGHTED:
+                permutation = null;
+                strata = null;
+                strataPositions = null;
+                strataOffsets = null;
+                cumulativeWeights = cumulate(weights);
+                break;
+            default:
+                permutation = null;
+                strata = null;
+                strataPositions = null;
+                strataOffsets = null;
+                cumulativeWeights = null;
+                break;
+        }
+    }
+
+    /**
+     * Draws the index of the next sample.
+     *
+     * @return the index of the sample in the input set.
+     */
+    public int next() {
+        drawn++;
+        switch (strategy) {
+            case SHUFFLE:
+            case STRATIFIED:
+                if (position == size) {
+                    nextEpoch();
+                }
+                return permutation[position++];
+            case WEIGHTED:
+                // first sample with a cumulative weight above the value
+                double value = random.nextDouble() * cumulativeWeights[size - 1];
+                int low = 0;
+                int high = size - 1;
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (cumulativeWeights[middle] > value) {
+                        high = middle;
+                    } else {
+                        low = middle + 1;
+                    }
+                }
+                return low;
+            default:
+                return random.nextInt(size);
+        }
+    }
+
+    /**
+     * Draws the indices of the next batch. Within the batch, the indices are sorted ascending, so the samples are
+     * accessed sequentially. This does not change the gradient of the batch.
+     *
+     * @param indices the array to write the indices to.
+     * @param from    the first index of the array to write to (inclusive).
+     * @param to      the last index of the array to write to (exclusive).
+     */
+    public void next(int[] indices, int from, int to) {
+        for (int i = from; i < to; i++) {
+            indices[i] = next();
+        }
+        Arrays.sort(indices, from, to);
+    }
+
+    /**
+     * Returns the count of epochs started so far, i.e. the count of drawn samples divided by the size of the input
+     * set, rounded up.
+     *
+     * @return the count of epochs.
+     */
+    public long getEpoch() {
+        return (drawn + size - 1) / size;
+    }
+
+    /**
+     * Returns the size of the input set.
+     *
+     * @return the count of samples.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public SamplingStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns the class of every expected output. The class is the index of the highest expected output or,
+     * if there is a single output, 1 if it is above 0.5 and 0 otherwise. Missing outputs are assigned to class 0.
+     *
+     * @param expectedOutputSet the expected outputs.
+     * @return the classes.
+     */
+    public static int[] classesOf(double[][] expectedOutputSet) {
+        int[] classes = new int[expectedOutputSet.length];
+        for (int i = 0; i < expectedOutputSet.length; i++) {
+            double[] expected = expectedOutputSet[i];
+            if (expected == null || expected.length == 0) {
+                continue;
+            } else if (expected.length == 1) {
+                classes[i] = expected[0] > 0.5 ? 1 : 0;
+                continue;
+            }
+            int maxIndex = 0;
+            for (int j = 1; j < expected.length; j++) {
+                if (expected[j] > expected[maxIndex]) {
+                    maxIndex = j;
+                }
+            }
+            classes[i] = maxIndex;
+        }
+        return classes;
+    }
+
+    /**
+     * Returns the class of every expected output as done by classesOf(double[][]).
+     *
+     * @param expectedOutputSet the expected outputs in single precision.
+     * @return the classes.
+     */
+    public static int[] classesOf(float[][] expectedOutputSet) {
+        double[][] expected = new double[expectedOutputSet.length][];
+        for (int i = 0; i < expectedOutputSet.length; i++) {
+            if (expectedOutputSet[i] != null) {
+                expected[i] = new double[expectedOutputSet[i].length];
+                for (int j = 0; j < expected[i].length; j++) {
+                    expected[i][j] = expectedOutputSet[i][j];
+                }
+            }
+        }
+        return classesOf(expected);
+    }
+
+    /**
+     * Returns true if the given strategy requires the classes of the samples.
+     *
+     * @param strategy the sampling strategy.
+     * @return true for stratified and weighted sampling.
+     */
+    public static boolean requiresClasses(SamplingStrategy strategy) {
+        return strategy == SamplingStrategy.STRATIFIED || strategy == SamplingStrategy.WEIGHTED;
+    }
+
+    private void nextEpoch() {
+        if (strategy == SamplingStrategy.SHUFFLE) {
+            shuffle(permutation, 0, size);
+        } else {
+            // every stratum is shuffled and spread evenly over the epoch: the k-th of n samples of a stratum
+            // is placed at (k + offset) / n, the strata are merged by this position
+            for (int c = 0; c < strata.length; c++) {
+                shuffle(strata[c], 0, strata[c].length);
+                strataPositions[c] = 0;
+                strataOffsets[c] = random.nextDouble();
+            }
+            for (int i = 0; i < size; i++) {
+                int next = -1;
+                double nextPosition = Double.MAX_VALUE;
+                for (int c = 0; c < strata.length; c++) {
+                    if (strataPositions[c] < strata[c].length) {
+                        double p = (strataPositions[c] + strataOffsets[c]) / strata[c].length;
+                        if (p < nextPosition) {
+                            nextPosition = p;
+                            next = c;
+                        }
+                    }
+                }
+                permutation[i] = strata[next][strataPositions[next]++];
+            }
+        }
+        position = 0;
+    }
+
+    private void shuffle(int[] array, int from, int to) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    private static int[] identity(int size) {
+        int[] indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    private static int[][] groupByClass(int[] classes) {
+        int classCount = 0;
+        for (int c : classes) {
+            if (c < 0) {
+                throw new IllegalArgumentException("Classes must not be negative!");
+            }
+            classCount = Math.max(classCount, c + 1);
+        }
+        int[] counts = new int[classCount];
+        for (int c : classes) {
+            counts[c]++;
+        }
+        int nonEmpty = 0;
+        int[] strataIndex = new int[classCount];
+        for (int c = 0; c < classCount; c++) {
+            strataIndex[c] = counts[c] == 0 ? -1 : nonEmpty++;
+        }
+        int[][] strata = new int[nonEmpty][];
+        for (int c = 0; c < classCount; c++) {
+            if (counts[c] > 0) {
+                strata[strataIndex[c]] = new int[counts[c]];
+            }
+        }
+        int[] filled = new int[nonEmpty];
+        for (int i = 0; i < classes.length; i++) {
+            int s = strataIndex[classes[i]];
+            strata[s][filled[s]++] = i;
+        }
+        return strata;
+    }
+
+    private static double[] balancedWeights(int[] classes) {
+        int[] counts = new int[Arrays.stream(classes).max().orElse(0) + 1];
+        for (int c : classes) {
+            counts[c]++;
+        }
+        double[] weights = new double[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            weights[i] = 1.0 / counts[classes[i]];
+        }
+        return weights;
+    }
+
+    private static double[] cumulate(double[] weights) {
+        double[] cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0 || Double.isNaN(weights[i]) || Double.isInfinite(weights[i])) {
+                throw new IllegalArgumentException("Weights must be finite and not negative!");
+            }
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("At least one weight must be above 0!");
+        }
+        return cumulative;
+    }
+}
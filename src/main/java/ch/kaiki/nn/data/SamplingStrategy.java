@@ -0,0 +1,42 @@
+package ch.kaiki.nn.data;
+
+/**
+ * The sampling strategy decides how the samples of a training run are drawn from the input set by a Sampler.
+ */
+public enum SamplingStrategy {
+
+    /**
+     * Draws every sample independently with replacement, so some samples may be fitted more often than others.
+     */
+    RANDOM("Random sampling with replacement"),
+    /**
+     * Draws the samples epoch by epoch from a new permutation of the input set, so every sample is fitted
+     * once per epoch.
+     */
+    SHUFFLE("Shuffled epochs"),
+    /**
+     * Draws shuffled epochs, which interleave the classes of the expected output, so every batch holds
+     * the classes in about the same proportions as the input set.
+     */
+    STRATIFIED("Stratified shuffled epochs"),
+    /**
+     * Draws every sample with replacement and a probability proportional to its weight. By default, the weight
+     * of a sample is the inverse frequency of its class, so all classes are fitted equally often.
+     */
+    WEIGHTED("Weighted sampling with replacement");
+
+    private final String description;
+
+    SamplingStrategy(String description) {
+        this.description = description + " (" + this.name() + ")";
+    }
+
+    /**
+     * Gets short description of the sampling strategy.
+     *
+     * @return the description.
+     */
+    public String getDescription() {
+        return description;
+    }
+}
@@ -1,5 +1,7 @@
 package ch.kaiki.nn.genetic;
 
+import ch.kaiki.nn.util.RandomSource;
+
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
@@ -22,9 +24,15 @@ class Generation<T> {
     private final List<IGeneticObject> populationList = new ArrayList<>();
     private final int parentCount;
     private int selectionPoolSize;
+    private final RandomSource randomSource;
 
-    Generation(Constructor<T> geneticObjectConstructor, int id, int parentCount, int populationSize, double reproductionPoolSize) {
+    /**
+     * Creates a generation. If a random source is given, it is passed to the genes for initialization, mutation and
+     * crossover. Otherwise, the genes use their own random source.
+     */
+    Generation(Constructor<T> geneticObjectConstructor, int id, int parentCount, int populationSize, double reproductionPoolSize, RandomSource randomSource) {
         this.geneticObjectConstructor = geneticObjectConstructor;
+        this.randomSource = randomSource;
         this.id = id;
         this.parentCount = parentCount;
         this.populationSize = populationSize;
@@ -36,7 +44,13 @@ class Generation<T> {
         ExecutorService executorService = Executors.newFixedThreadPool(THREAD_POOL);
         List<Runnable> tasks = new ArrayList<>();
         for (int i = 0; i < populationSize; i++) {
-            tasks.add(new BackgroundProcess(geneticObjectConstructor, i == 0 ? seed.initialize() : seed.mutate(), populationList));
+            IGene gene;
+            if (randomSource == null) {
+                gene = i == 0 ? seed.initialize() : seed.mutate();
+            } else {
+                gene = i == 0 ? seed.initialize(randomSource) : seed.mutate(randomSource);
+            }
+            tasks.add(new BackgroundProcess(geneticObjectConstructor, gene, populationList));
         }
         CompletableFuture<?>[] futures = tasks.stream().map(task -> CompletableFuture.runAsync(task, executorService)).toArray(CompletableFuture[]::new);
         CompletableFuture.allOf(futures).join();
@@ -95,14 +109,14 @@ class Generation<T> {
             mergeList.add(spinRouletteWheel(map, selectionPoolSize, sumFitness));
         }
 
-        bestForReproduction = bestGene.crossover(mergeList);
+        bestForReproduction = randomSource == null ? bestGene.crossover(mergeList) : bestGene.crossover(mergeList, randomSource);
 
         return bestForReproduction;
     }
 
     private IGene spinRouletteWheel(Map<Integer, Long> map, int selectionPoolSize, double sumFitness) {
         double checksum = 0;
-        double random = Math.random() * sumFitness;
+        double random = (randomSource == null ? RandomSource.getDefault() : randomSource).nextDouble() * sumFitness;
         for (int i = 0; i < selectionPoolSize; i++) {
             checksum += map.get(i);
             if (checksum >= random) {
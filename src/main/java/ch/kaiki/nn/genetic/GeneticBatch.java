@@ -1,6 +1,7 @@
 package ch.kaiki.nn.genetic;
 
 import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import ch.kaiki.nn.util.RandomSource;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Constructor;
@@ -26,6 +27,7 @@ public class GeneticBatch<T, U> {
     private Generation<T> currentGeneration;
     private int parentCount = -1;
     private double reproductionPoolSize = -1;
+    private RandomSource randomSource;
 
     /**
      * Constructor to create a new batch. With given parameters, the genetic algorithm will be able to run.
@@ -91,7 +93,7 @@ public class GeneticBatch<T, U> {
         if (currentGenerationId == generationCount) {
             return null;
         }
-        currentGeneration = new Generation<>(geneticAlgorithmObjectConstructor, currentGenerationId, parentCount, populationSize, reproductionPoolSize);
+        currentGeneration = new Generation<>(geneticAlgorithmObjectConstructor, currentGenerationId, parentCount, populationSize, reproductionPoolSize, randomSource);
         seed = currentGeneration.runGeneration(seed);
         currentGenerationId++;
         return seed;
@@ -185,4 +187,26 @@ public class GeneticBatch<T, U> {
         return this;
     }
 
+    /**
+     * Returns the random source for initialization, mutation, crossover and selection.
+     *
+     * @return the random source or null if the genes use their own random source.
+     */
+    public RandomSource getRandomSource() {
+        return randomSource;
+    }
+
+    /**
+     * Sets the random source for initialization, mutation, crossover and selection. With a seeded random source,
+     * the genes of every generation are reproducible, as they are created by the calling thread.
+     * By default, the genes use their own random source.
+     *
+     * @param randomSource the random source or null to let the genes use their own random source.
+     * @return the current genetic algorithm batch.
+     */
+    public GeneticBatch<T, U> setRandomSource(RandomSource randomSource) {
+        this.randomSource = randomSource;
+        return this;
+    }
+
 }
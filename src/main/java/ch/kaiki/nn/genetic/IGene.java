@@ -1,5 +1,6 @@
 package ch.kaiki.nn.genetic;
 
+import ch.kaiki.nn.util.RandomSource;
 
 import java.io.Serializable;
 import java.util.List;
@@ -12,6 +13,40 @@ public interface IGene extends Serializable {
 
     IGene mutate();
 
+    /**
+     * Crosses over the given genes, drawing random numbers from the given random source.
+     * By default, the random source is ignored.
+     *
+     * @param genes  the genes to be crossed over.
+     * @param random the random source.
+     * @return the new gene.
+     */
+    default IGene crossover(List<IGene> genes, RandomSource random) {
+        return crossover(genes);
+    }
+
+    /**
+     * Re-initializes a copy of this gene, drawing random numbers from the given random source.
+     * By default, the random source is ignored.
+     *
+     * @param random the random source.
+     * @return the new gene.
+     */
+    default IGene initialize(RandomSource random) {
+        return initialize();
+    }
+
+    /**
+     * Mutates a copy of this gene, drawing random numbers from the given random source.
+     * By default, the random source is ignored.
+     *
+     * @param random the random source.
+     * @return the new gene.
+     */
+    default IGene mutate(RandomSource random) {
+        return mutate();
+    }
+
     void decreaseRate();
 
     List<Double> predict(double[] inputNodes);
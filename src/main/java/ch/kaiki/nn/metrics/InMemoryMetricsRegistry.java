@@ -0,0 +1,60 @@
+package ch.kaiki.nn.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A simple sink holding the most recently published metrics of every source in memory.
+ */
+public class InMemoryMetricsRegistry implements MetricsSink {
+
+    private final Map<String, Map<String, Number>> sources = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String source, Map<String, Number> metrics) {
+        if (source == null || metrics == null) {
+            throw new NullPointerException("source and metrics are required!");
+        }
+        sources.put(source, Collections.unmodifiableMap(new TreeMap<>(metrics)));
+    }
+
+    /**
+     * Returns the names of all sources which published metrics.
+     *
+     * @return the names of the sources.
+     */
+    public Set<String> getSources() {
+        return Collections.unmodifiableSet(sources.keySet());
+    }
+
+    /**
+     * Returns the most recently published metrics of a source, sorted by name.
+     *
+     * @param source the name of the source.
+     * @return the metric values by metric name or an empty map if the source did not publish yet.
+     */
+    public Map<String, Number> getMetrics(String source) {
+        return sources.getOrDefault(source, Collections.emptyMap());
+    }
+
+    /**
+     * Returns the most recently published value of a metric.
+     *
+     * @param source the name of the source.
+     * @param metric the name of the metric.
+     * @return the value or null if not published yet.
+     */
+    public Number getValue(String source, String metric) {
+        return getMetrics(source).get(metric);
+    }
+
+    /**
+     * Discards all published metrics.
+     */
+    public void clear() {
+        sources.clear();
+    }
+}
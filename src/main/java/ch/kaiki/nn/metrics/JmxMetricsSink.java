@@ -0,0 +1,155 @@
+package ch.kaiki.nn.metrics;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A sink exposing the published metrics as read-only attributes of MBeans on the platform MBean server.
+ * Every source is registered once as MBean with the object name {@code <domain>:type=Metrics,name=<source>}
+ * and shows the most recently published values, e.g. in JConsole or VisualVM.
+ */
+public class JmxMetricsSink implements MetricsSink {
+
+    private static final Logger LOG = Logger.getLogger("JmxMetricsSink logger");
+    private static final String DEFAULT_DOMAIN = "ch.kaiki.nn";
+
+    private final String domain;
+    private final MBeanServer server;
+    private final Map<String, MetricsBean> beans = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a sink registering its MBeans in the domain ch.kaiki.nn.
+     */
+    public JmxMetricsSink() {
+        this(DEFAULT_DOMAIN);
+    }
+
+    /**
+     * Creates a sink registering its MBeans in the given domain.
+     *
+     * @param domain the domain of the object names.
+     */
+    public JmxMetricsSink(String domain) {
+        if (domain == null) {
+            throw new NullPointerException("domain must not be null!");
+        }
+        this.domain = domain;
+        this.server = ManagementFactory.getPlatformMBeanServer();
+    }
+
+    @Override
+    public void publish(String source, Map<String, Number> metrics) {
+        if (source == null || metrics == null) {
+            throw new NullPointerException("source and metrics are required!");
+        }
+        beans.computeIfAbsent(source, this::register).values = Collections.unmodifiableMap(new TreeMap<>(metrics));
+    }
+
+    /**
+     * Returns the object name the MBean of a source is registered with.
+     *
+     * @param source the name of the source.
+     * @return the object name.
+     */
+    public ObjectName getObjectName(String source) {
+        try {
+            return new ObjectName(domain + ":type=Metrics,name=" + ObjectName.quote(source));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("source " + source + " is not a valid MBean name!", e);
+        }
+    }
+
+    /**
+     * Unregisters the MBeans of all sources.
+     */
+    public void close() {
+        for (String source : beans.keySet()) {
+            try {
+                server.unregisterMBean(getObjectName(source));
+            } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+                LOG.log(Level.WARNING, "Could not unregister metrics of " + source + "!", e);
+            }
+        }
+        beans.clear();
+    }
+
+    private MetricsBean register(String source) {
+        MetricsBean bean = new MetricsBean(source);
+        ObjectName name = getObjectName(source);
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(bean, name);
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "Could not register metrics of " + source + " as MBean!", e);
+        }
+        return bean;
+    }
+
+    /**
+     * MBean with one read-only attribute per metric.
+     */
+    private static class MetricsBean implements DynamicMBean {
+        private final String source;
+        private volatile Map<String, Number> values = Collections.emptyMap();
+
+        MetricsBean(String source) {
+            this.source = source;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Number value = values.get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException("metric " + attribute + " is not available!");
+            }
+            return value;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("metrics are read-only!");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Number> current = values;
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                Number value = current.get(attribute);
+                if (value != null) {
+                    list.add(new Attribute(attribute, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException {
+            throw new MBeanException(new UnsupportedOperationException("metrics do not provide operations!"));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            Map<String, Number> current = values;
+            MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[current.size()];
+            int i = 0;
+            for (Map.Entry<String, Number> entry : current.entrySet()) {
+                attributes[i++] = new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(), entry.getKey(), true, false, false);
+            }
+            return new MBeanInfo(getClass().getName(), "Metrics of " + source, attributes, null, null, null);
+        }
+    }
+}
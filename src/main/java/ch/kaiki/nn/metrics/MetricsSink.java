@@ -0,0 +1,20 @@
+package ch.kaiki.nn.metrics;
+
+import java.util.Map;
+
+/**
+ * A sink receives the current values of a set of metrics, e.g. to expose them via JMX or to keep them in memory.
+ * The values are pushed by their source, e.g. by a neural network after fitting.
+ */
+public interface MetricsSink {
+
+    /**
+     * Publishes the current values of the metrics of a source. The values replace previously published values
+     * of the same source.
+     *
+     * @param source  the name of the source of the metrics.
+     * @param metrics the metric values by metric name.
+     */
+    void publish(String source, Map<String, Number> metrics);
+
+}
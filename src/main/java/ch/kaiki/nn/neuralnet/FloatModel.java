@@ -0,0 +1,237 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.util.Rectifier;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single precision copy of the layers of a neural network. The weights and biases are stored as flat float arrays
+ * (row-major like Matrix), which halves the memory traffic compared to double precision. Values are accumulated
+ * in float as well, only the activation functions are evaluated in double precision and rounded afterwards.
+ */
+class FloatModel {
+
+    private final Rectifier[] rectifiers;
+    private final float[][] weights;
+    private final float[][] biases;
+    private final int[] configuration;
+
+    /**
+     * Creates a single precision model by rounding the weights and biases of the given layers.
+     *
+     * @param layers        the layers to convert
+     * @param configuration the node count of every layer including the input layer
+     */
+    FloatModel(List<Layer> layers, int[] configuration) {
+        this.configuration = configuration.clone();
+        rectifiers = new Rectifier[layers.size()];
+        weights = new float[layers.size()][];
+        biases = new float[layers.size()][];
+        for (int i = 0; i < layers.size(); i++) {
+            Layer layer = layers.get(i);
+            rectifiers[i] = layer.rectifier;
+            weights[i] = toFloat(Matrix.asArray(layer.weight));
+            biases[i] = toFloat(Matrix.asArray(layer.bias));
+        }
+    }
+
+    /**
+     * Writes the weights and biases of this model back to the given double precision layers.
+     *
+     * @param layers the layers to update
+     */
+    void copyTo(List<Layer> layers) {
+        for (int i = 0; i < layers.size(); i++) {
+            copy(weights[i], Matrix.asArray(layers.get(i).weight));
+            copy(biases[i], Matrix.asArray(layers.get(i).bias));
+        }
+    }
+
+    /**
+     * Allocates one buffer per layer to hold the node values during propagation.
+     *
+     * @return the node buffers
+     */
+    float[][] createNodes() {
+        float[][] nodes = new float[weights.length][];
+        for (int i = 0; i < weights.length; i++) {
+            nodes[i] = new float[configuration[i + 1]];
+        }
+        return nodes;
+    }
+
+    /**
+     * Propagates a sample through all layers. The activated values of every layer are written to the node buffers,
+     * the last buffer holds the output.
+     *
+     * @param in          the input values
+     * @param nodes       the node buffers as allocated by createNodes()
+     * @param lastWeights the weights to use for the last layer (e.g. with dropout applied), or null
+     * @param policy      the numeric policy
+     * @param violations  the counter of NaN and Infinity values detected, or null
+     */
+    void forward(float[] in, float[][] nodes, float[] lastWeights, NumericPolicy policy, LongAdder violations) {
+        float[] tmp = in;
+        for (int i = 0; i < weights.length; i++) {
+            float[] weight = (lastWeights != null && i == weights.length - 1) ? lastWeights : weights[i];
+            forward(weight, biases[i], rectifiers[i], tmp, nodes[i]);
+            policy.scan(nodes[i], "Forward propagation", violations);
+            tmp = nodes[i];
+        }
+    }
+
+    /**
+     * Propagates the loss of a sample backwards and adds the unscaled weight and bias deltas of every layer
+     * to the given accumulators.
+     *
+     * @param in           the input values of the sample
+     * @param nodes        the node buffers filled by forward()
+     * @param loss         the loss of the output layer, i.e. the derivation of the cost function
+     * @param weightDeltas the accumulated weight deltas, one array per layer
+     * @param biasDeltas   the accumulated bias deltas, one array per layer
+     * @param policy       the numeric policy
+     * @param violations   the counter of NaN and Infinity values detected, or null
+     */
+    void backward(float[] in, float[][] nodes, float[] loss, float[][] weightDeltas, float[][] biasDeltas, NumericPolicy policy, LongAdder violations) {
+        for (int i = weights.length - 1; i >= 0; i--) {
+            float[] node = nodes[i];
+            float[] previous = i == 0 ? in : nodes[i - 1];
+            int rows = node.length;
+            int cols = previous.length;
+            float[] gradient = new float[rows];
+            for (int r = 0; r < rows; r++) {
+                gradient[r] = (float) rectifiers[i].derive(node[r]) * loss[r];
+            }
+            policy.scan(gradient, "Derivation operation", violations);
+            if (i > 0) {
+                float[] nextLoss = new float[cols];
+                for (int r = 0; r < rows; r++) {
+                    int row = r * cols;
+                    float g = gradient[r];
+                    for (int c = 0; c < cols; c++) {
+                        nextLoss[c] += weights[i][row + c] * g;
+                    }
+                }
+                loss = nextLoss;
+            }
+            float[] weightDelta = weightDeltas[i];
+            for (int r = 0; r < rows; r++) {
+                int row = r * cols;
+                float g = gradient[r];
+                for (int c = 0; c < cols; c++) {
+                    weightDelta[row + c] += g * previous[c];
+                }
+                biasDeltas[i][r] += g;
+            }
+        }
+    }
+
+    /**
+     * Subtracts the scaled deltas from the weights and biases.
+     *
+     * @param weightDeltas the weight deltas, one array per layer
+     * @param biasDeltas   the bias deltas, one array per layer
+     * @param scale        the factor to scale the deltas with
+     */
+    void update(float[][] weightDeltas, float[][] biasDeltas, float scale) {
+        for (int i = 0; i < weights.length; i++) {
+            for (int j = 0; j < weights[i].length; j++) {
+                weights[i][j] -= weightDeltas[i][j] * scale;
+            }
+            for (int j = 0; j < biases[i].length; j++) {
+                biases[i][j] -= biasDeltas[i][j] * scale;
+            }
+        }
+    }
+
+    /**
+     * Allocates zeroed delta accumulators matching the weights (or biases) of this model.
+     *
+     * @param bias true to match the biases, false to match the weights
+     * @return the accumulators
+     */
+    float[][] createDeltas(boolean bias) {
+        float[][] source = bias ? biases : weights;
+        float[][] deltas = new float[source.length][];
+        for (int i = 0; i < source.length; i++) {
+            deltas[i] = new float[source[i].length];
+        }
+        return deltas;
+    }
+
+    /**
+     * Returns a copy of the weights of the last layer, where each weight is set to zero by the given chance.
+     *
+     * @param factor the dropout factor
+     * @param random the random generator
+     * @return the weights with dropout applied
+     */
+    float[] dropout(double factor, SplittableRandom random) {
+        float[] tmp = weights[weights.length - 1].clone();
+        for (int i = 0; i < tmp.length; i++) {
+            if (random.nextDouble() < factor) {
+                tmp[i] = 0;
+            }
+        }
+        return tmp;
+    }
+
+    private static void forward(float[] w, float[] bias, Rectifier rectifier, float[] x, float[] out) {
+        int n = x.length;
+        int unrolled = n - (n % 4);
+        double expSum = 0;
+        for (int i = 0; i < out.length; i++) {
+            int row = i * n;
+            float s0 = 0;
+            float s1 = 0;
+            float s2 = 0;
+            float s3 = 0;
+            int k = 0;
+            for (; k < unrolled; k += 4) {
+                s0 += w[row + k] * x[k];
+                s1 += w[row + k + 1] * x[k + 1];
+                s2 += w[row + k + 2] * x[k + 2];
+                s3 += w[row + k + 3] * x[k + 3];
+            }
+            for (; k < n; k++) {
+                s0 += w[row + k] * x[k];
+            }
+            float value = (s0 + s1) + (s2 + s3) + bias[i];
+            if (rectifier == Rectifier.SOFTMAX) {
+                expSum += Math.exp(value);
+                out[i] = value;
+            } else {
+                out[i] = (float) rectifier.activate(value);
+            }
+        }
+        if (rectifier == Rectifier.SOFTMAX) {
+            for (int i = 0; i < out.length; i++) {
+                out[i] = (float) rectifier.activate(out[i], expSum);
+            }
+        }
+    }
+
+    static float[] toFloat(double[] values) {
+        float[] tmp = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            tmp[i] = (float) values[i];
+        }
+        return tmp;
+    }
+
+    static double[] toDouble(float[] values) {
+        double[] tmp = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            tmp[i] = values[i];
+        }
+        return tmp;
+    }
+
+    private static void copy(float[] source, double[] target) {
+        for (int i = 0; i < source.length; i++) {
+            target[i] = source[i];
+        }
+    }
+}
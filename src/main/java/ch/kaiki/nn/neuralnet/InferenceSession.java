@@ -0,0 +1,94 @@
+package ch.kaiki.nn.neuralnet;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class allows repeated predictions with a neural network without allocating memory per call.
+ * The node values of every layer are written to buffers, which are allocated once according to the
+ * configuration of the neural network.
+ * A session is bound to one neural network or one snapshot of it. Changes of the weights of a neural network,
+ * e.g. by fitting, are visible to its sessions, while sessions of a snapshot always use the weights of the snapshot.
+ * A session is not thread safe, every thread needs its own session.
+ * NaN and Infinity values detected according to the numeric policy are counted by the neural network.
+ */
+public class InferenceSession {
+
+    private final Layer[] layers;
+    private final double[][] nodeValues;
+    private final int[] configuration;
+    private final double dropout;
+    private final NumericPolicy numericPolicy;
+    private final LongAdder violations;
+
+    /**
+     * The constructor to create a new session for a neural network.
+     *
+     * @param neuralNetwork the neural network to predict with.
+     */
+    public InferenceSession(NeuralNetwork neuralNetwork) {
+        this(neuralNetwork.getLayers(), neuralNetwork.getConfiguration(), neuralNetwork.getDropoutFactor(), neuralNetwork.getNumericPolicy(), neuralNetwork.getViolations());
+    }
+
+    InferenceSession(List<Layer> layerList, int[] configuration, double dropout, NumericPolicy numericPolicy, LongAdder violations) {
+        layers = layerList.toArray(new Layer[0]);
+        this.configuration = configuration.clone();
+        this.dropout = dropout;
+        this.numericPolicy = numericPolicy;
+        this.violations = violations;
+        nodeValues = createBuffers(configuration);
+    }
+
+    /**
+     * This method will take input nodes as parameter and write the predicted output nodes to the output array.
+     * The result is equal to NeuralNetwork.predict, but no node values are cached and no property change is fired.
+     *
+     * @param inputNodes  the input nodes as double array
+     * @param outputNodes the array to write the predicted output nodes to
+     */
+    public void predict(double[] inputNodes, double[] outputNodes) {
+        predict(layers, configuration, nodeValues, dropout, numericPolicy, violations, inputNodes, outputNodes);
+    }
+
+    /**
+     * Creates the node buffers of every layer of the given configuration.
+     *
+     * @param configuration the node count per layer
+     * @return one buffer per layer except the input layer
+     */
+    static double[][] createBuffers(int[] configuration) {
+        double[][] buffers = new double[configuration.length - 1][];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new double[configuration[i + 1]];
+        }
+        return buffers;
+    }
+
+    /**
+     * Propagates the input nodes through the given layers, using the given buffers for the node values.
+     * The layers are passed per call, so the buffers may be shared by all layers of the same configuration.
+     */
+    static void predict(Layer[] layers, int[] configuration, double[][] buffers, double dropout, NumericPolicy numericPolicy,
+                        LongAdder violations, double[] inputNodes, double[] outputNodes) {
+        int inputCount = configuration[0];
+        int outputCount = configuration[configuration.length - 1];
+        if (inputNodes == null || outputNodes == null) {
+            throw new NullPointerException("inputNodes and outputNodes are required!");
+        } else if (inputNodes.length != inputCount) {
+            throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputNodes.length + " instead of " + inputCount + " input nodes.");
+        } else if (outputNodes.length != outputCount) {
+            throw new IllegalArgumentException("output node count does not match neural network configuration! received " + outputNodes.length + " instead of " + outputCount + " output nodes.");
+        }
+        double[] tmp = inputNodes;
+        for (int i = 0; i < layers.length; i++) {
+            layers[i].forward(tmp, buffers[i], numericPolicy, violations);
+            tmp = buffers[i];
+        }
+        if (dropout > 0) {
+            for (int i = 0; i < outputCount; i++) {
+                tmp[i] /= dropout;
+            }
+        }
+        System.arraycopy(tmp, 0, outputNodes, 0, outputCount);
+    }
+}
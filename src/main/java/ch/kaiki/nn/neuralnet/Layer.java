@@ -1,9 +1,12 @@
 package ch.kaiki.nn.neuralnet;
 
 import ch.kaiki.nn.util.Initializer;
+import ch.kaiki.nn.util.RandomSource;
 import ch.kaiki.nn.util.Rectifier;
 
 import java.io.Serializable;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This is a helper class to assure a dynamic and configurable architecture for the neural network.
@@ -22,8 +25,57 @@ class Layer implements Serializable {
     }
 
     void initialize(Initializer initializer, int fanIn, int fanOut) {
-        weight.initialize(initializer, fanIn, fanOut, false);
-        bias.initialize(initializer, fanIn, fanOut, true);
+        initialize(initializer, fanIn, fanOut, RandomSource.getDefault().current());
+    }
+
+    void initialize(Initializer initializer, int fanIn, int fanOut, SplittableRandom random) {
+        weight.initialize(initializer, fanIn, fanOut, false, random);
+        bias.initialize(initializer, fanIn, fanOut, true, random);
+    }
+
+    /**
+     * Propagates a single sample through this layer: weight multiplication, bias addition and activation
+     * are fused into one pass.
+     *
+     * @param in  the values of the preceding nodes
+     * @param out the target for the activated values of this layer
+     */
+    void forward(double[] in, double[] out) {
+        forward(in, out, NumericPolicy.STRICT, null);
+    }
+
+    /**
+     * Propagates a single sample through this layer and checks the values according to the given numeric policy.
+     *
+     * @param in         the values of the preceding nodes
+     * @param out        the target for the activated values of this layer
+     * @param policy     the numeric policy
+     * @param violations the counter of NaN and Infinity values detected, or null
+     */
+    void forward(double[] in, double[] out, NumericPolicy policy, LongAdder violations) {
+        Matrix.forward(weight, bias, rectifier, in, out, policy, violations);
+    }
+
+    /**
+     * Propagates samples stacked as columns through this layer.
+     *
+     * @param in the values of the preceding nodes, one column per sample
+     * @return the activated values of this layer, one column per sample
+     */
+    Matrix forward(Matrix in) {
+        return forward(in, NumericPolicy.STRICT, null);
+    }
+
+    /**
+     * Propagates samples stacked as columns through this layer and checks the values according to the given numeric policy.
+     *
+     * @param in         the values of the preceding nodes, one column per sample
+     * @param policy     the numeric policy
+     * @param violations the counter of NaN and Infinity values detected, or null
+     * @return the activated values of this layer, one column per sample
+     */
+    Matrix forward(Matrix in, NumericPolicy policy, LongAdder violations) {
+        return Matrix.forward(weight, bias, rectifier, in, policy, violations);
     }
 
     Layer copy() {
@@ -2,26 +2,46 @@ package ch.kaiki.nn.neuralnet;
 
 
 import ch.kaiki.nn.util.Initializer;
+import ch.kaiki.nn.util.RandomSource;
 import ch.kaiki.nn.util.Rectifier;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
-import java.util.function.BiFunction;
-import java.util.function.Function;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * This is a helper class to build the layers of the neural network.
+ * The values are stored in a single contiguous array in row-major order, i.e. the value at row i and column j
+ * is found at index i * cols + j. The serial form is kept from the former layout, which held the values in rows of a
+ * two-dimensional array, so neural networks serialized before remain readable.
  */
 public class Matrix implements Serializable {
 
     private static final Logger LOG = Logger.getLogger("Matrix logger");
     private static final long serialVersionUID = 2L;
-    private double[][] data;
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("data", double[][].class),
+            new ObjectStreamField("rows", int.class),
+            new ObjectStreamField("cols", int.class)
+    };
+    private static final int TILE_ROWS = 32;
+    private static final int TILE_COLS = 256;
+    private static final int TILE_DEPTH = 128;
+    // optional SIMD backend, null if not supported by the runtime
+    private static final SimdKernels SIMD = SimdKernels.load();
+    private double[] data;
     private int rows;
     private int cols;
 
@@ -32,7 +52,7 @@ public class Matrix implements Serializable {
      * @param cols the column count of the matrix.
      */
     Matrix(int rows, int cols) {
-        data = new double[rows][cols];
+        data = new double[rows * cols];
         this.rows = rows;
         this.cols = cols;
     }
@@ -43,9 +63,57 @@ public class Matrix implements Serializable {
      * @param input the input 2d array to be converted to a matrix.
      */
     Matrix(double[][] input) {
-        data = input;
         rows = input.length;
         cols = input[0].length;
+        data = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(input[i], 0, data, i * cols, cols);
+        }
+    }
+
+    /**
+     * Constructor wrapping an existing row-major array without copying it.
+     *
+     * @param data the backing array of length rows * cols.
+     * @param rows the row count of the matrix.
+     * @param cols the column count of the matrix.
+     */
+    private Matrix(double[] data, int rows, int cols) {
+        if (data.length != rows * cols) {
+            throw new IllegalArgumentException("wrong input array length! expected " + (rows * cols) + " values instead of " + data.length + ".");
+        }
+        this.data = data;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        double[][] values = new double[rows][];
+        for (int i = 0; i < rows; i++) {
+            values[i] = Arrays.copyOfRange(data, i * cols, (i + 1) * cols);
+        }
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("data", values);
+        fields.put("rows", rows);
+        fields.put("cols", cols);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        double[][] values = (double[][]) fields.get("data", null);
+        rows = fields.get("rows", 0);
+        cols = fields.get("cols", 0);
+        if (values == null || values.length != rows) {
+            throw new InvalidObjectException("matrix values do not match the row count!");
+        }
+        data = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            if (values[i].length != cols) {
+                throw new InvalidObjectException("matrix values do not match the column count!");
+            }
+            System.arraycopy(values[i], 0, data, i * cols, cols);
+        }
     }
 
     static Matrix subtract(Matrix a, Matrix b) {
@@ -53,10 +121,8 @@ public class Matrix implements Serializable {
             throw new IllegalArgumentException("wrong input matrix dimensions! " + a.getType() + " vs. " + b.getType());
         }
         Matrix tmp = a.copy();
-        for (int i = 0; i < tmp.rows; i++) {
-            for (int j = 0; j < tmp.cols; j++) {
-                tmp.data[i][j] -= b.data[i][j];
-            }
+        for (int i = 0; i < tmp.data.length; i++) {
+            tmp.data[i] -= b.data[i];
         }
         return tmp;
     }
@@ -66,25 +132,26 @@ public class Matrix implements Serializable {
             throw new IllegalArgumentException("Matrix count of " + matrices.length + " cannot be merged!");
         }
         Matrix tmp = matrices[0].copy();
-        for (int i = 0; i < tmp.rows; i++) {
-            for (int j = 0; j < tmp.cols; j++) {
-                double value = 0;
-                for (Matrix m : matrices) {
-                    value += m.data[i][j];
-                }
-                tmp.data[i][j] = value / matrices.length;
+        for (int i = 0; i < tmp.data.length; i++) {
+            double value = 0;
+            for (Matrix m : matrices) {
+                value += m.data[i];
             }
+            tmp.data[i] = value / matrices.length;
         }
         return tmp;
     }
 
     static Matrix crossover(int crossoverSliceCount, Matrix... matrices) {
+        return crossover(crossoverSliceCount, RandomSource.getDefault().current(), matrices);
+    }
+
+    static Matrix crossover(int crossoverSliceCount, SplittableRandom random, Matrix... matrices) {
         if (matrices.length < 2) {
             throw new IllegalArgumentException("Matrix count of " + matrices.length + " cannot be crossed over!");
         }
         double[][][] slices = new double[matrices.length][][];
         int[] sliceIndices = new int[]{0};
-        Random random = new Random();
 
         // calculate random indexes for slice markers
         if (crossoverSliceCount > 1) {
@@ -115,22 +182,18 @@ public class Matrix implements Serializable {
         return Matrix.fromArray(flattenedSlices, matrices[0].getRows(), matrices[0].getCols());
     }
 
-    static Matrix apply(Matrix a, Function<Double, Double> function) {
+    static Matrix apply(Matrix a, DoubleUnaryOperator function) {
         Matrix m = a.copy();
-        for (int i = 0; i < m.rows; i++) {
-            for (int j = 0; j < m.cols; j++) {
-                m.data[i][j] = function.apply(m.data[i][j]);
-            }
+        for (int i = 0; i < m.data.length; i++) {
+            m.data[i] = function.applyAsDouble(m.data[i]);
         }
         return m;
     }
 
-    static Matrix apply(Matrix a, Matrix b, BiFunction<Double, Double, Double> function) {
+    static Matrix apply(Matrix a, Matrix b, DoubleBinaryOperator function) {
         Matrix m = a.copy();
-        for (int i = 0; i < m.rows; i++) {
-            for (int j = 0; j < m.cols; j++) {
-                m.data[i][j] = function.apply(m.data[i][j], b.data[i][j]);
-            }
+        for (int i = 0; i < m.data.length; i++) {
+            m.data[i] = function.applyAsDouble(m.data[i], b.data[i]);
         }
         return m;
     }
@@ -140,133 +203,517 @@ public class Matrix implements Serializable {
         if (a.cols != b.cols || a.rows != b.rows) {
             throw new IllegalArgumentException("wrong input matrix dimensions!");
         }
-        for (int i = 0; i < a.rows; i++) {
-            for (int j = 0; j < a.cols; j++) {
-                sum += a.data[i][j] * b.data[i][j];
-            }
+        for (int i = 0; i < a.data.length; i++) {
+            sum += a.data[i] * b.data[i];
         }
         return sum;
     }
 
     static Matrix multiply(Matrix a, Matrix b) {
+        return multiply(a, b, NumericPolicy.STRICT, null);
+    }
+
+    /**
+     * Multiplies two matrices with the scalar kernels only, e.g. to compare them with the SIMD backend.
+     *
+     * @param a the left matrix.
+     * @param b the right matrix.
+     * @return the product.
+     */
+    static Matrix multiplyScalar(Matrix a, Matrix b) {
+        return multiply(a, b, null, NumericPolicy.STRICT, null);
+    }
+
+    /**
+     * Multiplies two matrices. The results are only checked for NaN and Infinity if the policy is strict.
+     *
+     * @param a          the left matrix.
+     * @param b          the right matrix.
+     * @param policy     the numeric policy.
+     * @param violations the counter of NaN and Infinity values detected, or null.
+     * @return the product.
+     */
+    static Matrix multiply(Matrix a, Matrix b, NumericPolicy policy, LongAdder violations) {
+        return multiply(a, b, SIMD, policy, violations);
+    }
+
+    private static Matrix multiply(Matrix a, Matrix b, SimdKernels kernels, NumericPolicy policy, LongAdder violations) {
         if (a.cols != b.rows) {
             throw new IllegalArgumentException("wrong input matrix dimensions for multiplication! " + a.getType() + " " + b.getType());
         }
         Matrix tmp = new Matrix(a.rows, b.cols);
-        for (int i = 0; i < tmp.rows; i++) {
-            for (int j = 0; j < tmp.cols; j++) {
-                double sum = 0;
-                for (int k = 0; k < a.cols; k++) {
-                    double sideA = a.data[i][k];
-                    double sideB = b.data[k][j];
-                    if ((Double.isInfinite(sideA) && sideB == 0) || (Double.isInfinite(sideB) && sideA == 0)) {
-                        sum = 0;
-                        log("Multiplication evaluated to Infinity! Value converted to zero, as one of the operands was zero.");
-                    } else {
-                        sum += sideA * sideB;
-                    }
-                    if (Double.isInfinite(sum)) {
-                        sum = sum < 0 ? Double.MIN_VALUE : Double.MAX_VALUE;
-                        log("Multiplication of " + sideA + " and " + sideB + " evaluated to Infinity! Value converted to " + sum);
-                    } else if (Double.isNaN(sum)) {
-                        log("Multiply operation evaluated to NaN!");
-                        throw new ArithmeticException("Multiply operation evaluated to NaN!");
+        boolean strict = policy == NumericPolicy.STRICT;
+        if (b.cols == 1) {
+            multiplyVector(a, b.data, tmp.data, kernels, strict, violations);
+        } else {
+            multiplyBlocked(a, b, tmp, kernels, strict, violations);
+        }
+        return tmp;
+    }
+
+    /**
+     * Multiplies the matrix with a vector and writes the result to the given array, without allocating
+     * a new matrix.
+     *
+     * @param a the matrix.
+     * @param x the vector of length a.cols.
+     * @param out the target array of length a.rows.
+     */
+    static void multiply(Matrix a, double[] x, double[] out) {
+        if (a.cols != x.length || a.rows != out.length) {
+            throw new IllegalArgumentException("wrong input array lengths for multiplication! " + a.getType() + " " + x.length + " " + out.length);
+        }
+        multiplyVector(a, x, out, SIMD, true, null);
+    }
+
+    /**
+     * Matrix-vector product as used by the single sample predict and fit methods.
+     * Every row is reduced with four independent accumulators, so the additions do not wait for each other.
+     */
+    private static void multiplyVector(Matrix a, double[] x, double[] out, SimdKernels kernels, boolean strict, LongAdder violations) {
+        if (kernels != null) {
+            kernels.gemv(a.data, a.rows, a.cols, x, out);
+            if (strict) {
+                checkTile(a, x, 1, out, 0, a.rows, 0, 1, violations);
+            }
+            return;
+        }
+        int n = a.cols;
+        int unrolled = n - (n % 4);
+        for (int rowStart = 0; rowStart < a.rows; rowStart += TILE_ROWS) {
+            int rowEnd = Math.min(rowStart + TILE_ROWS, a.rows);
+            for (int i = rowStart; i < rowEnd; i++) {
+                int row = i * n;
+                double s0 = 0;
+                double s1 = 0;
+                double s2 = 0;
+                double s3 = 0;
+                int k = 0;
+                for (; k < unrolled; k += 4) {
+                    s0 += a.data[row + k] * x[k];
+                    s1 += a.data[row + k + 1] * x[k + 1];
+                    s2 += a.data[row + k + 2] * x[k + 2];
+                    s3 += a.data[row + k + 3] * x[k + 3];
+                }
+                for (; k < n; k++) {
+                    s0 += a.data[row + k] * x[k];
+                }
+                out[i] = (s0 + s1) + (s2 + s3);
+            }
+            if (strict) {
+                checkTile(a, x, 1, out, rowStart, rowEnd, 0, 1, violations);
+            }
+        }
+    }
+
+    /**
+     * Matrix-matrix product in i-k-j order, tiled over rows, columns and the shared dimension.
+     * The innermost loop streams over contiguous rows of b and of the output, two rows of b at a time.
+     */
+    private static void multiplyBlocked(Matrix a, Matrix b, Matrix out, SimdKernels kernels, boolean strict, LongAdder violations) {
+        int n = a.cols;
+        int m = b.cols;
+        for (int rowStart = 0; rowStart < a.rows; rowStart += TILE_ROWS) {
+            int rowEnd = Math.min(rowStart + TILE_ROWS, a.rows);
+            for (int colStart = 0; colStart < m; colStart += TILE_COLS) {
+                int colEnd = Math.min(colStart + TILE_COLS, m);
+                for (int depthStart = 0; depthStart < n; depthStart += TILE_DEPTH) {
+                    int depthEnd = Math.min(depthStart + TILE_DEPTH, n);
+                    for (int i = rowStart; i < rowEnd; i++) {
+                        int rowA = i * n;
+                        int rowC = i * m;
+                        if (kernels != null) {
+                            kernels.gemmRow(a.data, rowA, depthStart, depthEnd, b.data, m, colStart, colEnd, out.data, rowC);
+                            continue;
+                        }
+                        int k = depthStart;
+                        for (; k < depthEnd - 1; k += 2) {
+                            double a0 = a.data[rowA + k];
+                            double a1 = a.data[rowA + k + 1];
+                            int rowB0 = k * m;
+                            int rowB1 = rowB0 + m;
+                            for (int j = colStart; j < colEnd; j++) {
+                                out.data[rowC + j] += a0 * b.data[rowB0 + j] + a1 * b.data[rowB1 + j];
+                            }
+                        }
+                        if (k < depthEnd) {
+                            double a0 = a.data[rowA + k];
+                            int rowB0 = k * m;
+                            for (int j = colStart; j < colEnd; j++) {
+                                out.data[rowC + j] += a0 * b.data[rowB0 + j];
+                            }
+                        }
                     }
                 }
-                tmp.data[i][j] = sum;
+                if (strict) {
+                    checkTile(a, b.data, m, out.data, rowStart, rowEnd, colStart, colEnd, violations);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scans a finished output tile once for NaN or Infinity. Only affected values are recomputed
+     * with the per-operation checks, so the fast kernels stay free of branches.
+     */
+    private static void checkTile(Matrix a, double[] b, int bCols, double[] out, int rowStart, int rowEnd, int colStart, int colEnd, LongAdder violations) {
+        for (int i = rowStart; i < rowEnd; i++) {
+            int row = i * bCols;
+            for (int j = colStart; j < colEnd; j++) {
+                if (!Double.isFinite(out[row + j])) {
+                    out[row + j] = checkedDotProduct(a, b, bCols, i, j, violations);
+                }
             }
         }
-        return tmp;
+    }
+
+    /**
+     * Fused dense layer kernel for a single sample. The dot product of every weight row and the input is added
+     * to the bias while the value is still held locally. The biased values are then activated in one bulk call
+     * of the rectifier, which also covers softmax, as it needs the sum over all nodes anyway.
+     * The checks of the separate operations are kept, but only run for values which are not finite.
+     *
+     * @param weight    the weight matrix
+     * @param bias      the bias as column vector
+     * @param rectifier the activation function
+     * @param x         the input values, one per weight column
+     * @param out       the target for the activated values, one per weight row
+     */
+    static void forward(Matrix weight, Matrix bias, Rectifier rectifier, double[] x, double[] out) {
+        forward(weight, bias, rectifier, x, out, NumericPolicy.STRICT, null);
+    }
+
+    /**
+     * Fused dense layer kernel for a single sample, which checks the values according to the given numeric policy.
+     *
+     * @param weight     the weight matrix
+     * @param bias       the bias as column vector
+     * @param rectifier  the activation function
+     * @param x          the input values, one per weight column
+     * @param out        the target for the activated values, one per weight row
+     * @param policy     the numeric policy
+     * @param violations the counter of NaN and Infinity values detected, or null
+     */
+    static void forward(Matrix weight, Matrix bias, Rectifier rectifier, double[] x, double[] out, NumericPolicy policy, LongAdder violations) {
+        if (weight.cols != x.length || weight.rows != out.length || bias.data.length != out.length) {
+            throw new IllegalArgumentException("wrong input array lengths for forward propagation! " + weight.getType() + " " + x.length + " " + out.length);
+        }
+        boolean strict = policy == NumericPolicy.STRICT;
+        if (SIMD != null) {
+            SIMD.gemv(weight.data, weight.rows, weight.cols, x, out);
+            for (int i = 0; i < out.length; i++) {
+                double value = out[i];
+                if (strict && !Double.isFinite(value)) {
+                    value = checkedDotProduct(weight, x, 1, i, 0, violations);
+                }
+                value += bias.data[i];
+                if (strict && !Double.isFinite(value)) {
+                    value = checkBias(value, violations);
+                }
+                out[i] = value;
+            }
+        } else {
+            forwardScalar(weight, bias, x, out, strict, violations);
+        }
+        activate(rectifier, out, SIMD);
+        if (strict) {
+            checkActivations(out, violations);
+        } else {
+            policy.scan(out, "Forward propagation", violations);
+        }
+    }
+
+    private static void forwardScalar(Matrix weight, Matrix bias, double[] x, double[] out, boolean strict, LongAdder violations) {
+        double[] w = weight.data;
+        int n = weight.cols;
+        int unrolled = n - (n % 4);
+        for (int i = 0; i < weight.rows; i++) {
+            int row = i * n;
+            double s0 = 0;
+            double s1 = 0;
+            double s2 = 0;
+            double s3 = 0;
+            int k = 0;
+            for (; k < unrolled; k += 4) {
+                s0 += w[row + k] * x[k];
+                s1 += w[row + k + 1] * x[k + 1];
+                s2 += w[row + k + 2] * x[k + 2];
+                s3 += w[row + k + 3] * x[k + 3];
+            }
+            for (; k < n; k++) {
+                s0 += w[row + k] * x[k];
+            }
+            double value = (s0 + s1) + (s2 + s3);
+            if (strict && !Double.isFinite(value)) {
+                value = checkedDotProduct(weight, x, 1, i, 0, violations);
+            }
+            value += bias.data[i];
+            if (strict && !Double.isFinite(value)) {
+                value = checkBias(value, violations);
+            }
+            out[i] = value;
+        }
+    }
+
+    /**
+     * Fused dense layer kernel for a batch of samples stacked as columns. The product is computed by the blocked
+     * multiplication, bias and activation are then applied in one pass over the result (two passes for softmax).
+     *
+     * @param weight    the weight matrix
+     * @param bias      the bias as column vector
+     * @param rectifier the activation function
+     * @param in        the input with one column per sample
+     * @return the activated values with one column per sample
+     */
+    static Matrix forward(Matrix weight, Matrix bias, Rectifier rectifier, Matrix in) {
+        return forward(weight, bias, rectifier, in, NumericPolicy.STRICT, null);
+    }
+
+    /**
+     * Fused dense layer kernel for a batch of samples, which checks the values according to the given numeric policy.
+     *
+     * @param weight     the weight matrix
+     * @param bias       the bias as column vector
+     * @param rectifier  the activation function
+     * @param in         the input with one column per sample
+     * @param policy     the numeric policy
+     * @param violations the counter of NaN and Infinity values detected, or null
+     * @return the activated values with one column per sample
+     */
+    static Matrix forward(Matrix weight, Matrix bias, Rectifier rectifier, Matrix in, NumericPolicy policy, LongAdder violations) {
+        if (in.cols == 1) {
+            Matrix out = new Matrix(weight.rows, 1);
+            forward(weight, bias, rectifier, in.data, out.data, policy, violations);
+            return out;
+        }
+        if (bias.data.length != weight.rows) {
+            throw new IllegalArgumentException("wrong input matrix dimensions! expected " + weight.rows + " bias rows instead of " + bias.data.length + " rows.");
+        }
+        boolean strict = policy == NumericPolicy.STRICT;
+        Matrix out = multiply(weight, in, policy, violations);
+        boolean softmax = rectifier == Rectifier.SOFTMAX;
+        double[] expSums = softmax ? new double[out.cols] : null;
+        double[] data = out.data;
+        for (int i = 0; i < out.rows; i++) {
+            int row = i * out.cols;
+            double b = bias.data[i];
+            if (SIMD != null && !softmax && !strict) {
+                SIMD.addScalar(data, row, out.cols, b);
+                continue;
+            }
+            for (int j = 0; j < out.cols; j++) {
+                double value = data[row + j] + b;
+                if (strict && !Double.isFinite(value)) {
+                    value = checkBias(value, violations);
+                }
+                if (softmax) {
+                    expSums[j] += Math.exp(value);
+                }
+                data[row + j] = value;
+            }
+        }
+        if (softmax) {
+            for (int i = 0; i < data.length; i++) {
+                data[i] = rectifier.activate(data[i], expSums[i % out.cols]);
+            }
+        } else {
+            activate(rectifier, data, SIMD);
+        }
+        if (strict) {
+            checkActivations(data, violations);
+        } else {
+            policy.scan(data, "Forward propagation", violations);
+        }
+        return out;
+    }
+
+    private static double checkBias(double value, LongAdder violations) {
+        if (Double.isInfinite(value)) {
+            value = value < 0 ? Double.MIN_VALUE : Double.MAX_VALUE;
+            log("Bias addition evaluated to Infinity! Value converted to " + value, violations);
+        } else if (Double.isNaN(value)) {
+            log("Bias addition evaluated to NAN!", violations);
+            throw new ArithmeticException("Bias addition evaluated to NaN");
+        }
+        return value;
+    }
+
+    private static void checkActivations(double[] values, LongAdder violations) {
+        for (double activation : values) {
+            if (Double.isNaN(activation)) {
+                log("Activation operation evaluated to NaN!", violations);
+                throw new ArithmeticException("Activation operation evaluated to NaN!");
+            } else if (Double.isInfinite(activation)) {
+                log("Activation operation evaluated to Infinity!", violations);
+                throw new ArithmeticException("Activation operation evaluated to Infinity!");
+            }
+        }
+    }
+
+    private static double checkedDotProduct(Matrix a, double[] b, int bCols, int i, int j, LongAdder violations) {
+        double sum = 0;
+        int rowA = i * a.cols;
+        for (int k = 0; k < a.cols; k++) {
+            double sideA = a.data[rowA + k];
+            double sideB = b[k * bCols + j];
+            if ((Double.isInfinite(sideA) && sideB == 0) || (Double.isInfinite(sideB) && sideA == 0)) {
+                sum = 0;
+                log("Multiplication evaluated to Infinity! Value converted to zero, as one of the operands was zero.", violations);
+            } else {
+                sum += sideA * sideB;
+            }
+            if (Double.isInfinite(sum)) {
+                sum = sum < 0 ? Double.MIN_VALUE : Double.MAX_VALUE;
+                log("Multiplication of " + sideA + " and " + sideB + " evaluated to Infinity! Value converted to " + sum, violations);
+            } else if (Double.isNaN(sum)) {
+                log("Multiply operation evaluated to NaN!", violations);
+                throw new ArithmeticException("Multiply operation evaluated to NaN!");
+            }
+        }
+        return sum;
     }
 
     static double crossEntropy(Matrix actual, Matrix target) {
         Matrix z = new Matrix(actual.rows, actual.cols);
-        for (int i = 0; i < actual.rows; i++) {
-            for (int j = 0; j < actual.cols; j++) {
-                z.data[i][j] = (target.data[i][j] * Math.log(actual.data[i][j])) + ((1 - target.data[i][j]) * Math.log(1 - actual.data[i][j]));
-            }
+        for (int i = 0; i < z.data.length; i++) {
+            z.data[i] = (target.data[i] * Math.log(actual.data[i])) + ((1 - target.data[i]) * Math.log(1 - actual.data[i]));
         }
         return -z.sum();
     }
 
     static Matrix crossEntropyGradient(Matrix actual, Matrix target) {
         Matrix z = new Matrix(actual.rows, actual.cols);
-        for (int i = 0; i < actual.rows; i++) {
-            for (int j = 0; j < actual.cols; j++) {
-                z.data[i][j] = (actual.data[i][j] - target.data[i][j]) / ((1 - actual.data[i][j]) * (actual.data[i][j]));
-            }
+        for (int i = 0; i < z.data.length; i++) {
+            z.data[i] = (actual.data[i] - target.data[i]) / ((1 - actual.data[i]) * (actual.data[i]));
         }
         return z;
     }
 
     static Matrix divide(Matrix m, int divisor) {
         Matrix z = new Matrix(m.rows, m.cols);
-        for (int i = 0; i < m.rows; i++) {
-            for (int j = 0; j < m.cols; j++) {
-                z.data[i][j] = (m.data[i][j] / divisor);
-            }
+        for (int i = 0; i < z.data.length; i++) {
+            z.data[i] = (m.data[i] / divisor);
         }
         return z;
     }
 
     static Matrix transpose(Matrix m) {
         Matrix tmp = new Matrix(m.cols, m.rows);
+        if (m.rows == 1 || m.cols == 1) {
+            // a vector has the same row-major layout as its transpose
+            System.arraycopy(m.data, 0, tmp.data, 0, m.data.length);
+            return tmp;
+        }
         for (int i = 0; i < m.rows; i++) {
+            int row = i * m.cols;
             for (int j = 0; j < m.cols; j++) {
-                tmp.data[j][i] = m.data[i][j];
+                tmp.data[j * m.rows + i] = m.data[row + j];
             }
         }
         return tmp;
     }
 
     static Matrix fromArray(double[] arr) {
-        Matrix tmp = new Matrix(arr.length, 1);
-        for (int i = 0; i < arr.length; i++) {
-            tmp.data[i][0] = arr[i];
+        return new Matrix(arr.clone(), arr.length, 1);
+    }
+
+    /**
+     * Wraps a row-major array as matrix. The array is not copied, so changes to the
+     * matrix are visible in the array and vice versa.
+     *
+     * @param arr the row-major values.
+     * @param rows the row count of the matrix.
+     * @param cols the column count of the matrix.
+     * @return the matrix view of the array.
+     */
+    static Matrix fromArray(double[] arr, int rows, int cols) {
+        return new Matrix(arr, rows, cols);
+    }
+
+    static Matrix fromColumns(double[][] arr) {
+        int[] indices = new int[arr.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        return fromColumns(arr, indices, arr.length);
+    }
+
+    /**
+     * Stacks the selected arrays as columns of a new matrix, so that every column holds one sample.
+     *
+     * @param arr the arrays to select from. All selected arrays must have the same length.
+     * @param indices the indices of the selected arrays.
+     * @param count the count of indices to be read.
+     * @return the matrix with one column per selected array.
+     */
+    static Matrix fromColumns(double[][] arr, int[] indices, int count) {
+        int length = arr[indices[0]].length;
+        Matrix tmp = new Matrix(length, count);
+        for (int j = 0; j < count; j++) {
+            double[] column = arr[indices[j]];
+            if (column.length != length) {
+                throw new IllegalArgumentException("wrong input array length! expected " + length + " values instead of " + column.length + ".");
+            }
+            for (int i = 0; i < length; i++) {
+                tmp.data[i * count + j] = column[i];
+            }
         }
         return tmp;
     }
 
-    static Matrix fromArray(double[] arr, int rows, int cols) {
-        double[][] m = new double[rows][cols];
-        int index = 0;
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                m[i][j] = arr[index];
-                index++;
+    /**
+     * Copies every column of this matrix to the according row of the target array.
+     *
+     * @param target the target array with at least one row of length rows per column.
+     */
+    void copyColumnsTo(double[][] target) {
+        for (int j = 0; j < cols; j++) {
+            double[] row = target[j];
+            for (int i = 0; i < rows; i++) {
+                row[i] = data[i * cols + j];
+            }
+        }
+    }
+
+    /**
+     * Copies the columns of this matrix one after another to the target array.
+     *
+     * @param target the target array with a length of at least rows * cols.
+     */
+    void copyColumnsTo(double[] target) {
+        for (int j = 0; j < cols; j++) {
+            int offset = j * rows;
+            for (int i = 0; i < rows; i++) {
+                target[offset + i] = data[i * cols + j];
             }
         }
-        return new Matrix(m);
     }
 
     static Matrix fromList(List<Double> list) {
         Matrix tmp = new Matrix(list.size(), 1);
         for (int i = 0; i < list.size(); i++) {
-            tmp.data[i][0] = list.get(i);
+            tmp.data[i] = list.get(i);
         }
         return tmp;
     }
 
     static List<Double> asList(Matrix m) {
-        List<Double> tmp = new ArrayList<>();
-        for (int i = 0; i < m.rows; i++) {
-            for (int j = 0; j < m.cols; j++) {
-                tmp.add(m.data[i][j]);
-            }
+        List<Double> tmp = new ArrayList<>(m.data.length);
+        for (double value : m.data) {
+            tmp.add(value);
         }
         return tmp;
     }
 
+    /**
+     * Returns the row-major backing array of the matrix. The array is not copied, so it
+     * must not be modified unless the matrix is meant to change as well.
+     *
+     * @param m the matrix.
+     * @return the backing array.
+     */
     static double[] asArray(Matrix m) {
-        int index = 0;
-        double[] tmp = new double[m.rows * m.cols];
-        for (int i = 0; i < m.rows; i++) {
-            for (int j = 0; j < m.cols; j++) {
-                tmp[index] = m.data[i][j];
-                index++;
-            }
-        }
-        return tmp;
+        return m.data;
     }
 
     static double[][] slice(Matrix m, int... sliceIndex) {
@@ -292,73 +739,92 @@ public class Matrix implements Serializable {
         }
         double[] out = new double[length];
         int index = 0;
-        for (int i = 0; i < slices.length; i++) {
-            for (int j = 0; j < slices[i].length; j++) {
-                out[index] = slices[i][j];
-                index++;
-            }
+        for (double[] slice : slices) {
+            System.arraycopy(slice, 0, out, index, slice.length);
+            index += slice.length;
         }
         return out;
     }
 
     void add(Matrix m) {
+        add(m, NumericPolicy.STRICT, null);
+    }
+
+    void add(Matrix m, NumericPolicy policy, LongAdder violations) {
         if (cols != m.cols || rows != m.rows) {
             throw new IllegalArgumentException("wrong input matrix dimensions for addition!");
         }
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                double sideA = data[i][j];
-                double sideB = m.data[i][j];
-                double value = sideA + sideB;
-                if (Double.isInfinite(value)) {
-                    value = value < 0 ? Double.MIN_VALUE : Double.MAX_VALUE;
-                    log("Addition operation evaluated to Infinity! Value converted to " + value);
-                } else if (Double.isNaN(value)) {
-                    log("Bias addition evaluated to NAN!");
-                    throw new ArithmeticException("Addition operation evaluated to NaN");
-                }
-                data[i][j] = value;
+        if (policy != NumericPolicy.STRICT) {
+            for (int i = 0; i < data.length; i++) {
+                data[i] += m.data[i];
+            }
+            return;
+        }
+        for (int i = 0; i < data.length; i++) {
+            double sideA = data[i];
+            double sideB = m.data[i];
+            double value = sideA + sideB;
+            if (Double.isInfinite(value)) {
+                value = value < 0 ? Double.MIN_VALUE : Double.MAX_VALUE;
+                log("Addition operation evaluated to Infinity! Value converted to " + value, violations);
+            } else if (Double.isNaN(value)) {
+                log("Bias addition evaluated to NAN!", violations);
+                throw new ArithmeticException("Addition operation evaluated to NaN");
             }
+            data[i] = value;
         }
     }
 
+    /**
+     * Adds the bias element-wise. If the bias is a single column and this matrix holds multiple columns
+     * (i.e. one column per sample of a batch), the bias is added to every column.
+     *
+     * @param m the bias to add.
+     */
     void addBias(Matrix m) {
-        if (cols != m.cols) {
+        boolean broadcast = m.cols == 1 && cols > 1 && m.rows == rows;
+        if (cols != m.cols && !broadcast) {
             throw new IllegalArgumentException("wrong input matrix dimensions! expected " + cols + " columns instead of " + m.cols + " columns.");
         }
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                double value = data[i][j] + m.data[i][j];
-                if (Double.isInfinite(value)) {
-                    value = value < 0 ? Double.MIN_VALUE : Double.MAX_VALUE;
-                    log("Bias addition evaluated to Infinity! Value converted to " + value);
-                } else if (Double.isNaN(value)) {
-                    log("Bias addition evaluated to NAN!");
-                    throw new ArithmeticException("Bias addition evaluated to NaN");
-                }
-                data[i][j] = value;
+        for (int i = 0; i < data.length; i++) {
+            double value = data[i] + (broadcast ? m.data[i / cols] : m.data[i]);
+            if (Double.isInfinite(value)) {
+                value = value < 0 ? Double.MIN_VALUE : Double.MAX_VALUE;
+                log("Bias addition evaluated to Infinity! Value converted to " + value, null);
+            } else if (Double.isNaN(value)) {
+                log("Bias addition evaluated to NAN!", null);
+                throw new ArithmeticException("Bias addition evaluated to NaN");
             }
+            data[i] = value;
         }
     }
 
     void subtract(Matrix m) {
+        subtract(m, NumericPolicy.STRICT, null);
+    }
+
+    void subtract(Matrix m, NumericPolicy policy, LongAdder violations) {
         if (cols != m.cols || rows != m.rows) {
             throw new IllegalArgumentException("wrong input matrix dimensions for addition!");
         }
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                double sideA = data[i][j];
-                double sideB = m.data[i][j];
-                double value = sideA - sideB;
-                if (Double.isInfinite(value)) {
-                    value = value < 0 ? Double.MIN_VALUE : Double.MAX_VALUE;
-                    log("Bias addition evaluated to Infinity! Value converted to " + value);
-                } else if (Double.isNaN(value)) {
-                    log("Bias addition evaluated to NAN!");
-                    throw new ArithmeticException("Addition operation evaluated to NaN");
-                }
-                data[i][j] = value;
+        if (policy != NumericPolicy.STRICT) {
+            for (int i = 0; i < data.length; i++) {
+                data[i] -= m.data[i];
             }
+            return;
+        }
+        for (int i = 0; i < data.length; i++) {
+            double sideA = data[i];
+            double sideB = m.data[i];
+            double value = sideA - sideB;
+            if (Double.isInfinite(value)) {
+                value = value < 0 ? Double.MIN_VALUE : Double.MAX_VALUE;
+                log("Bias addition evaluated to Infinity! Value converted to " + value, violations);
+            } else if (Double.isNaN(value)) {
+                log("Bias addition evaluated to NAN!", violations);
+                throw new ArithmeticException("Addition operation evaluated to NaN");
+            }
+            data[i] = value;
         }
     }
 
@@ -367,33 +833,30 @@ public class Matrix implements Serializable {
             throw new IllegalArgumentException("wrong input matrix dimensions!");
         }
         for (int i = 0; i < rows; i++) {
+            int row = i * cols;
             for (int j = 0; j < cols; j++) {
-                double value = data[i][j] - m.data[0][j];
+                double value = data[row + j] - m.data[j];
                 if (Double.isInfinite(value)) {
                     value = value < 0 ? Double.MIN_VALUE : Double.MAX_VALUE;
-                    log("Bias addition evaluated to Infinity! Value converted to " + value);
+                    log("Bias addition evaluated to Infinity! Value converted to " + value, null);
                 } else if (Double.isNaN(value)) {
-                    log("Bias addition evaluated to NAN!");
+                    log("Bias addition evaluated to NAN!", null);
                     throw new ArithmeticException("Bias addition evaluated to NaN");
                 }
-                data[i][j] = value;
+                data[row + j] = value;
             }
         }
     }
 
     void multiply(double scalar) {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] *= scalar;
-            }
+        for (int i = 0; i < data.length; i++) {
+            data[i] *= scalar;
         }
     }
 
     void divide(double scalar) {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] /= scalar;
-            }
+        for (int i = 0; i < data.length; i++) {
+            data[i] /= scalar;
         }
     }
 
@@ -401,52 +864,76 @@ public class Matrix implements Serializable {
         if (cols != m.cols || rows != m.rows) {
             throw new IllegalArgumentException("wrong input matrix dimensions!");
         }
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] *= m.data[i][j];
-            }
+        for (int i = 0; i < data.length; i++) {
+            data[i] *= m.data[i];
         }
     }
 
+    /**
+     * Applies the rectifier to every value. Softmax normalizes every column on its own, as
+     * every column holds the nodes of one sample.
+     *
+     * @param rectifier the activation function.
+     */
     void activate(Rectifier rectifier) {
-        boolean softmax = rectifier == Rectifier.SOFTMAX;
-        double expSum = 0;
-        if (softmax) {
-            expSum = expSum();
-        }
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                double activation;
-                if (softmax) {
-                    activation = rectifier.activate(data[i][j], expSum);
-                } else {
-                    activation = rectifier.activate(data[i][j]);
-                }
-                if (Double.isNaN(activation)) {
-                    log("Activation operation evaluated to NaN!");
-                    throw new ArithmeticException("Activation operation evaluated to NaN!");
-                } else if (Double.isInfinite(activation)) {
-                    log("Activation operation evaluated to Infinity!");
-                    throw new ArithmeticException("Activation operation evaluated to Infinity!");
-                }
-                data[i][j] = activation;
+        activate(rectifier, SIMD);
+    }
+
+    /**
+     * Applies the rectifier to every value with the scalar kernels only, e.g. to compare them with the SIMD backend.
+     *
+     * @param rectifier the activation function.
+     */
+    void activateScalar(Rectifier rectifier) {
+        activate(rectifier, null);
+    }
+
+    private void activate(Rectifier rectifier, SimdKernels kernels) {
+        if (rectifier == Rectifier.SOFTMAX && cols > 1) {
+            double[] expSums = columnExpSums();
+            for (int i = 0; i < data.length; i++) {
+                data[i] = rectifier.activate(data[i], expSums[i % cols]);
             }
+        } else {
+            activate(rectifier, data, kernels);
+        }
+        checkActivations(data, null);
+    }
+
+    /**
+     * Activates the whole buffer in place, with the given SIMD kernels if not null.
+     */
+    private static void activate(Rectifier rectifier, double[] buf, SimdKernels kernels) {
+        if (kernels == null || !kernels.activate(rectifier, buf, 0, buf.length)) {
+            rectifier.activateInPlace(buf, 0, buf.length);
         }
     }
 
+    /**
+     * @return true, if the SIMD backend is supported by the runtime and not disabled.
+     */
+    static boolean isSimdSupported() {
+        return SIMD != null;
+    }
+
     Matrix derive(Rectifier rectifier) {
-        Matrix tmp = new Matrix(rows, cols);
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                double derivation = rectifier.derive(data[i][j]);
-                if (Double.isNaN(derivation)) {
-                    log("Derivation operation evaluated to NaN!");
-                    throw new ArithmeticException("Derivation operation evaluated to NaN!");
-                } else if (Double.isInfinite(derivation)) {
-                    log("Derivation operation evaluated to Infinity!");
-                    throw new ArithmeticException("Derivation operation evaluated to Infinity!");
-                }
-                tmp.data[i][j] = derivation;
+        return derive(rectifier, NumericPolicy.STRICT, null);
+    }
+
+    Matrix derive(Rectifier rectifier, NumericPolicy policy, LongAdder violations) {
+        Matrix tmp = copy();
+        rectifier.deriveInPlace(tmp.data, 0, tmp.data.length);
+        if (policy != NumericPolicy.STRICT) {
+            policy.scan(tmp.data, "Derivation operation", violations);
+            return tmp;
+        }
+        for (double derivation : tmp.data) {
+            if (Double.isNaN(derivation)) {
+                log("Derivation operation evaluated to NaN!", violations);
+                throw new ArithmeticException("Derivation operation evaluated to NaN!");
+            } else if (Double.isInfinite(derivation)) {
+                log("Derivation operation evaluated to Infinity!", violations);
+                throw new ArithmeticException("Derivation operation evaluated to Infinity!");
             }
         }
         return tmp;
@@ -465,60 +952,104 @@ public class Matrix implements Serializable {
     }
 
     void initialize(Initializer initializer, int fanIn, int fanOut, boolean isBias) {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] = initializer.getValue(fanIn, fanOut, isBias);
-            }
-        }
+        initialize(initializer, fanIn, fanOut, isBias, RandomSource.getDefault().current());
+    }
+
+    void initialize(Initializer initializer, int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+        initializer.fill(data, fanIn, fanOut, isBias, random);
     }
 
     void randomize(double factor, double mutationRate) {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (Math.random() < mutationRate) {
-                    double value = data[i][j] + (Math.random() * 2 - 1) * factor;
-                    data[i][j] = value;
-                }
+        randomize(factor, mutationRate, RandomSource.getDefault().current());
+    }
+
+    void randomize(double factor, double mutationRate, SplittableRandom random) {
+        for (int i = 0; i < data.length; i++) {
+            if (random.nextDouble() < mutationRate) {
+                double value = data[i] + (random.nextDouble() * 2 - 1) * factor;
+                data[i] = value;
             }
         }
     }
 
-    Matrix dropout(double factor) {
+    Matrix dropout(double factor, SplittableRandom random) {
         Matrix tmp = this.copy();
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (Math.random() < factor) {
-                    tmp.data[i][j] = 0;
-                } else {
-                    continue;
-                }
+        for (int i = 0; i < tmp.data.length; i++) {
+            if (random.nextDouble() < factor) {
+                tmp.data[i] = 0;
             }
         }
         return tmp;
     }
 
     double[][] getData() {
-        return data.clone();
+        double[][] tmp = new double[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data, i * cols, tmp[i], 0, cols);
+        }
+        return tmp;
     }
 
     double sum() {
         double sum = 0;
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                sum += data[i][j];
-            }
+        for (double value : data) {
+            sum += value;
         }
         return sum;
     }
 
     double expSum() {
+        if (SIMD != null) {
+            return SIMD.expSum(data, 0, data.length);
+        }
         double sum = 0;
+        for (double value : data) {
+            sum += Math.exp(value);
+        }
+        return sum;
+    }
+
+    private double[] columnExpSums() {
+        double[] sums = new double[cols];
+        for (int i = 0; i < data.length; i++) {
+            sums[i % cols] += Math.exp(data[i]);
+        }
+        return sums;
+    }
+
+    /**
+     * Reduces all columns to a single column by summing up every row.
+     *
+     * @return the row sums as column vector.
+     */
+    Matrix sumColumns() {
+        Matrix tmp = new Matrix(rows, 1);
         for (int i = 0; i < rows; i++) {
+            int row = i * cols;
+            double sum = 0;
             for (int j = 0; j < cols; j++) {
-                sum += Math.exp(data[i][j]);
+                sum += data[row + j];
             }
+            tmp.data[i] = sum;
+        }
+        return tmp;
+    }
+
+    Matrix getColumn(int col) {
+        Matrix tmp = new Matrix(rows, 1);
+        for (int i = 0; i < rows; i++) {
+            tmp.data[i] = data[i * cols + col];
+        }
+        return tmp;
+    }
+
+    void setColumn(int col, Matrix m) {
+        if (m.rows != rows || m.cols != 1) {
+            throw new IllegalArgumentException("wrong input matrix dimensions! expected (" + rows + ", 1) instead of " + m.getType() + ".");
+        }
+        for (int i = 0; i < rows; i++) {
+            data[i * cols + col] = m.data[i];
         }
-        return sum;
     }
 
     void print() {
@@ -526,11 +1057,7 @@ public class Matrix implements Serializable {
     }
 
     Matrix copy() {
-        Matrix m = new Matrix(rows, cols);
-        for (int i = 0; i < m.rows; i++) {
-            if (m.cols >= 0) System.arraycopy(this.data[i], 0, m.data[i], 0, m.cols);
-        }
-        return m;
+        return new Matrix(data.clone(), rows, cols);
     }
 
     @Override
@@ -540,7 +1067,7 @@ public class Matrix implements Serializable {
         for (int i = 0; i < rows; i++) {
             sb.append("[");
             for (int j = 0; j < cols; j++) {
-                sb.append(data[i][j]);
+                sb.append(data[i * cols + j]);
                 sb.append(", ");
             }
             sb.replace(sb.length() - 2, sb.length(), "");
@@ -564,7 +1091,13 @@ public class Matrix implements Serializable {
         return this.toString().equals(o.toString());
     }
 
-    private static void log(String message) {
-        LOG.log(Level.INFO, message);
+    private static void log(String message, LongAdder violations) {
+        // every message reports a value which evaluated to NaN or Infinity
+        if (violations != null) {
+            violations.increment();
+        }
+        if (LOG.isLoggable(Level.INFO)) {
+            LOG.log(Level.INFO, message);
+        }
     }
 }
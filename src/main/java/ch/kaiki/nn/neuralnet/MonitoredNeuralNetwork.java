@@ -0,0 +1,316 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.metrics.Histogram;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class wraps a neural network or a snapshot of it for serving predictions and records how they perform:
+ * the latency of every prediction, the call rate, the calls rejected by input validation and the numeric events,
+ * i.e. predictions which failed with an ArithmeticException or returned NaN or Infinity.
+ * The recording is lock-free and does not allocate, so it adds a few dozen nanoseconds per prediction.
+ * <p>
+ * The values can be read programmatically or exposed via JMX by register(), which registers this instance as MBean
+ * with the object name {@code ch.kaiki.nn:type=NeuralNetwork,name=<name>}.
+ * A wrapped snapshot may be used by multiple threads concurrently, a wrapped neural network is not thread safe.
+ */
+public class MonitoredNeuralNetwork implements MonitoredNeuralNetworkMBean {
+
+    private static final String DOMAIN = "ch.kaiki.nn";
+
+    private final String name;
+    private final NeuralNetwork neuralNetwork;
+    private final NeuralNetworkSnapshot snapshot;
+    private final LongAdder violations;
+    private final int inputCount;
+    private final int outputCount;
+    private final Histogram latency = new Histogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder numericEvents = new LongAdder();
+    private volatile long startTime = System.nanoTime();
+
+    /**
+     * Creates a monitored wrapper of a neural network.
+     *
+     * @param name          the name of the network, which is used as name of the MBean.
+     * @param neuralNetwork the neural network to predict with.
+     */
+    public MonitoredNeuralNetwork(String name, NeuralNetwork neuralNetwork) {
+        this(name, neuralNetwork, null);
+    }
+
+    /**
+     * Creates a monitored wrapper of a snapshot, which may be used by multiple threads concurrently.
+     *
+     * @param name     the name of the network, which is used as name of the MBean.
+     * @param snapshot the snapshot to predict with.
+     */
+    public MonitoredNeuralNetwork(String name, NeuralNetworkSnapshot snapshot) {
+        this(name, null, snapshot);
+    }
+
+    private MonitoredNeuralNetwork(String name, NeuralNetwork neuralNetwork, NeuralNetworkSnapshot snapshot) {
+        if (name == null) {
+            throw new NullPointerException("name must not be null!");
+        } else if (neuralNetwork == null && snapshot == null) {
+            throw new NullPointerException("neural network must not be null!");
+        }
+        this.name = name;
+        this.neuralNetwork = neuralNetwork;
+        this.snapshot = snapshot;
+        this.violations = neuralNetwork != null ? neuralNetwork.getViolations() : snapshot.getViolations();
+        int[] configuration = neuralNetwork != null ? neuralNetwork.getConfiguration() : snapshot.getConfiguration();
+        this.inputCount = configuration[0];
+        this.outputCount = configuration[configuration.length - 1];
+    }
+
+    /**
+     * This method will take input nodes as parameter and return the predicted output nodes.
+     *
+     * @param inputNodes the input nodes as double array
+     * @return the predicted output nodes as Double List
+     */
+    public List<Double> predict(double[] inputNodes) {
+        long start = System.nanoTime();
+        validate(inputNodes);
+        List<Double> outputNodes;
+        try {
+            outputNodes = neuralNetwork != null ? neuralNetwork.predict(inputNodes) : snapshot.predict(inputNodes);
+        } catch (ArithmeticException e) {
+            numericEvents.increment();
+            calls.increment();
+            throw e;
+        }
+        latency.record(System.nanoTime() - start);
+        calls.increment();
+        for (double value : outputNodes) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                numericEvents.increment();
+                break;
+            }
+        }
+        return outputNodes;
+    }
+
+    /**
+     * This method will take input nodes as parameter and write the predicted output nodes to the output array.
+     * If a snapshot is wrapped, the prediction does not allocate memory after the first call of a thread.
+     *
+     * @param inputNodes  the input nodes as double array
+     * @param outputNodes the array to write the predicted output nodes to
+     */
+    public void predict(double[] inputNodes, double[] outputNodes) {
+        long start = System.nanoTime();
+        validate(inputNodes);
+        if (outputNodes == null) {
+            reject();
+            throw new NullPointerException("inputNodes and outputNodes are required!");
+        } else if (outputNodes.length != outputCount) {
+            reject();
+            throw new IllegalArgumentException("output node count does not match neural network configuration! received " + outputNodes.length + " instead of " + outputCount + " output nodes.");
+        }
+        try {
+            if (neuralNetwork != null) {
+                List<Double> result = neuralNetwork.predict(inputNodes);
+                for (int i = 0; i < outputCount; i++) {
+                    outputNodes[i] = result.get(i);
+                }
+            } else {
+                snapshot.predict(inputNodes, outputNodes);
+            }
+        } catch (ArithmeticException e) {
+            numericEvents.increment();
+            calls.increment();
+            throw e;
+        }
+        latency.record(System.nanoTime() - start);
+        calls.increment();
+        for (double value : outputNodes) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                numericEvents.increment();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Checks the input nodes against the configuration of the wrapped network. A rejected call is counted as
+     * validation failure, so exceptions thrown by the network itself are not mistaken for invalid input.
+     *
+     * @param inputNodes the input nodes to check
+     */
+    private void validate(double[] inputNodes) {
+        if (inputNodes == null) {
+            reject();
+            throw new NullPointerException("inputNodes are required!");
+        } else if (inputNodes.length != inputCount) {
+            reject();
+            throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputNodes.length + " instead of " + inputCount + " input nodes.");
+        }
+    }
+
+    private void reject() {
+        validationFailures.increment();
+        calls.increment();
+    }
+
+    /**
+     * Registers this instance as MBean on the platform MBean server. An MBean registered before with the same name
+     * is replaced.
+     *
+     * @return the object name of the MBean.
+     */
+    public ObjectName register() {
+        ObjectName objectName = getObjectName();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + objectName + " as MBean!", e);
+        }
+        return objectName;
+    }
+
+    /**
+     * Removes the MBean of this instance from the platform MBean server, if registered.
+     */
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(getObjectName());
+        } catch (InstanceNotFoundException e) {
+            // not registered
+        } catch (MBeanRegistrationException e) {
+            throw new IllegalStateException("Could not unregister " + getObjectName() + "!", e);
+        }
+    }
+
+    /**
+     * Returns the object name this instance is registered with as MBean.
+     *
+     * @return the object name.
+     */
+    public ObjectName getObjectName() {
+        try {
+            return new ObjectName(DOMAIN + ":type=NeuralNetwork,name=" + ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("name " + name + " is not a valid MBean name!", e);
+        }
+    }
+
+    /**
+     * Returns the latency of all completed predictions in nanoseconds.
+     *
+     * @return the latency histogram.
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    /**
+     * Returns the count of calls per second since creation or the last reset.
+     *
+     * @return the call rate.
+     */
+    @Override
+    public double getCallRate() {
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        return seconds <= 0 ? 0 : calls.sum() / seconds;
+    }
+
+    @Override
+    public double getLatencyMean() {
+        return latency.getMean();
+    }
+
+    @Override
+    public long getLatencyP50() {
+        return latency.getPercentile(50);
+    }
+
+    @Override
+    public long getLatencyP90() {
+        return latency.getPercentile(90);
+    }
+
+    @Override
+    public long getLatencyP99() {
+        return latency.getPercentile(99);
+    }
+
+    @Override
+    public long getLatencyP999() {
+        return latency.getPercentile(99.9);
+    }
+
+    @Override
+    public long getLatencyMax() {
+        return latency.getMax();
+    }
+
+    /**
+     * Returns the count of calls rejected because of missing or wrongly sized input or output arrays.
+     *
+     * @return the count of validation failures.
+     */
+    @Override
+    public long getValidationFailureCount() {
+        return validationFailures.sum();
+    }
+
+    /**
+     * Returns the count of predictions which failed with an ArithmeticException or returned NaN or Infinity.
+     *
+     * @return the count of numeric events.
+     */
+    @Override
+    public long getNumericEventCount() {
+        return numericEvents.sum();
+    }
+
+    /**
+     * Returns the count of NaN or Infinity values detected by the numeric policy of the wrapped network.
+     * If a snapshot is wrapped, the count of the neural network it was created from is returned.
+     *
+     * @return the count of policy violations.
+     */
+    @Override
+    public long getPolicyViolationCount() {
+        return violations.sum();
+    }
+
+    /**
+     * Discards all recorded values and restarts the measurement of the call rate.
+     */
+    @Override
+    public void reset() {
+        latency.reset();
+        calls.reset();
+        validationFailures.reset();
+        numericEvents.reset();
+        startTime = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return name + ": calls=" + getCallCount() + ", calls/s=" + getCallRate() + ", latency [" + latency + "], validation failures="
+                + getValidationFailureCount() + ", numeric events=" + getNumericEventCount();
+    }
+}
@@ -0,0 +1,35 @@
+package ch.kaiki.nn.neuralnet;
+
+/**
+ * The management interface of a MonitoredNeuralNetwork, as shown by JMX clients like JConsole or VisualVM.
+ * Latencies are given in nanoseconds.
+ */
+public interface MonitoredNeuralNetworkMBean {
+
+    String getName();
+
+    long getCallCount();
+
+    double getCallRate();
+
+    double getLatencyMean();
+
+    long getLatencyP50();
+
+    long getLatencyP90();
+
+    long getLatencyP99();
+
+    long getLatencyP999();
+
+    long getLatencyMax();
+
+    long getValidationFailureCount();
+
+    long getNumericEventCount();
+
+    long getPolicyViolationCount();
+
+    void reset();
+
+}
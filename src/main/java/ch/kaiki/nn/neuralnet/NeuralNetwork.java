@@ -2,19 +2,35 @@ package ch.kaiki.nn.neuralnet;
 
 
 import ch.kaiki.nn.data.BackPropData;
+import ch.kaiki.nn.data.ColumnarDataset;
+import ch.kaiki.nn.data.HistoryPolicy;
+import ch.kaiki.nn.data.Sampler;
+import ch.kaiki.nn.data.SamplingStrategy;
 import ch.kaiki.nn.genetic.CrossoverStrategy;
 import ch.kaiki.nn.genetic.IGene;
+import ch.kaiki.nn.metrics.MetricsSink;
 import ch.kaiki.nn.util.Initializer;
 import ch.kaiki.nn.util.LoggerFactory;
 import ch.kaiki.nn.util.Optimizer;
+import ch.kaiki.nn.util.RandomSource;
 import ch.kaiki.nn.util.Rectifier;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
 import java.io.*;
+import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,13 +39,14 @@ import java.util.logging.Logger;
  * The architecture can be set by parameters. Input and output values are designed to be double arrays.
  * It supports supervised and unsupervised machine learning.
  * The neural network also offers property change support for the predict method.
+ * A neural network is not thread safe. For concurrent predictions, an immutable snapshot can be created.
  */
 public class NeuralNetwork implements IGene, Serializable {
 
     private static final long serialVersionUID = 2L;
     private static final Logger LOG = LoggerFactory.getLogger("NeuralNetwork logger");
+    private static final Map<Integer, ForkJoinPool> FORK_JOIN_POOLS = new ConcurrentHashMap<>();
 
-    private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
     private CostFunction costFunction;
     private Regularizer regularizer = Regularizer.NONE;
     private double regularizationLambda = 0;
@@ -51,9 +68,32 @@ public class NeuralNetwork implements IGene, Serializable {
     private double initialMutationRate;
     private double mutationRate;
     private double mutationRateMomentum;
-    private final BackPropData backPropData = new BackPropData();
-
-    private Batch batch = new Batch();
+    private BackPropData backPropData = new BackPropData();
+    private int parallelism = 1;
+    private TrainingMode trainingMode = TrainingMode.SYNCHRONOUS;
+    private NumericPolicy numericPolicy = NumericPolicy.STRICT;
+    private Precision precision = Precision.DOUBLE;
+    private transient FloatModel floatModel;
+    private transient volatile boolean floatModelChanged;
+    private transient double updateThroughput;
+    private boolean trainingMetricsEnabled;
+    private transient volatile TrainingMetrics trainingMetrics;
+    private transient Map<MetricsSink, String> metricsSinks;
+    private static final AtomicReferenceFieldUpdater<NeuralNetwork, TrainingMetrics> TRAINING_METRICS =
+            AtomicReferenceFieldUpdater.newUpdater(NeuralNetwork.class, TrainingMetrics.class, "trainingMetrics");
+    private long predictionEventInterval = 16;
+    private int metricsSamplingRate = 1;
+    private SamplingStrategy samplingStrategy = SamplingStrategy.SHUFFLE;
+    private Long samplingSeed;
+    private transient Sampler sampler;
+    private transient RandomSource randomSource;
+    private transient WeakReference<Object> samplerInputSet;
+    private transient volatile PredictionEventBus predictionEventBus;
+    private static final AtomicReferenceFieldUpdater<NeuralNetwork, PredictionEventBus> PREDICTION_EVENT_BUS =
+            AtomicReferenceFieldUpdater.newUpdater(NeuralNetwork.class, PredictionEventBus.class, "predictionEventBus");
+    private transient volatile LongAdder violations;
+    private static final AtomicReferenceFieldUpdater<NeuralNetwork, LongAdder> VIOLATIONS =
+            AtomicReferenceFieldUpdater.newUpdater(NeuralNetwork.class, LongAdder.class, "violations");
 
     /**
      * The constructor of the neural network.
@@ -80,7 +120,7 @@ public class NeuralNetwork implements IGene, Serializable {
             int fanIn = configuration[i - 1];
             int fanOut = (i == configuration.length - 1) ? 0 : configuration[i + 1];
             Layer layer = new Layer(rectifier, configuration[i], configuration[i - 1]);
-            layer.initialize(initializer, fanIn, fanOut);
+            layer.initialize(initializer, fanIn, fanOut, getRandomSource().current());
             layers.add(layer);
         }
     }
@@ -93,6 +133,19 @@ public class NeuralNetwork implements IGene, Serializable {
      */
     @Override
     public IGene crossover(List<IGene> genes) {
+        return crossover(genes, getRandomSource());
+    }
+
+    /**
+     * This method will cross over multiple neural networks to a new neural network, depending on the crossover strategy.
+     * The slices are chosen with random numbers of the given random source.
+     *
+     * @param genes  the neural genes to be crossed over.
+     * @param random the random source.
+     * @return the neural network a merged with b
+     */
+    @Override
+    public IGene crossover(List<IGene> genes, RandomSource random) {
         NeuralNetwork neuralNetwork = this.copy();
         if (genes.size() > 0) {
             genes.add(this);
@@ -100,6 +153,7 @@ public class NeuralNetwork implements IGene, Serializable {
                 Matrix[] weights = new Matrix[genes.size()];
                 Matrix[] biases = new Matrix[genes.size()];
                 for (int j = 0; j < genes.size(); j++) {       // for every neural network
+                    ((NeuralNetwork) genes.get(j)).writeBackFloatModel();
                     weights[j] = ((NeuralNetwork) genes.get(j)).layers.get(i).weight;
                     biases[j] = ((NeuralNetwork) genes.get(j)).layers.get(i).bias;
                 }
@@ -107,8 +161,8 @@ public class NeuralNetwork implements IGene, Serializable {
                     neuralNetwork.layers.get(i).weight = Matrix.merge(weights);
                     neuralNetwork.layers.get(i).bias = Matrix.merge(biases);
                 } else if (neuralNetwork.crossoverStrategy == CrossoverStrategy.SLICE) {
-                    neuralNetwork.layers.get(i).weight = Matrix.crossover(neuralNetwork.crossoverSliceCount, weights);
-                    neuralNetwork.layers.get(i).bias = Matrix.crossover(neuralNetwork.crossoverSliceCount, biases);
+                    neuralNetwork.layers.get(i).weight = Matrix.crossover(neuralNetwork.crossoverSliceCount, random.current(), weights);
+                    neuralNetwork.layers.get(i).bias = Matrix.crossover(neuralNetwork.crossoverSliceCount, random.current(), biases);
                 } else {
                     throw new IllegalArgumentException("Selected crossover strategy " + neuralNetwork.crossoverStrategy.name() + " is not implemented!");
                 }
@@ -120,7 +174,7 @@ public class NeuralNetwork implements IGene, Serializable {
     /**
      * This method will take input nodes as parameter and return the predicted output nodes.
      * The neural net will not be modified. This method can be used for testing or the unsupervised machine learning approach.
-     * Additionally, this method offers property change support.
+     * Additionally, registered prediction listeners are notified asynchronously.
      *
      * @param inputNodes the input nodes as double array
      * @return the predicted output nodes as Double List
@@ -133,20 +187,139 @@ public class NeuralNetwork implements IGene, Serializable {
             throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputNodes.length + " instead of " + configuration[0] + " input nodes.");
         }
 
-        cachedNodeValues.clear();
-        Matrix tmp = Matrix.fromArray(inputNodes);
+        Matrix tmp = propagate(Matrix.fromArray(inputNodes), true);
+        firePrediction();
+        return Matrix.asList(tmp);
+    }
+
+    /**
+     * This method will take a batch of input nodes as parameter and return the predicted output nodes for every sample.
+     * All samples are processed together, i.e. with one matrix-matrix product per layer.
+     * Node values are not cached and no property change is fired.
+     *
+     * @param inputSet the input nodes, one row per sample
+     * @return the predicted output nodes, one row per sample
+     */
+    public double[][] predictBatch(double[][] inputSet) {
+        if (inputSet == null) {
+            throw new NullPointerException("inputSet must not be null!");
+        }
+        double[][] outputSet = new double[inputSet.length][configuration[configuration.length - 1]];
+        predictBatch(inputSet, outputSet, false);
+        return outputSet;
+    }
+
+    /**
+     * This method will take a batch of input nodes as parameter and write the predicted output nodes of every sample
+     * to the according row of the output set.
+     * Node values are not cached and no property change is fired.
+     *
+     * @param inputSet  the input nodes, one row per sample
+     * @param outputSet the array to write the predicted output nodes to, one row per sample
+     */
+    public void predictBatch(double[][] inputSet, double[][] outputSet) {
+        predictBatch(inputSet, outputSet, false);
+    }
+
+    /**
+     * This method will take a batch of input nodes as parameter and write the predicted output nodes of every sample
+     * to the according row of the output set.
+     * If notify is set, the node values of the last sample are cached and prediction listeners are notified, just like
+     * a call of predict for this sample would do.
+     *
+     * @param inputSet  the input nodes, one row per sample
+     * @param outputSet the array to write the predicted output nodes to, one row per sample
+     * @param notify    true if node values should be cached and listeners should be notified
+     */
+    public void predictBatch(double[][] inputSet, double[][] outputSet, boolean notify) {
+        if (inputSet == null || outputSet == null) {
+            throw new NullPointerException("inputSet and outputSet are required!");
+        } else if (outputSet.length < inputSet.length) {
+            throw new IllegalArgumentException("output set is too small! received " + outputSet.length + " instead of " + inputSet.length + " rows.");
+        }
+        int outputCount = configuration[configuration.length - 1];
+        for (int i = 0; i < inputSet.length; i++) {
+            if (inputSet[i] == null || outputSet[i] == null) {
+                throw new NullPointerException("rows of inputSet and outputSet must not be null!");
+            } else if (inputSet[i].length != configuration[0]) {
+                throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputSet[i].length + " instead of " + configuration[0] + " input nodes.");
+            } else if (outputSet[i].length != outputCount) {
+                throw new IllegalArgumentException("output node count does not match neural network configuration! received " + outputSet[i].length + " instead of " + outputCount + " output nodes.");
+            }
+        }
+        if (inputSet.length == 0) {
+            return;
+        }
+        Matrix output = propagate(Matrix.fromColumns(inputSet), notify);
+        output.copyColumnsTo(outputSet);
+        if (notify) {
+            firePrediction();
+        }
+    }
+
+    /**
+     * This method will take a batch of input nodes as flat array, i.e. the input nodes of all samples one after another,
+     * and write the predicted output nodes of all samples one after another to the output array.
+     * Node values are not cached and no property change is fired.
+     *
+     * @param inputs      the input nodes of all samples
+     * @param sampleCount the count of samples
+     * @param outputs     the array to write the predicted output nodes of all samples to
+     */
+    public void predictBatch(double[] inputs, int sampleCount, double[] outputs) {
+        if (inputs == null || outputs == null) {
+            throw new NullPointerException("inputs and outputs are required!");
+        }
+        int outputCount = configuration[configuration.length - 1];
+        if (inputs.length != sampleCount * configuration[0]) {
+            throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputs.length + " instead of " + (sampleCount * configuration[0]) + " input nodes.");
+        } else if (outputs.length < sampleCount * outputCount) {
+            throw new IllegalArgumentException("output array is too small! received " + outputs.length + " instead of " + (sampleCount * outputCount) + " output nodes.");
+        }
+        if (sampleCount == 0) {
+            return;
+        }
+        Matrix output = propagate(Matrix.transpose(Matrix.fromArray(inputs, sampleCount, configuration[0])), false);
+        output.copyColumnsTo(outputs);
+    }
+
+    /**
+     * Forward propagates the input matrix, which holds one sample per column.
+     *
+     * @param input           the input nodes, one column per sample
+     * @param cacheNodeValues true if the node values of the last sample should be cached
+     * @return the output nodes, one column per sample
+     */
+    private Matrix propagate(Matrix input, boolean cacheNodeValues) {
+        writeBackFloatModel();
+        if (cacheNodeValues) {
+            cachedNodeValues.clear();
+        }
+        Matrix tmp = input;
         for (Layer layer : layers) {
-            cachedNodeValues.add(Matrix.asList(tmp));
-            tmp = Matrix.multiply(layer.weight, tmp);
-            tmp.addBias(layer.bias);
-            tmp.activate(layer.rectifier);
+            if (cacheNodeValues) {
+                cacheNodeValues(tmp);
+            }
+            tmp = layer.forward(tmp, numericPolicy, getViolations());
         }
         if (dropout > 0) {
             tmp.divide(dropout);
         }
-        cachedNodeValues.add(Matrix.asList(tmp));
-        pcs.firePropertyChange("predict", false, true);
-        return Matrix.asList(tmp);
+        if (cacheNodeValues) {
+            cacheNodeValues(tmp);
+        }
+        return tmp;
+    }
+
+    private void firePrediction() {
+        PredictionEventBus bus = predictionEventBus;
+        if (bus != null) {
+            bus.publish(cachedNodeValues);
+        }
+    }
+
+    private void cacheNodeValues(Matrix nodes) {
+        cachedNodeValues.add(Matrix.asList(nodes.getCols() == 1 ? nodes : nodes.getColumn(nodes.getCols() - 1)));
     }
 
     /**
@@ -158,163 +331,855 @@ public class NeuralNetwork implements IGene, Serializable {
      * @return the actual output nodes as Double List
      */
     public List<Double> fit(double[] inputNodes, double[] expectedOutputNodes) {
-        return fit(inputNodes, expectedOutputNodes, true);
+        double[] actual = fit(new double[][]{inputNodes}, new double[][]{expectedOutputNodes}, new int[]{0}, 1)[0];
+        List<Double> result = new ArrayList<>(actual.length);
+        for (double value : actual) {
+            result.add(value);
+        }
+        return result;
     }
 
-    private List<Double> fit(double[] inputNodes, double[] expectedOutputNodes, boolean consumeBatch) {
-        if (inputNodes == null || expectedOutputNodes == null) {
-            throw new NullPointerException("inputNodes and expectedOutputNodes are required!");
-        } else if (inputNodes.length != configuration[0]) {
-            throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputNodes.length + " instead of " + configuration[0] + " input nodes.");
-        } else if (expectedOutputNodes.length != configuration[configuration.length-1]) {
-            throw new IllegalArgumentException("output node count does not match neural network configuration! received " + expectedOutputNodes.length + " instead of " + configuration[configuration.length-1] + " output nodes.");
+    /**
+     * Fits a mini-batch in one pass. The selected samples are stacked as columns, so forward and backward propagation
+     * run as matrix-matrix products and the gradients of all samples are reduced at once according to the batch mode.
+     * If the parallelism is above 1, the batch is split into shards, which are propagated concurrently. Their gradients
+     * are summed up pairwise and applied once.
+     *
+     * @param inputSet          the input set to select from
+     * @param expectedOutputSet the according expected output set
+     * @param sampleIndices     the indices of the samples of this batch
+     * @param sampleCount       the count of samples of this batch
+     * @return the actual output nodes of every sample
+     */
+    synchronized double[][] fit(double[][] inputSet, double[][] expectedOutputSet, int[] sampleIndices, int sampleCount) {
+        return fit(inputSet, expectedOutputSet, sampleIndices, sampleCount, inputSet.length);
+    }
+
+    /**
+     * Fits a mini-batch in one pass. The selected samples are stacked as columns, so forward and backward propagation
+     * run as matrix-matrix products and the gradients of all samples are reduced at once according to the batch mode.
+     * If the parallelism is above 1, the batch is split into shards, which are propagated concurrently. Their gradients
+     * are summed up pairwise and applied once.
+     *
+     * @param inputSet          the input set to select from
+     * @param expectedOutputSet the according expected output set
+     * @param sampleIndices     the indices of the samples of this batch
+     * @param sampleCount       the count of samples of this batch
+     * @param setSize           the size of the input set the batch was drawn from, which defines an epoch for the metrics sampling rate
+     * @return the actual output nodes of every sample
+     */
+    synchronized double[][] fit(double[][] inputSet, double[][] expectedOutputSet, int[] sampleIndices, int sampleCount, int setSize) {
+        // the double precision layers are fitted, so the float weights are written back first
+        writeBackFloatModel();
+        for (int j = 0; j < sampleCount; j++) {
+            double[] inputNodes = inputSet[sampleIndices[j]];
+            double[] expectedOutputNodes = expectedOutputSet[sampleIndices[j]];
+            if (inputNodes == null || expectedOutputNodes == null) {
+                throw new NullPointerException("inputNodes and expectedOutputNodes are required!");
+            } else if (inputNodes.length != configuration[0]) {
+                throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputNodes.length + " instead of " + configuration[0] + " input nodes.");
+            } else if (expectedOutputNodes.length != configuration[configuration.length-1]) {
+                throw new IllegalArgumentException("output node count does not match neural network configuration! received " + expectedOutputNodes.length + " instead of " + configuration[configuration.length-1] + " output nodes.");
+            }
+        }
+
+        TrainingMetrics metrics = trainingMetricsEnabled ? getTrainingMetrics() : null;
+        long startTime = metrics != null ? System.nanoTime() : 0;
+        long startAllocation = metrics != null ? TrainingMetrics.allocatedBytes() : 0;
+
+        // the same dropout is applied to all samples of the batch
+        Matrix dropoutWeight = dropout > 0 ? layers.get(layers.size() - 1).weight.dropout(dropout, getRandomSource().current()) : null;
+        boolean[] sampled = new boolean[sampleCount];
+        for (int j = 0; j < sampleCount; j++) {
+            sampled[j] = isSampled(iterationCount + j, setSize);
         }
+        double[] costs = new double[sampleCount];
+        double[][] actuals = new double[sampleCount][];
+        Gradient gradient;
+        if (parallelism > 1 && sampleCount > 1) {
+            int shardSize = (sampleCount + parallelism - 1) / parallelism;
+            gradient = getForkJoinPool().invoke(new GradientTask(inputSet, expectedOutputSet, sampleIndices, 0, sampleCount, shardSize, dropoutWeight, sampled, costs, actuals, metrics));
+        } else {
+            gradient = computeGradient(inputSet, expectedOutputSet, sampleIndices, 0, sampleCount, dropoutWeight, sampled, costs, actuals, metrics);
+        }
+
+        for (int j = 0; j < sampleCount; j++) {
+            if (sampled[j]) {
+                backPropData.add(iterationCount + j, costs[j], actuals[j], expectedOutputSet[sampleIndices[j]]);
+            }
+        }
+
+        long updateTime = metrics != null ? System.nanoTime() : 0;
+        applyGradient(gradient, learningRate, sampleCount);
+        floatModel = null;
+        for (int j = 0; j < sampleCount; j++) {
+            decreaseRate();
+        }
+        if (metrics != null) {
+            long endTime = System.nanoTime();
+            metrics.recordUpdate(endTime - updateTime);
+            metrics.recordSamples(sampleCount, endTime - startTime);
+            metrics.recordAllocation(startAllocation < 0 ? -1 : TrainingMetrics.allocatedBytes() - startAllocation);
+        }
+        return actuals;
+    }
+
+    /**
+     * Scales the summed up deltas by the learning rate and the batch mode and subtracts them from weights and bias.
+     */
+    private void applyGradient(Gradient gradient, double learningRate, int sampleCount) {
+        for (int i = 0; i < layers.size(); i++) {
+            Matrix weightDelta = gradient.weightDeltas[i];
+            Matrix biasDelta = gradient.biasDeltas[i];
+            weightDelta.multiply(learningRate);
+            biasDelta.multiply(learningRate);
+            if (batchMode == BatchMode.MEAN) {
+                weightDelta.divide(sampleCount);
+                biasDelta.divide(sampleCount);
+            }
+            layers.get(i).weight.subtract(weightDelta, numericPolicy, getViolations());
+            layers.get(i).bias.subtract(biasDelta, numericPolicy, getViolations());
+        }
+    }
 
-        Matrix input = Matrix.fromArray(inputNodes);
+    /**
+     * Fits the network with the Hogwild! approach. The calling thread draws the sample indices of every thread of the
+     * pool up front, so the drawn samples do not depend on the scheduling. Every thread computes the gradient of a batch
+     * of its samples and subtracts it from the shared weights and biases right away. The updates are plain array stores
+     * without locks, so threads may overwrite each other's updates once in a while. For large layers, such collisions
+     * are rare and do not hinder convergence. The learning rate is decreased per sample as in synchronous training.
+     *
+     * @param inputSet          the input set of possible input node values
+     * @param expectedOutputSet the output set of according expected output values
+     * @param epochs            the total count of samples to fit
+     * @param batchSize         the count of samples per update
+     * @param sampler           the sampler to draw the sample indices from
+     * @return the count of weight updates applied.
+     */
+    private synchronized int fitHogwild(double[][] inputSet, double[][] expectedOutputSet, int epochs, int batchSize, Sampler sampler) {
+        // the double precision layers are fitted, so the float weights are written back first
+        writeBackFloatModel();
+        for (int i = 0; i < inputSet.length; i++) {
+            if (inputSet[i] == null || expectedOutputSet[i] == null) {
+                throw new NullPointerException("inputNodes and expectedOutputNodes are required!");
+            } else if (inputSet[i].length != configuration[0]) {
+                throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputSet[i].length + " instead of " + configuration[0] + " input nodes.");
+            } else if (expectedOutputSet[i].length != configuration[configuration.length-1]) {
+                throw new IllegalArgumentException("output node count does not match neural network configuration! received " + expectedOutputSet[i].length + " instead of " + configuration[configuration.length-1] + " output nodes.");
+            }
+        }
+
+        TrainingMetrics metrics = trainingMetricsEnabled ? getTrainingMetrics() : null;
+        long startTime = metrics != null ? System.nanoTime() : 0;
+        int baseIteration = iterationCount;
+        AtomicInteger sampleCounter = new AtomicInteger();
+        AtomicInteger updateCounter = new AtomicInteger();
+        int[][] workerIndices = new int[parallelism][];
+        boolean[][] workerSampled = new boolean[parallelism][];
+        double[][] workerCosts = new double[parallelism][];
+        double[][][] workerActuals = new double[parallelism][][];
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        int iteration = baseIteration;
+        for (int w = 0; w < parallelism; w++) {
+            int worker = w;
+            int workerSamples = epochs / parallelism + (w < epochs % parallelism ? 1 : 0);
+            // the indices are drawn up front by the calling thread, so they do not depend on the scheduling of the workers
+            workerIndices[w] = new int[workerSamples];
+            for (int from = 0; from < workerSamples; from += batchSize) {
+                sampler.next(workerIndices[w], from, Math.min(from + batchSize, workerSamples));
+            }
+            // the samples are added to the back prop data worker by worker after fitting
+            workerSampled[w] = new boolean[workerSamples];
+            for (int i = 0; i < workerSamples; i++) {
+                workerSampled[w][i] = isSampled(iteration++, inputSet.length);
+            }
+            workerCosts[w] = new double[workerSamples];
+            workerActuals[w] = new double[workerSamples][];
+            workers.add(getForkJoinPool().submit(() -> {
+                int[] indices = workerIndices[worker];
+                for (int from = 0; from < indices.length; from += batchSize) {
+                    int to = Math.min(from + batchSize, indices.length);
+                    long startAllocation = metrics != null ? TrainingMetrics.allocatedBytes() : 0;
+                    double rate = learningRateOptimizer.decrease(initialLearningRate, learningRateMomentum, baseIteration + sampleCounter.getAndAdd(to - from));
+                    Matrix dropoutWeight = dropout > 0 ? layers.get(layers.size() - 1).weight.dropout(dropout, getRandomSource().current()) : null;
+                    Gradient gradient = computeGradient(inputSet, expectedOutputSet, indices, from, to, dropoutWeight, workerSampled[worker], workerCosts[worker], workerActuals[worker], metrics);
+                    long updateTime = metrics != null ? System.nanoTime() : 0;
+                    applyGradient(gradient, rate, to - from);
+                    updateCounter.incrementAndGet();
+                    if (metrics != null) {
+                        metrics.recordUpdate(System.nanoTime() - updateTime);
+                        metrics.recordAllocation(startAllocation < 0 ? -1 : TrainingMetrics.allocatedBytes() - startAllocation);
+                    }
+                }
+            }));
+        }
+        for (ForkJoinTask<?> worker : workers) {
+            worker.join();
+        }
+        floatModel = null;
+        if (metrics != null) {
+            metrics.recordSamples(epochs, System.nanoTime() - startTime);
+        }
+
+        for (int w = 0; w < parallelism; w++) {
+            for (int i = 0; i < workerIndices[w].length; i++) {
+                if (workerSampled[w][i]) {
+                    backPropData.add(iterationCount, workerCosts[w][i], workerActuals[w][i], expectedOutputSet[workerIndices[w][i]]);
+                }
+                decreaseRate();
+            }
+        }
+        return updateCounter.get();
+    }
+
+    /**
+     * Propagates the samples from index from (inclusive) to index to (exclusive) of the batch forward and backward.
+     * The weights are not modified. The actual outputs are written to the according indices of the given array, as well as
+     * the costs of the samples flagged as sampled. If metrics are given, the time per phase and layer is recorded.
+     *
+     * @return the summed up, unscaled weight and bias deltas of these samples.
+     */
+    private Gradient computeGradient(double[][] inputSet, double[][] expectedOutputSet, int[] sampleIndices, int from, int to, Matrix dropoutWeight, boolean[] sampled, double[] costs, double[][] actuals, TrainingMetrics metrics) {
+        long startTime = metrics != null ? System.nanoTime() : 0;
+        long layerTime = startTime;
+        int sampleCount = to - from;
+        LongAdder violations = getViolations();
+        Matrix input = Matrix.fromColumns(inputSet, Arrays.copyOfRange(sampleIndices, from, to), sampleCount);
 
         // forward propagate and prepare output
         List<Matrix> cachedNodeValueVector = new ArrayList<>();
         Matrix tmp = input;
         for (int i = 0; i < layers.size(); i ++) {
             Layer layer = layers.get(i);
-            boolean dropoutActive = dropout > 0 && i == layers.size() - 1;
+            boolean dropoutActive = dropoutWeight != null && i == layers.size() - 1;
             if (dropoutActive) {
-                tmp = Matrix.multiply(layer.weight.dropout(dropout), tmp);      // W x a
+                tmp = Matrix.forward(dropoutWeight, layer.bias, layer.rectifier, tmp, numericPolicy, violations);     // activate((W x a) + b)
             } else {
-                tmp = Matrix.multiply(layer.weight, tmp);                       // W x a
+                tmp = layer.forward(tmp, numericPolicy, violations);                                     // activate((W x a) + b)
             }
-            tmp.addBias(layer.bias);                                // (W x a) + b = z
-            tmp.activate(layer.rectifier);                          // activate(z)
             if (dropoutActive) {
                 tmp.multiply(dropout);
             }
             cachedNodeValueVector.add(tmp);
+            if (metrics != null) {
+                long now = System.nanoTime();
+                metrics.recordLayerForward(i, now - layerTime);
+                layerTime = now;
+            }
+        }
+        long forwardTime = layerTime;
+        if (metrics != null) {
+            metrics.recordForward(forwardTime - startTime);
         }
 
-        Matrix target = Matrix.fromArray(expectedOutputNodes);
-
-        // start backpropagating
-        int iter = cachedNodeValueVector.size() - 1;
-        Matrix lastCachedVector = cachedNodeValueVector.get(cachedNodeValueVector.size() - 1);
+        Matrix output = cachedNodeValueVector.get(cachedNodeValueVector.size() - 1);
+        Matrix loss = new Matrix(output.getRows(), sampleCount);
+        for (int j = 0; j < sampleCount; j++) {
+            Matrix actual = output.getColumn(j);
+            Matrix target = Matrix.fromArray(expectedOutputSet[sampleIndices[from + j]]);
 
-        // computation of cost C
-        double cost = costFunction.cost(lastCachedVector, target) + regularizer.costSummand(lastCachedVector, regularizationLambda);
-        backPropData.add(iterationCount, cost, Matrix.asArray(lastCachedVector), expectedOutputNodes);
+            // computation of cost C
+            if (sampled[from + j]) {
+                costs[from + j] = costFunction.cost(actual, target) + regularizer.costSummand(actual, regularizationLambda);
+            }
+            actuals[from + j] = Matrix.asArray(actual);
 
-        // computation of loss L = dC/da(L) (derivation of cost function)
-        Matrix loss = costFunction.gradient(lastCachedVector, target);
-        // backward propagate to adjust weights in layers
-        Matrix pass = null;
+            // computation of loss L = dC/da(L) (derivation of cost function)
+            loss.setColumn(j, costFunction.gradient(actual, target));
+        }
 
         // apply regularization
         loss = Matrix.apply(loss, regularizer.gradient(loss, regularizationLambda), Double::sum);       // TODO: only for first loss or for all?
-        for (int i = iter; i >= 0; i--) {
-            if (i != iter) {
-                loss = pass;
-            }
+
+        // backward propagate to collect the deltas of all layers
+        Gradient result = new Gradient(layers.size());
+        if (metrics != null) {
+            layerTime = System.nanoTime();
+        }
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            Layer layer = layers.get(i);
 
             // gradient: da(L)/dz(L) (derivation of activation)
-            Matrix gradient = cachedNodeValueVector.get(i).derive(layers.get(i).rectifier);
+            Matrix gradient = cachedNodeValueVector.get(i).derive(layer.rectifier, numericPolicy, violations);
 
             // loss * gradient: dC/da(L) * da(L)/dz(L) (loss * derivation of activation)
             gradient.multiply(loss);
 
             // used as loss for the next iteration
-            pass = gradient.copy();
-            pass = Matrix.multiply(Matrix.transpose(layers.get(i).weight), pass);
-
-            gradient.multiply(learningRate);
+            if (i > 0) {
+                loss = Matrix.multiply(Matrix.transpose(layer.weight), gradient, numericPolicy, violations);
+            }
 
-            // no change as add gate distributes when derived
-            Matrix biasDelta = gradient.copy();
-            batch.addBias(biasDelta, iter-i);
             // delta rule: dz(L)/dw(L) (* dC/da(L) * da(L)/dz(L)) (multiply with preceding activated neurons to get weight derivation)
-            Matrix weightDelta = Matrix.multiply(gradient, Matrix.transpose((i == 0) ? input : cachedNodeValueVector.get(i - 1)));
-            batch.addWeight(weightDelta, iter-i);
+            // the product sums up the weight deltas of all samples
+            result.weightDeltas[i] = Matrix.multiply(gradient, Matrix.transpose((i == 0) ? input : cachedNodeValueVector.get(i - 1)), numericPolicy, violations);
+            // no change as add gate distributes when derived
+            result.biasDeltas[i] = gradient.sumColumns();
+            numericPolicy.scan(Matrix.asArray(result.weightDeltas[i]), "Weight delta", violations);
+            numericPolicy.scan(Matrix.asArray(result.biasDeltas[i]), "Bias delta", violations);
+            if (metrics != null) {
+                long now = System.nanoTime();
+                metrics.recordLayerBackward(i, now - layerTime);
+                layerTime = now;
+            }
+        }
+        if (metrics != null) {
+            metrics.recordBackward(layerTime - forwardTime);
+        }
+        return result;
+    }
 
-            // update weights and bias
-            //layers.get(i).weight.subtract(weightDelta);
-            //layers.get(i).bias.subtractBias(biasDelta);
+    /**
+     * Decides by the metrics sampling rate if the cost of an iteration is computed and added to the back prop data.
+     */
+    private boolean isSampled(int iteration, int setSize) {
+        if (metricsSamplingRate == 1) {
+            return true;
+        } else if (metricsSamplingRate == 0) {
+            return false;
+        } else if (metricsSamplingRate < 0) {
+            return (iteration + 1) % setSize == 0;
+        }
+        return iteration % metricsSamplingRate == 0;
+    }
 
-            if (consumeBatch) {
-                layers.get(i).weight.subtract(batch.getWeight(iter-i));
-                layers.get(i).bias.subtractBias(batch.getBias(iter-i));
+    /**
+     * Returns the sampler of the given input set. The sampler is kept as long as the same input set is fitted,
+     * so its epochs continue over multiple calls of fit. The input set is only weakly referenced, so a training set
+     * or mapped dataset which is not used anymore can be garbage collected.
+     */
+    private Sampler getSampler(Object inputSet, int size, Supplier<int[]> classes) {
+        if (sampler == null || samplerInputSet == null || samplerInputSet.get() != inputSet || sampler.getSize() != size) {
+            long seed = samplingSeed != null ? samplingSeed : getRandomSource().current().nextLong();
+            sampler = new Sampler(samplingStrategy, size, Sampler.requiresClasses(samplingStrategy) ? classes.get() : null, seed);
+            samplerInputSet = new WeakReference<>(inputSet);
+        }
+        return sampler;
+    }
+
+    /**
+     * Returns the pool of the parallelism of this neural network. The pools are shared by all neural networks of the
+     * same parallelism, including copies and offspring, and their worker threads are daemon threads, which terminate
+     * when idle. Hence a neural network does not need to be shut down.
+     */
+    private ForkJoinPool getForkJoinPool() {
+        return FORK_JOIN_POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+
+    /**
+     * The summed up weight and bias deltas of all layers for a set of samples.
+     */
+    private static class Gradient {
+        final Matrix[] weightDeltas;
+        final Matrix[] biasDeltas;
+
+        Gradient(int layerCount) {
+            weightDeltas = new Matrix[layerCount];
+            biasDeltas = new Matrix[layerCount];
+        }
+
+        void add(Gradient gradient, NumericPolicy numericPolicy, LongAdder violations) {
+            for (int i = 0; i < weightDeltas.length; i++) {
+                weightDeltas[i].add(gradient.weightDeltas[i], numericPolicy, violations);
+                biasDeltas[i].add(gradient.biasDeltas[i], numericPolicy, violations);
             }
+        }
+    }
 
+    /**
+     * Splits a range of samples of a batch in halves until a shard is small enough to be propagated at once.
+     * The gradients of both halves are summed up when joined, which results in a tree reduction.
+     */
+    private class GradientTask extends RecursiveTask<Gradient> {
+        private static final long serialVersionUID = 1L;
+        private final double[][] inputSet;
+        private final double[][] expectedOutputSet;
+        private final int[] sampleIndices;
+        private final int from;
+        private final int to;
+        private final int shardSize;
+        private final Matrix dropoutWeight;
+        private final boolean[] sampled;
+        private final double[] costs;
+        private final double[][] actuals;
+        private final TrainingMetrics metrics;
+
+        GradientTask(double[][] inputSet, double[][] expectedOutputSet, int[] sampleIndices, int from, int to, int shardSize, Matrix dropoutWeight, boolean[] sampled, double[] costs, double[][] actuals, TrainingMetrics metrics) {
+            this.inputSet = inputSet;
+            this.expectedOutputSet = expectedOutputSet;
+            this.sampleIndices = sampleIndices;
+            this.from = from;
+            this.to = to;
+            this.shardSize = shardSize;
+            this.dropoutWeight = dropoutWeight;
+            this.sampled = sampled;
+            this.costs = costs;
+            this.actuals = actuals;
+            this.metrics = metrics;
         }
-        if (consumeBatch) {
-            batch = new Batch();
+
+        @Override
+        protected Gradient compute() {
+            if (to - from <= shardSize) {
+                if (metrics == null) {
+                    return computeGradient(inputSet, expectedOutputSet, sampleIndices, from, to, dropoutWeight, sampled, costs, actuals, null);
+                }
+                // shards run on pool threads, their allocations are added to the update of the calling thread
+                long startAllocation = TrainingMetrics.allocatedBytes();
+                Gradient gradient = computeGradient(inputSet, expectedOutputSet, sampleIndices, from, to, dropoutWeight, sampled, costs, actuals, metrics);
+                if (startAllocation >= 0) {
+                    metrics.addPendingAllocation(TrainingMetrics.allocatedBytes() - startAllocation);
+                }
+                return gradient;
+            }
+            int middle = (from + to) >>> 1;
+            GradientTask left = new GradientTask(inputSet, expectedOutputSet, sampleIndices, from, middle, shardSize, dropoutWeight, sampled, costs, actuals, metrics);
+            GradientTask right = new GradientTask(inputSet, expectedOutputSet, sampleIndices, middle, to, shardSize, dropoutWeight, sampled, costs, actuals, metrics);
+            left.fork();
+            Gradient gradient = right.compute();
+            Gradient leftGradient = left.join();
+            leftGradient.add(gradient, numericPolicy, getViolations());
+            return leftGradient;
         }
-        decreaseRate();
-        return Matrix.asList(tmp);
     }
 
-    private class Batch implements Serializable {
-        int iter = 0;
-        List<Matrix> weightDeltas = new ArrayList<>();
-        List<Matrix> biasDeltas = new ArrayList<>();
+    /**
+     * This method will take single precision input nodes as parameter and return the predicted output nodes.
+     * In single precision mode, the sample is propagated with float weights. Otherwise, it is converted and
+     * propagated in double precision. Node values are not cached and no listeners are notified.
+     *
+     * @param inputNodes the input nodes as float array
+     * @return the predicted output nodes as float array
+     */
+    public float[] predict(float[] inputNodes) {
+        float[] outputNodes = new float[configuration[configuration.length - 1]];
+        predict(inputNodes, outputNodes);
+        return outputNodes;
+    }
 
-        public void addWeight(Matrix matrix, int index) {
-            if (weightDeltas.size() == index) {
-                weightDeltas.add(matrix);
-            } else {
-                Matrix m = weightDeltas.get(index);
-                m.add(matrix);
-                weightDeltas.set(index, m);
+    /**
+     * This method will take single precision input nodes as parameter and write the predicted output nodes
+     * to the given array.
+     *
+     * @param inputNodes  the input nodes as float array
+     * @param outputNodes the array to write the predicted output nodes to
+     */
+    public void predict(float[] inputNodes, float[] outputNodes) {
+        if (inputNodes == null || outputNodes == null) {
+            throw new NullPointerException("inputNodes and outputNodes are required!");
+        } else if (inputNodes.length != configuration[0]) {
+            throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputNodes.length + " instead of " + configuration[0] + " input nodes.");
+        } else if (outputNodes.length != configuration[configuration.length - 1]) {
+            throw new IllegalArgumentException("output node count does not match neural network configuration! received " + outputNodes.length + " instead of " + configuration[configuration.length - 1] + " output nodes.");
+        }
+        if (precision == Precision.DOUBLE) {
+            double[] output = Matrix.asArray(propagate(Matrix.fromArray(FloatModel.toDouble(inputNodes)), false));
+            for (int i = 0; i < output.length; i++) {
+                outputNodes[i] = (float) output[i];
             }
-            iter++;
+            return;
+        }
+        FloatModel model = getFloatModel();
+        float[][] nodes = model.createNodes();
+        model.forward(inputNodes, nodes, null, numericPolicy, getViolations());
+        float[] output = nodes[nodes.length - 1];
+        for (int i = 0; i < output.length; i++) {
+            outputNodes[i] = dropout > 0 ? output[i] / (float) dropout : output[i];
         }
+    }
 
-        public void addBias(Matrix matrix, int index) {
-            if (biasDeltas.size() == index) {
-                biasDeltas.add(matrix);
-            } else {
-                Matrix m = biasDeltas.get(index);
-                m.add(matrix);
-                biasDeltas.set(index, m);
+    /**
+     * This method can be used to train the neural net with single precision samples. In single precision mode,
+     * the float weights are adjusted and written back to the double precision layers as soon as they are read.
+     *
+     * @param inputNodes          the input nodes as float array
+     * @param expectedOutputNodes the expected output nodes as float array
+     * @return the actual output nodes as float array
+     */
+    public float[] fit(float[] inputNodes, float[] expectedOutputNodes) {
+        return fit(new float[][]{inputNodes}, new float[][]{expectedOutputNodes}, new int[]{0}, 1)[0];
+    }
+
+    /**
+     * This method can be used to batch train the neural net with single precision samples.
+     * In single precision mode, the float weights are written back to the double precision layers as soon as they
+     * are read. The batches are fitted one after another by the calling thread, the training mode and the
+     * parallelism are not applied. Otherwise, the samples are converted and fitted in double precision.
+     * The samples are drawn according to the sampling strategy.
+     *
+     * @param inputSet          the input set of possible input node values
+     * @param expectedOutputSet the output set of according expected output values
+     * @param epochs            the count of samples to fit
+     * @param batchSize         the batch size for fitting cycles
+     */
+    public void fit(float[][] inputSet, float[][] expectedOutputSet, int epochs, int batchSize) {
+        if (inputSet == null || expectedOutputSet == null) {
+            throw new NullPointerException("inputSet and expectedOutputSet are required!");
+        } else if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be at least 1!");
+        }
+        // the sampler is kept for the given input set, so the epochs continue over calls even if it is converted
+        Sampler sampler = getSampler(inputSet, inputSet.length, () -> Sampler.classesOf(expectedOutputSet));
+        if (precision == Precision.DOUBLE) {
+            double[][] inputs = new double[inputSet.length][];
+            double[][] expectedOutputs = new double[expectedOutputSet.length][];
+            for (int i = 0; i < inputSet.length; i++) {
+                inputs[i] = inputSet[i] == null ? null : FloatModel.toDouble(inputSet[i]);
+                expectedOutputs[i] = expectedOutputSet[i] == null ? null : FloatModel.toDouble(expectedOutputSet[i]);
             }
-            iter++;
+            fit(inputs, expectedOutputs, epochs, batchSize, sampler);
+            return;
+        }
+        long starTime = System.nanoTime();
+        int updates = 0;
+        int[] sampleIndices = new int[batchSize];
+        for (int from = 0; from < epochs; from += batchSize) {
+            int sampleCount = Math.min(batchSize, epochs - from);
+            sampler.next(sampleIndices, 0, sampleCount);
+            fit(inputSet, expectedOutputSet, sampleIndices, sampleCount);
+            updates++;
+        }
+        logFitTime(starTime, epochs, updates);
+        publishMetrics();
+    }
+
+    /**
+     * This method can be used to batch train the neural net with single precision samples for a count of passes
+     * over the input set. Every epoch fits as many samples as the input set holds, drawn according to the sampling
+     * strategy as by fit(float[][], float[][], int, int).
+     *
+     * @param inputSet          the input set of possible input node values
+     * @param expectedOutputSet the output set of according expected output values
+     * @param epochs            the count of passes over the input set
+     * @param batchSize         the batch size for fitting cycles
+     */
+    public void fitEpochs(float[][] inputSet, float[][] expectedOutputSet, int epochs, int batchSize) {
+        if (inputSet == null || expectedOutputSet == null) {
+            throw new NullPointerException("inputSet and expectedOutputSet are required!");
         }
+        fit(inputSet, expectedOutputSet, getSampleCount(epochs, inputSet.length), batchSize);
+    }
 
-        public Matrix getWeight(int index) {
-            Matrix result = this.weightDeltas.get(index).copy();
-            if (NeuralNetwork.this.batchMode == BatchMode.MEAN) {
-                result.divide(iter);
+    /**
+     * Fits a mini-batch of single precision samples. In single precision mode, the samples are propagated one by one
+     * with the float weights, their deltas are summed up and applied once according to the batch mode.
+     * The double precision layers are not updated.
+     *
+     * @param inputSet          the input set to select from
+     * @param expectedOutputSet the according expected output set
+     * @param sampleIndices     the indices of the samples of this batch
+     * @param sampleCount       the count of samples of this batch
+     * @return the actual output nodes of every sample
+     */
+    synchronized float[][] fit(float[][] inputSet, float[][] expectedOutputSet, int[] sampleIndices, int sampleCount) {
+        return fit(inputSet, expectedOutputSet, sampleIndices, sampleCount, inputSet.length);
+    }
+
+    /**
+     * Fits a mini-batch of single precision samples. In single precision mode, the samples are propagated one by one
+     * with the float weights, their deltas are summed up and applied once according to the batch mode.
+     * The double precision layers are not updated.
+     *
+     * @param inputSet          the input set to select from
+     * @param expectedOutputSet the according expected output set
+     * @param sampleIndices     the indices of the samples of this batch
+     * @param sampleCount       the count of samples of this batch
+     * @param setSize           the size of the input set the batch was drawn from, which defines an epoch for the metrics sampling rate
+     * @return the actual output nodes of every sample
+     */
+    synchronized float[][] fit(float[][] inputSet, float[][] expectedOutputSet, int[] sampleIndices, int sampleCount, int setSize) {
+        float[][] actuals = new float[sampleCount][];
+        if (precision == Precision.DOUBLE) {
+            double[][] inputs = new double[sampleCount][];
+            double[][] expectedOutputs = new double[sampleCount][];
+            int[] indices = new int[sampleCount];
+            for (int j = 0; j < sampleCount; j++) {
+                float[] inputNodes = inputSet[sampleIndices[j]];
+                float[] expectedOutputNodes = expectedOutputSet[sampleIndices[j]];
+                inputs[j] = inputNodes == null ? null : FloatModel.toDouble(inputNodes);
+                expectedOutputs[j] = expectedOutputNodes == null ? null : FloatModel.toDouble(expectedOutputNodes);
+                indices[j] = j;
+            }
+            double[][] output = fit(inputs, expectedOutputs, indices, sampleCount, setSize);
+            for (int j = 0; j < sampleCount; j++) {
+                actuals[j] = FloatModel.toFloat(output[j]);
+            }
+            return actuals;
+        }
+        for (int j = 0; j < sampleCount; j++) {
+            float[] inputNodes = inputSet[sampleIndices[j]];
+            float[] expectedOutputNodes = expectedOutputSet[sampleIndices[j]];
+            if (inputNodes == null || expectedOutputNodes == null) {
+                throw new NullPointerException("inputNodes and expectedOutputNodes are required!");
+            } else if (inputNodes.length != configuration[0]) {
+                throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputNodes.length + " instead of " + configuration[0] + " input nodes.");
+            } else if (expectedOutputNodes.length != configuration[configuration.length-1]) {
+                throw new IllegalArgumentException("output node count does not match neural network configuration! received " + expectedOutputNodes.length + " instead of " + configuration[configuration.length-1] + " output nodes.");
             }
-            return result;
         }
 
-        public Matrix getBias(int index) {
-            Matrix result = this.biasDeltas.get(index).copy();
-            if (NeuralNetwork.this.batchMode == BatchMode.MEAN) {
-                result.divide(iter);
+        TrainingMetrics metrics = trainingMetricsEnabled ? getTrainingMetrics() : null;
+        long startTime = metrics != null ? System.nanoTime() : 0;
+        long startAllocation = metrics != null ? TrainingMetrics.allocatedBytes() : 0;
+        long forwardTime = 0;
+        long backwardTime = 0;
+
+        FloatModel model = getFloatModel();
+        LongAdder violations = getViolations();
+        // the same dropout is applied to all samples of the batch
+        float[] dropoutWeights = dropout > 0 ? model.dropout(dropout, getRandomSource().current()) : null;
+        float[][] weightDeltas = model.createDeltas(false);
+        float[][] biasDeltas = model.createDeltas(true);
+        for (int j = 0; j < sampleCount; j++) {
+            float[] inputNodes = inputSet[sampleIndices[j]];
+            double[] expectedOutputNodes = FloatModel.toDouble(expectedOutputSet[sampleIndices[j]]);
+            float[][] nodes = model.createNodes();
+            long time = metrics != null ? System.nanoTime() : 0;
+            model.forward(inputNodes, nodes, dropoutWeights, numericPolicy, violations);
+            if (metrics != null) {
+                long now = System.nanoTime();
+                forwardTime += now - time;
+                time = now;
             }
-            return result;
+            float[] output = nodes[nodes.length - 1];
+            if (dropoutWeights != null) {
+                for (int k = 0; k < output.length; k++) {
+                    output[k] *= (float) dropout;
+                }
+            }
+            Matrix actual = Matrix.fromArray(FloatModel.toDouble(output));
+            Matrix target = Matrix.fromArray(expectedOutputNodes);
+
+            // computation of cost C and loss L = dC/da(L) in double precision, as only the output layer is involved
+            if (isSampled(iterationCount + j, setSize)) {
+                double cost = costFunction.cost(actual, target) + regularizer.costSummand(actual, regularizationLambda);
+                backPropData.add(iterationCount + j, cost, Matrix.asArray(actual), expectedOutputNodes);
+            }
+            Matrix loss = costFunction.gradient(actual, target);
+            loss = Matrix.apply(loss, regularizer.gradient(loss, regularizationLambda), Double::sum);
+
+            model.backward(inputNodes, nodes, FloatModel.toFloat(Matrix.asArray(loss)), weightDeltas, biasDeltas, numericPolicy, violations);
+            actuals[j] = output.clone();
+            if (metrics != null) {
+                backwardTime += System.nanoTime() - time;
+            }
+        }
+        long updateTime = metrics != null ? System.nanoTime() : 0;
+        double scale = batchMode == BatchMode.MEAN ? learningRate / sampleCount : learningRate;
+        model.update(weightDeltas, biasDeltas, (float) scale);
+        floatModelChanged = true;
+        for (int j = 0; j < sampleCount; j++) {
+            decreaseRate();
+        }
+        if (metrics != null) {
+            long endTime = System.nanoTime();
+            metrics.recordForward(forwardTime);
+            metrics.recordBackward(backwardTime);
+            metrics.recordUpdate(endTime - updateTime);
+            metrics.recordSamples(sampleCount, endTime - startTime);
+            metrics.recordAllocation(startAllocation < 0 ? -1 : TrainingMetrics.allocatedBytes() - startAllocation);
+        }
+        return actuals;
+    }
+
+    /**
+     * Writes the float weights back to the double precision layers, if single precision fitting changed them since
+     * the last write-back. It is called before the double precision layers are read or changed, so fitting in single
+     * precision does not copy the whole model per sample. The write-back holds the monitor of this instance, so a
+     * concurrent snapshot never copies partially written layers.
+     */
+    private void writeBackFloatModel() {
+        if (floatModelChanged) {
+            synchronized (this) {
+                if (floatModelChanged) {
+                    floatModel.copyTo(layers);
+                    floatModelChanged = false;
+                }
+            }
+        }
+    }
+
+    private FloatModel getFloatModel() {
+        if (floatModel == null) {
+            floatModel = new FloatModel(layers, configuration);
         }
+        return floatModel;
+    }
+
+    /**
+     * Returns a copy of this neural network computing with the given precision. If converted to single precision,
+     * the weights and biases of the copy are rounded to float values.
+     *
+     * @param precision the precision of the copy
+     * @return the converted copy
+     */
+    public NeuralNetwork convert(Precision precision) {
+        if (precision == null) {
+            throw new NullPointerException("Precision must not be null!");
+        }
+        NeuralNetwork neuralNetwork = copy();
+        neuralNetwork.precision = precision;
+        if (precision == Precision.SINGLE) {
+            new FloatModel(neuralNetwork.layers, configuration).copyTo(neuralNetwork.layers);
+        }
+        return neuralNetwork;
     }
 
     /**
      * This method can be used to batch train the neural net with the supervised machine learning approach.
+     * The samples of a batch are propagated together, so the weights are adjusted once per batch.
+     * The samples are drawn according to the sampling strategy, by default from shuffled epochs. If the same input set
+     * is fitted again, the current epoch is continued.
      *
      * @param inputSet          the input set of possible input node values
      * @param expectedOutputSet the output set of according expected output values
-     * @param epochs            the count of repetitions of the batch training
+     * @param epochs            the count of samples to fit
      * @param batchSize         the batch size for fitting cycles
      */
     public void fit(double[][] inputSet, double[][] expectedOutputSet, int epochs, int batchSize) {
         if (inputSet == null || expectedOutputSet == null) {
             throw new NullPointerException("inputSet and expectedOutputSet are required!");
+        } else if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be at least 1!");
+        }
+        fit(inputSet, expectedOutputSet, epochs, batchSize, getSampler(inputSet, inputSet.length, () -> Sampler.classesOf(expectedOutputSet)));
+    }
+
+    /**
+     * This method can be used to batch train the neural net for a count of passes over the input set.
+     * Every epoch fits as many samples as the input set holds, drawn according to the sampling strategy as by
+     * fit(double[][], double[][], int, int); with the default shuffling, every sample is fitted once per epoch.
+     *
+     * @param inputSet          the input set of possible input node values
+     * @param expectedOutputSet the output set of according expected output values
+     * @param epochs            the count of passes over the input set
+     * @param batchSize         the batch size for fitting cycles
+     */
+    public void fitEpochs(double[][] inputSet, double[][] expectedOutputSet, int epochs, int batchSize) {
+        if (inputSet == null || expectedOutputSet == null) {
+            throw new NullPointerException("inputSet and expectedOutputSet are required!");
+        }
+        fit(inputSet, expectedOutputSet, getSampleCount(epochs, inputSet.length), batchSize);
+    }
+
+    /**
+     * Batch trains the neural net with samples drawn from the given sampler, which may belong to the input set the
+     * given one was converted from.
+     *
+     * @param inputSet          the input set of possible input node values
+     * @param expectedOutputSet the output set of according expected output values
+     * @param epochs            the count of samples to fit
+     * @param batchSize         the batch size for fitting cycles
+     * @param sampler           the sampler to draw the sample indices from
+     */
+    private void fit(double[][] inputSet, double[][] expectedOutputSet, int epochs, int batchSize, Sampler sampler) {
+        long starTime = System.nanoTime();
+        int updates = 0;
+        if (trainingMode == TrainingMode.HOGWILD) {
+            updates = fitHogwild(inputSet, expectedOutputSet, epochs, batchSize, sampler);
+        } else {
+            int[] sampleIndices = new int[batchSize];
+            for (int from = 0; from < epochs; from += batchSize) {
+                int sampleCount = Math.min(batchSize, epochs - from);
+                sampler.next(sampleIndices, 0, sampleCount);
+                fit(inputSet, expectedOutputSet, sampleIndices, sampleCount);
+                updates++;
+            }
+        }
+        logFitTime(starTime, epochs, updates);
+        publishMetrics();
+    }
+
+    /**
+     * This method can be used to batch train the neural net with a memory-mapped dataset, which may be larger than
+     * the available memory. Only the samples of the current batch are copied from the mapping to the heap, all other
+     * samples remain in the page cache of the operating system. The samples are drawn according to the sampling
+     * strategy as by fit(double[][], double[][], int, int). The batches are fitted one after another, even in
+     * hogwild mode; with a parallelism above 1, the samples of a batch are propagated concurrently.
+     *
+     * @param dataset   the mapped dataset
+     * @param epochs    the count of samples to fit
+     * @param batchSize the batch size for fitting cycles
+     */
+    public void fit(ColumnarDataset dataset, int epochs, int batchSize) {
+        if (dataset == null) {
+            throw new NullPointerException("dataset is required!");
+        } else if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be at least 1!");
         }
         long starTime = System.nanoTime();
-        int rest = epochs % batchSize;
-        for (int i = 0; i < epochs; i++) {
-            int sampleIndex = (int) (Math.random() * inputSet.length);
-            if (i == epochs-rest) {
-                batchSize = rest;
+        int updates = 0;
+        int size = dataset.size();
+        Sampler sampler = getSampler(dataset, size, dataset::getClasses);
+        int[] sampleIndices = new int[batchSize];
+        int[] batchIndices = new int[batchSize];
+        for (int j = 0; j < batchSize; j++) {
+            batchIndices[j] = j;
+        }
+        if (precision == Precision.SINGLE) {
+            float[][] inputs = new float[batchSize][dataset.getInputCount()];
+            float[][] expectedOutputs = new float[batchSize][dataset.getOutputCount()];
+            for (int from = 0; from < epochs; from += batchSize) {
+                int sampleCount = Math.min(batchSize, epochs - from);
+                sampler.next(sampleIndices, 0, sampleCount);
+                for (int j = 0; j < sampleCount; j++) {
+                    dataset.readInput(sampleIndices[j], inputs[j]);
+                    dataset.readOutput(sampleIndices[j], expectedOutputs[j]);
+                }
+                fit(inputs, expectedOutputs, batchIndices, sampleCount, size);
+                updates++;
             }
-            fit(inputSet[sampleIndex], expectedOutputSet[sampleIndex], (i+1) % batchSize == 0);
+        } else {
+            double[][] inputs = new double[batchSize][dataset.getInputCount()];
+            double[][] expectedOutputs = new double[batchSize][dataset.getOutputCount()];
+            for (int from = 0; from < epochs; from += batchSize) {
+                int sampleCount = Math.min(batchSize, epochs - from);
+                sampler.next(sampleIndices, 0, sampleCount);
+                for (int j = 0; j < sampleCount; j++) {
+                    dataset.readInput(sampleIndices[j], inputs[j]);
+                    dataset.readOutput(sampleIndices[j], expectedOutputs[j]);
+                }
+                fit(inputs, expectedOutputs, batchIndices, sampleCount, size);
+                updates++;
+            }
+        }
+        logFitTime(starTime, epochs, updates);
+        publishMetrics();
+    }
+
+    /**
+     * This method can be used to batch train the neural net with a memory-mapped dataset for a count of passes over
+     * the dataset. Every epoch fits as many samples as the dataset holds, drawn according to the sampling strategy as
+     * by fit(ColumnarDataset, int, int).
+     *
+     * @param dataset   the mapped dataset
+     * @param epochs    the count of passes over the dataset
+     * @param batchSize the batch size for fitting cycles
+     */
+    public void fitEpochs(ColumnarDataset dataset, int epochs, int batchSize) {
+        if (dataset == null) {
+            throw new NullPointerException("dataset is required!");
+        }
+        fit(dataset, getSampleCount(epochs, dataset.size()), batchSize);
+    }
+
+    /**
+     * Returns the count of samples fitted by the given count of passes over a set of the given size.
+     */
+    private static int getSampleCount(int epochs, int setSize) {
+        if (epochs < 0) {
+            throw new IllegalArgumentException("epochs must not be negative!");
         }
+        long samples = (long) epochs * setSize;
+        if (samples > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("epochs exceed the count of samples which can be fitted at once! received " + epochs + " epochs of " + setSize + " samples.");
+        }
+        return (int) samples;
+    }
+
+    private void logFitTime(long starTime, int samples, int updates) {
         long endTime = System.nanoTime();
+        updateThroughput = updates / ((endTime - starTime) / 1e9);
         double fitTime = (endTime - starTime);
         String unit = "nanos";
         if (fitTime >= 1000000) {
@@ -329,7 +1194,20 @@ public class NeuralNetwork implements IGene, Serializable {
                 }
             }
         }
-        LOG.log(Level.INFO, "Fitting time for " + epochs + " epochs: " + fitTime + " " + unit + ".");
+        LOG.log(Level.INFO, "Fitting time for " + samples + " samples: " + fitTime + " " + unit + " (" + updates + " weight updates, " + updateThroughput + " updates/s).");
+    }
+
+    /**
+     * This method will provide an immutable copy of the current weights, which allows predictions by multiple
+     * threads concurrently. The snapshot will not change when this neural network is fitted afterwards.
+     * As fitting a mini-batch and creating a snapshot synchronize on this neural network, the snapshot holds the
+     * weights after the last completed mini-batch, even when another thread is fitting concurrently.
+     *
+     * @return the snapshot of the current weights.
+     */
+    public synchronized NeuralNetworkSnapshot snapshot() {
+        writeBackFloatModel();
+        return new NeuralNetworkSnapshot(layers, configuration, dropout, numericPolicy, getViolations());
     }
 
     /**
@@ -339,8 +1217,20 @@ public class NeuralNetwork implements IGene, Serializable {
      */
     @Override
     public IGene mutate() {
+        return mutate(getRandomSource());
+    }
+
+    /**
+     * This method will provide a randomized copy of the current neural network, drawing the mutations from the
+     * given random source.
+     *
+     * @param random the random source.
+     * @return a mutated copy of this instance
+     */
+    @Override
+    public IGene mutate(RandomSource random) {
         NeuralNetwork neuralNetwork = this.copy();
-        neuralNetwork.randomize();
+        neuralNetwork.randomize(random.current());
         return neuralNetwork;
     }
 
@@ -351,16 +1241,28 @@ public class NeuralNetwork implements IGene, Serializable {
      */
     @Override
     public IGene initialize() {
+        return initialize(getRandomSource());
+    }
+
+    /**
+     * This method will provide a re-initialized copy of the current neural network, drawing the initial values from
+     * the given random source.
+     *
+     * @param random the random source.
+     * @return a re-initialized copy of this instance
+     */
+    @Override
+    public IGene initialize(RandomSource random) {
         NeuralNetwork neuralNetwork = this.copy();
-        neuralNetwork.initialilzeLayers();
+        neuralNetwork.initialilzeLayers(random.current());
         return neuralNetwork;
     }
 
-    private void initialilzeLayers() {
+    private void initialilzeLayers(SplittableRandom random) {
         for (int i = 1; i < configuration.length; i++) {
             int fanIn = configuration[i - 1];
             int fanOut = (i == configuration.length - 1) ? 0 : configuration[i + 1];
-            layers.get(i-1).initialize(initializer, fanIn, fanOut);
+            layers.get(i-1).initialize(initializer, fanIn, fanOut, random);
         }
     }
 
@@ -370,6 +1272,7 @@ public class NeuralNetwork implements IGene, Serializable {
      * @return an identical copy of this instance
      */
     public NeuralNetwork copy() {       // TODO: add copy function which allows to change stuff
+        writeBackFloatModel();
         NeuralNetwork neuralNetwork = new NeuralNetwork(layers);
         neuralNetwork.configuration = this.configuration;
         neuralNetwork.initializer = this.initializer;
@@ -393,16 +1296,37 @@ public class NeuralNetwork implements IGene, Serializable {
         neuralNetwork.crossoverSliceCount = this.crossoverSliceCount;
 
         neuralNetwork.iterationCount = this.iterationCount;
+        neuralNetwork.parallelism = this.parallelism;
+        neuralNetwork.trainingMode = this.trainingMode;
+        neuralNetwork.numericPolicy = this.numericPolicy;
+        neuralNetwork.precision = this.precision;
+        neuralNetwork.trainingMetricsEnabled = this.trainingMetricsEnabled;
+        neuralNetwork.predictionEventInterval = this.predictionEventInterval;
+        neuralNetwork.metricsSamplingRate = this.metricsSamplingRate;
+        neuralNetwork.samplingStrategy = this.samplingStrategy;
+        neuralNetwork.samplingSeed = this.samplingSeed;
+        neuralNetwork.randomSource = this.randomSource;
+        neuralNetwork.backPropData = new BackPropData(backPropData.getHistoryPolicy(), backPropData.getHistorySize(), getRandomSource().split());
         return neuralNetwork;
     }
 
-    private void randomize() {
+    private void randomize(SplittableRandom random) {
         for (Layer layer : layers) {
-            layer.weight.randomize(learningRate, mutationRate);
-            layer.bias.randomize(learningRate, mutationRate);
+            layer.weight.randomize(learningRate, mutationRate, random);
+            layer.bias.randomize(learningRate, mutationRate, random);
         }
     }
 
+    /**
+     * Returns the random source for initialization, dropout, sampling and genetic operations. If none was set by the
+     * builder, the random source shared by all neural networks is returned.
+     *
+     * @return the random source.
+     */
+    public RandomSource getRandomSource() {
+        return randomSource != null ? randomSource : RandomSource.getDefault();
+    }
+
     /**
      * Getter of the configuration of the neural network, which was used to create it.
      *
@@ -429,6 +1353,7 @@ public class NeuralNetwork implements IGene, Serializable {
      * @return the weight matrices of all layers.
      */
     public List<double[][]> getWeights() {
+        writeBackFloatModel();
         List<double[][]> weights = new ArrayList<>();
         for (Layer layer : layers) {
             weights.add(layer.weight.getData());
@@ -443,6 +1368,7 @@ public class NeuralNetwork implements IGene, Serializable {
      * @return the bias matrices of all layers.
      */
     public List<double[][]> getBiases() {
+        writeBackFloatModel();
         List<double[][]> biases = new ArrayList<>();
         for (Layer layer : layers) {
             biases.add(layer.bias.getData());
@@ -450,6 +1376,11 @@ public class NeuralNetwork implements IGene, Serializable {
         return biases;
     }
 
+    List<Layer> getLayers() {
+        writeBackFloatModel();
+        return layers;
+    }
+
     public BackPropData getBackPropData() {
         return backPropData;
     }
@@ -519,6 +1450,141 @@ public class NeuralNetwork implements IGene, Serializable {
         return batchMode;
     }
 
+    /**
+     * Getter for the parallelism, i.e. the count of threads sharing the samples of a batch during fitting.
+     * @return the parallelism.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Getter for the training mode, which decides how batch fitting is distributed among threads.
+     * @return the training mode.
+     */
+    public TrainingMode getTrainingMode() {
+        return trainingMode;
+    }
+
+    /**
+     * Getter for the numeric policy, which decides how NaN and Infinity are dealt with during propagation.
+     * The count of detected violations is kept per neural network, see getViolationCount().
+     * @return the numeric policy.
+     */
+    public NumericPolicy getNumericPolicy() {
+        return numericPolicy;
+    }
+
+    /**
+     * Returns the count of NaN and Infinity values detected by the numeric policy of this neural network since its
+     * creation or the last reset. Predictions of snapshots and inference sessions created from this neural network
+     * are counted as well. The count is not copied to copies, offspring or deserialized instances.
+     * @return the count of detected violations.
+     */
+    public long getViolationCount() {
+        return getViolations().sum();
+    }
+
+    /**
+     * Resets the count of detected violations of this neural network to zero.
+     */
+    public void resetViolationCount() {
+        getViolations().reset();
+    }
+
+    /**
+     * Returns the counter of detected violations, which is created lazily as it is not serialized.
+     * @return the violation counter of this neural network.
+     */
+    LongAdder getViolations() {
+        LongAdder current = violations;
+        if (current == null) {
+            VIOLATIONS.compareAndSet(this, null, new LongAdder());
+            current = violations;
+        }
+        return current;
+    }
+
+    /**
+     * Getter for the precision used by the float[] overloads of predict and fit.
+     * @return the precision.
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns the count of weight updates per second measured during the last call of batch fitting.
+     * @return the update throughput.
+     */
+    public double getUpdateThroughput() {
+        return updateThroughput;
+    }
+
+    /**
+     * Indicates if the training metrics are recorded during fitting.
+     * @return true if training metrics are enabled.
+     */
+    public boolean isTrainingMetricsEnabled() {
+        return trainingMetricsEnabled;
+    }
+
+    /**
+     * Returns the timers and counters of the training of this neural network. Values are recorded only if
+     * training metrics are enabled by the builder.
+     * @return the training metrics.
+     */
+    public TrainingMetrics getTrainingMetrics() {
+        TrainingMetrics metrics = trainingMetrics;
+        if (metrics == null) {
+            TRAINING_METRICS.compareAndSet(this, null, new TrainingMetrics(layers.size()));
+            metrics = trainingMetrics;
+        }
+        return metrics;
+    }
+
+    /**
+     * Adds a sink, to which the training metrics are published after every call of batch fitting.
+     *
+     * @param source the name to publish the metrics with, e.g. the name of the training job.
+     * @param sink the sink to publish to.
+     */
+    public synchronized void addMetricsSink(String source, MetricsSink sink) {
+        if (source == null || sink == null) {
+            throw new NullPointerException("source and sink are required!");
+        }
+        if (metricsSinks == null) {
+            metricsSinks = new ConcurrentHashMap<>();
+        }
+        metricsSinks.put(sink, source);
+    }
+
+    /**
+     * Removes a sink added by addMetricsSink().
+     *
+     * @param sink the sink to remove.
+     */
+    public synchronized void removeMetricsSink(MetricsSink sink) {
+        if (metricsSinks != null) {
+            metricsSinks.remove(sink);
+        }
+    }
+
+    /**
+     * Publishes the current training metrics to all sinks. Called automatically after batch fitting
+     * if training metrics are enabled.
+     */
+    public void publishMetrics() {
+        Map<MetricsSink, String> sinks = metricsSinks;
+        if (!trainingMetricsEnabled || sinks == null || sinks.isEmpty()) {
+            return;
+        }
+        Map<String, Number> values = getTrainingMetrics().toMap();
+        for (Map.Entry<MetricsSink, String> sink : sinks.entrySet()) {
+            sink.getKey().publish(sink.getValue(), values);
+        }
+    }
+
     /**
      * Returns current learning rate of this NeuralNetwork. Must not match corresponding property.
      *
@@ -616,16 +1682,102 @@ public class NeuralNetwork implements IGene, Serializable {
 
     /**
      * This method allows to set a property change listener to the neural network.
-     * It will fire when a prediction is made.
+     * It will fire after predictions with the property name 'predict', but asynchronously and coalesced
+     * like a prediction listener. Prefer addPredictionListener(), which provides the node values of the prediction.
      *
      * @param listener the PropertyChangeListener to be added.
      */
     public void addListener(PropertyChangeListener listener) {
-        pcs.addPropertyChangeListener("predict", listener);
+        if (listener == null) {
+            throw new NullPointerException("listener must not be null!");
+        }
+        getPredictionEventBus().addListener(listener, e -> listener.propertyChange(new PropertyChangeEvent(this, "predict", false, true)), PredictionEventBus.defaultExecutor());
+    }
+
+    /**
+     * Removes a property change listener added by addListener().
+     *
+     * @param listener the PropertyChangeListener to be removed.
+     */
+    public void removeListener(PropertyChangeListener listener) {
+        removePredictionListener(listener);
+    }
+
+    /**
+     * Adds a listener, which is notified after predictions on a shared background thread. The predicting thread
+     * is never blocked. Predictions made faster than the prediction event interval are coalesced into one event.
+     *
+     * @param listener the listener to be added.
+     */
+    public void addPredictionListener(PredictionListener listener) {
+        addPredictionListener(listener, PredictionEventBus.defaultExecutor());
+    }
+
+    /**
+     * Adds a listener, which is notified after predictions on the given executor, e.g. the UI thread.
+     * Predictions made faster than the prediction event interval are coalesced into one event.
+     *
+     * @param listener the listener to be added.
+     * @param executor the executor to notify the listener on.
+     */
+    public void addPredictionListener(PredictionListener listener, Executor executor) {
+        if (listener == null || executor == null) {
+            throw new NullPointerException("listener and executor are required!");
+        }
+        getPredictionEventBus().addListener(listener, listener, executor);
+    }
+
+    /**
+     * Removes a listener added by addPredictionListener().
+     *
+     * @param listener the listener to be removed.
+     */
+    public void removePredictionListener(Object listener) {
+        PredictionEventBus bus = predictionEventBus;
+        if (bus != null) {
+            bus.removeListener(listener);
+        }
+    }
+
+    /**
+     * Getter for the minimal interval between two prediction events of a listener.
+     * @return the interval in milliseconds.
+     */
+    public long getPredictionEventInterval() {
+        return predictionEventInterval;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        writeBackFloatModel();
+        out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (numericPolicy == null) {
+            // serialized before the training settings were added: the defaults of the builder apply
+            parallelism = 1;
+            trainingMode = TrainingMode.SYNCHRONOUS;
+            numericPolicy = NumericPolicy.STRICT;
+            precision = Precision.DOUBLE;
+            predictionEventInterval = 16;
+            metricsSamplingRate = 1;
+            samplingStrategy = SamplingStrategy.SHUFFLE;
+        }
+    }
+
+    private PredictionEventBus getPredictionEventBus() {
+        PredictionEventBus bus = predictionEventBus;
+        if (bus == null) {
+            PREDICTION_EVENT_BUS.compareAndSet(this, null, new PredictionEventBus(this, predictionEventInterval));
+            bus = predictionEventBus;
+        }
+        return bus;
     }
 
     @Override
     public String toString() {
+        writeBackFloatModel();
         StringBuilder sb = new StringBuilder();
         sb.append("initializer: ");
         sb.append(initializer);
@@ -724,6 +1876,18 @@ public class NeuralNetwork implements IGene, Serializable {
         private double regularizationLambda = 0;
         private double dropout = 0;
         private BatchMode batchMode = BatchMode.MEAN;
+        private int parallelism = 1;
+        private TrainingMode trainingMode = TrainingMode.SYNCHRONOUS;
+        private NumericPolicy numericPolicy = NumericPolicy.STRICT;
+        private Precision precision = Precision.DOUBLE;
+        private boolean trainingMetrics = false;
+        private long predictionEventInterval = 16;
+        private HistoryPolicy historyPolicy = HistoryPolicy.ALL;
+        private int historySize = 10000;
+        private int metricsSamplingRate = 1;
+        private SamplingStrategy samplingStrategy = SamplingStrategy.SHUFFLE;
+        private Long samplingSeed = null;
+        private transient RandomSource randomSource = null;
 
         private double learningRate = 0.8;
         private Optimizer learningRateOptimizer = Optimizer.NONE;
@@ -783,6 +1947,44 @@ public class NeuralNetwork implements IGene, Serializable {
                 throw new NullPointerException("Batch mode must not be null!");
             }
             neuralNetwork.batchMode = this.batchMode;
+            if (this.parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be an integer above 0!");
+            }
+            neuralNetwork.parallelism = this.parallelism;
+            if (this.trainingMode == null) {
+                throw new NullPointerException("Training mode must not be null!");
+            }
+            neuralNetwork.trainingMode = this.trainingMode;
+            if (this.numericPolicy == null) {
+                throw new NullPointerException("Numeric policy must not be null!");
+            }
+            neuralNetwork.numericPolicy = this.numericPolicy;
+            if (this.precision == null) {
+                throw new NullPointerException("Precision must not be null!");
+            }
+            neuralNetwork.precision = this.precision;
+            neuralNetwork.trainingMetricsEnabled = this.trainingMetrics;
+            if (this.predictionEventInterval < 0) {
+                throw new IllegalArgumentException("Prediction event interval must not be negative!");
+            }
+            neuralNetwork.predictionEventInterval = this.predictionEventInterval;
+            if (this.historyPolicy == null) {
+                throw new NullPointerException("History policy must not be null!");
+            }
+            if (this.historySize < 1) {
+                throw new IllegalArgumentException("History size must be an integer above 0!");
+            }
+            if (this.metricsSamplingRate < -1) {
+                throw new IllegalArgumentException("Metrics sampling rate must be an integer of -1 or above!");
+            }
+            neuralNetwork.metricsSamplingRate = this.metricsSamplingRate;
+            if (this.samplingStrategy == null) {
+                throw new NullPointerException("Sampling strategy must not be null!");
+            }
+            neuralNetwork.samplingStrategy = this.samplingStrategy;
+            neuralNetwork.samplingSeed = this.samplingSeed;
+            neuralNetwork.randomSource = this.randomSource;
+            neuralNetwork.backPropData = new BackPropData(this.historyPolicy, this.historySize, neuralNetwork.getRandomSource().split());
             if (this.learningRate < 0.0 || this.learningRate > 1.0) {
                 throw new IllegalArgumentException("Learning rate must not be within a range of 0.0 and 1.0!");
             }
@@ -834,6 +2036,10 @@ public class NeuralNetwork implements IGene, Serializable {
                 }
             }
 
+            if (precision == Precision.SINGLE) {
+                new FloatModel(neuralNetwork.layers, neuralNetwork.configuration).copyTo(neuralNetwork.layers);
+            }
+
             return neuralNetwork;
         }
 
@@ -933,6 +2139,144 @@ public class NeuralNetwork implements IGene, Serializable {
             return this;
         }
 
+        /**
+         * Setter for the parallelism. If set above 1, the samples of a batch are split into as many shards,
+         * which are propagated by a ForkJoinPool of this size. Their gradients are reduced and applied once per batch,
+         * so the result matches the batch mode just like sequential fitting.
+         * @param parallelism the count of threads used for fitting.
+         * @return the Builder.
+         */
+        public Builder setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Setter for the training mode. SYNCHRONOUS reduces the gradients of a batch and applies them once.
+         * HOGWILD lets as many threads as set by the parallelism fit their own batches and update the shared
+         * weights without locks.
+         * @param trainingMode the training mode.
+         * @return the Builder.
+         */
+        public Builder setTrainingMode(TrainingMode trainingMode) {
+            this.trainingMode = trainingMode;
+            return this;
+        }
+
+        /**
+         * Setter for the numeric policy. STRICT checks every single operation for NaN and Infinity,
+         * CHECK_PER_LAYER scans the values once per layer and UNCHECKED skips all checks.
+         * @param numericPolicy the numeric policy.
+         * @return the Builder.
+         */
+        public Builder setNumericPolicy(NumericPolicy numericPolicy) {
+            this.numericPolicy = numericPolicy;
+            return this;
+        }
+
+        /**
+         * Setter for the precision. In SINGLE precision, the float[] overloads of predict and fit work on
+         * float copies of the weights, which halves the memory traffic. The weights are rounded to float values.
+         * @param precision the precision.
+         * @return the Builder.
+         */
+        public Builder setPrecision(Precision precision) {
+            this.precision = precision;
+            return this;
+        }
+
+        /**
+         * Enables the training metrics, i.e. the timers per phase and layer, the throughput and the allocation
+         * counters recorded during fitting. They can be read by getTrainingMetrics() or published to a MetricsSink.
+         * @param trainingMetrics true to record training metrics.
+         * @return the Builder.
+         */
+        public Builder setTrainingMetrics(boolean trainingMetrics) {
+            this.trainingMetrics = trainingMetrics;
+            return this;
+        }
+
+        /**
+         * Setter for the minimal interval between two prediction events of a listener. Predictions made within
+         * this interval are coalesced into one event. The default of 16 milliseconds matches a frame at 60 Hz.
+         * @param predictionEventInterval the interval in milliseconds. Must not be negative.
+         * @return the Builder.
+         */
+        public Builder setPredictionEventInterval(long predictionEventInterval) {
+            this.predictionEventInterval = predictionEventInterval;
+            return this;
+        }
+
+        /**
+         * Setter for the history policy, which decides the training iterations kept by the BackPropData.
+         * By default, all iterations are kept.
+         * @param historyPolicy the history policy.
+         * @return the Builder.
+         */
+        public Builder setHistoryPolicy(HistoryPolicy historyPolicy) {
+            this.historyPolicy = historyPolicy;
+            return this;
+        }
+
+        /**
+         * Setter for the maximal count of training iterations kept by the BackPropData. Has no effect if the
+         * history policy keeps all iterations.
+         * @param historySize the history size. Must be an integer above 0.
+         * @return the Builder.
+         */
+        public Builder setHistorySize(int historySize) {
+            this.historySize = historySize;
+            return this;
+        }
+
+        /**
+         * Setter for the metrics sampling rate, which decides for which training iterations the cost is computed and
+         * added to the BackPropData together with the classification scores. Skipped iterations save the cost computation
+         * and the confusion matrix bookkeeping. By default, every iteration is sampled.
+         * @param metricsSamplingRate 0 to sample no iteration, N to sample every Nth iteration or -1 to sample the last
+         *                            iteration of every pass over the input set.
+         * @return the Builder.
+         */
+        public Builder setMetricsSamplingRate(int metricsSamplingRate) {
+            this.metricsSamplingRate = metricsSamplingRate;
+            return this;
+        }
+
+        /**
+         * Setter for the sampling strategy, which decides how the samples of a batch fit are drawn from the input set.
+         * By default, the samples are drawn from shuffled epochs.
+         * @param samplingStrategy the sampling strategy.
+         * @return the Builder.
+         */
+        public Builder setSamplingStrategy(SamplingStrategy samplingStrategy) {
+            this.samplingStrategy = samplingStrategy;
+            return this;
+        }
+
+        /**
+         * Setter for the seed of the sampling. With a seed, the samples are drawn in the same order by every
+         * neural network fitting the same input set, e.g. for reproducible benchmarks.
+         * @param samplingSeed the seed or null to draw a random seed per input set.
+         * @return the Builder.
+         */
+        public Builder setSamplingSeed(Long samplingSeed) {
+            this.samplingSeed = samplingSeed;
+            return this;
+        }
+
+        /**
+         * Setter for the random source, which provides the random numbers for initialization, dropout, sampling and
+         * genetic operations. A random source with a seed makes them reproducible. Copies and genetic offspring share
+         * the random source of the neural network they descend from. The random source is not serialized, a
+         * deserialized Builder uses the random source shared by all neural networks.
+         * @param randomSource the random source or null to use the random source shared by all neural networks.
+         * @return the Builder.
+         */
+        public Builder setRandomSource(RandomSource randomSource) {
+            this.randomSource = randomSource;
+            return this;
+        }
+
         /**
          * Method to set the learning rate. The learning rate may be decreased in case of
          * unsupervised learning.
@@ -1065,6 +2409,80 @@ public class NeuralNetwork implements IGene, Serializable {
                 logMissingProperty("batch_mode", e);
             }
 
+            try {
+                this.parallelism = Integer.parseInt(PROPERTIES.getProperty("parallelism"));
+            } catch (Exception e) {
+                logMissingProperty("parallelism", e);
+            }
+
+            try {
+                this.trainingMode = TrainingMode.valueOf(PROPERTIES.getProperty("training_mode").toUpperCase());
+            } catch (Exception e) {
+                logMissingProperty("training_mode", e);
+            }
+
+            try {
+                this.numericPolicy = NumericPolicy.valueOf(PROPERTIES.getProperty("numeric_policy").toUpperCase());
+            } catch (Exception e) {
+                logMissingProperty("numeric_policy", e);
+            }
+
+            try {
+                this.precision = Precision.valueOf(PROPERTIES.getProperty("precision").toUpperCase());
+            } catch (Exception e) {
+                logMissingProperty("precision", e);
+            }
+
+            try {
+                this.trainingMetrics = Boolean.parseBoolean(PROPERTIES.getProperty("training_metrics"));
+            } catch (Exception e) {
+                logMissingProperty("training_metrics", e);
+            }
+
+            try {
+                this.predictionEventInterval = Long.parseLong(PROPERTIES.getProperty("prediction_event_interval"));
+            } catch (Exception e) {
+                logMissingProperty("prediction_event_interval", e);
+            }
+
+            try {
+                this.historyPolicy = HistoryPolicy.valueOf(PROPERTIES.getProperty("history_policy").toUpperCase());
+            } catch (Exception e) {
+                logMissingProperty("history_policy", e);
+            }
+
+            try {
+                this.historySize = Integer.parseInt(PROPERTIES.getProperty("history_size"));
+            } catch (Exception e) {
+                logMissingProperty("history_size", e);
+            }
+
+            try {
+                this.metricsSamplingRate = Integer.parseInt(PROPERTIES.getProperty("metrics_sampling_rate"));
+            } catch (Exception e) {
+                logMissingProperty("metrics_sampling_rate", e);
+            }
+
+            try {
+                this.samplingStrategy = SamplingStrategy.valueOf(PROPERTIES.getProperty("sampling_strategy").toUpperCase());
+            } catch (Exception e) {
+                logMissingProperty("sampling_strategy", e);
+            }
+
+            try {
+                String seed = PROPERTIES.getProperty("sampling_seed");
+                this.samplingSeed = seed == null || seed.trim().isEmpty() ? null : Long.parseLong(seed.trim());
+            } catch (Exception e) {
+                logMissingProperty("sampling_seed", e);
+            }
+
+            try {
+                String seed = PROPERTIES.getProperty("random_seed");
+                this.randomSource = seed == null || seed.trim().isEmpty() ? null : new RandomSource(Long.parseLong(seed.trim()));
+            } catch (Exception e) {
+                logMissingProperty("random_seed", e);
+            }
+
             try {
                 this.learningRate = Double.parseDouble(PROPERTIES.getProperty("learning_rate"));
             } catch (Exception e) {
@@ -0,0 +1,142 @@
+package ch.kaiki.nn.neuralnet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is an immutable, read only copy of the layers of a neural network, which is made for predictions only.
+ * Unlike the neural network itself, a snapshot may be shared by any number of threads, which predict concurrently.
+ * Every thread predicts with its own node buffers, so no predictions interfere with each other.
+ * <p>
+ * A snapshot is created by NeuralNetwork.snapshot(). Creating a snapshot and fitting a mini-batch synchronize on the
+ * neural network. Hence a snapshot holds the weights after the last completed mini-batch and every change of
+ * this mini-batch happens-before the creation of the snapshot. Fitting afterwards will not change the snapshot.
+ * To publish newer weights, a new snapshot must be created and handed over to the predicting threads, e.g.
+ * by a volatile field or an AtomicReference, which again establishes a happens-before relation.
+ * <p>
+ * The node buffers of a thread are kept per configuration, not per snapshot. They are shared by all snapshots of the
+ * same configuration, so threads of a pool, which predict with a new snapshot after each publication, neither
+ * allocate new buffers nor keep the layers of former snapshots reachable.
+ */
+public class NeuralNetworkSnapshot {
+
+    private final List<Layer> layers;
+    private final int[] configuration;
+    private final double dropout;
+    private final NumericPolicy numericPolicy;
+    private final LongAdder violations;
+    private static final ThreadLocal<Map<Shape, double[][]>> BUFFERS = ThreadLocal.withInitial(HashMap::new);
+
+    private final Layer[] layerArray;
+    private final Shape shape;
+
+    NeuralNetworkSnapshot(List<Layer> layers, int[] configuration, double dropout, NumericPolicy numericPolicy, LongAdder violations) {
+        List<Layer> layerCopies = new ArrayList<>();
+        for (Layer layer : layers) {
+            layerCopies.add(layer.copy());
+        }
+        this.layers = Collections.unmodifiableList(layerCopies);
+        this.configuration = configuration.clone();
+        this.dropout = dropout;
+        this.numericPolicy = numericPolicy;
+        this.violations = violations;
+        this.layerArray = layerCopies.toArray(new Layer[0]);
+        this.shape = new Shape(this.configuration);
+    }
+
+    /**
+     * This method will take input nodes as parameter and return the predicted output nodes.
+     * It may be called by multiple threads concurrently.
+     *
+     * @param inputNodes the input nodes as double array
+     * @return the predicted output nodes as Double List
+     */
+    public List<Double> predict(double[] inputNodes) {
+        double[] outputNodes = new double[configuration[configuration.length - 1]];
+        predict(inputNodes, outputNodes);
+        List<Double> result = new ArrayList<>(outputNodes.length);
+        for (double value : outputNodes) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    /**
+     * This method will take input nodes as parameter and write the predicted output nodes to the output array.
+     * It may be called by multiple threads concurrently. Every thread uses its own node buffers, which are
+     * allocated at its first call with a snapshot of this configuration.
+     *
+     * @param inputNodes  the input nodes as double array
+     * @param outputNodes the array to write the predicted output nodes to
+     */
+    public void predict(double[] inputNodes, double[] outputNodes) {
+        double[][] buffers = BUFFERS.get().computeIfAbsent(shape, key -> InferenceSession.createBuffers(key.configuration));
+        InferenceSession.predict(layerArray, configuration, buffers, dropout, numericPolicy, violations, inputNodes, outputNodes);
+    }
+
+    /**
+     * Creates a new session predicting with the weights of this snapshot. The session itself is not thread safe,
+     * but any number of sessions of the same snapshot may be used concurrently.
+     *
+     * @return the new session.
+     */
+    public InferenceSession createSession() {
+        return new InferenceSession(layers, configuration, dropout, numericPolicy, violations);
+    }
+
+    /**
+     * Getter of the configuration of the neural network, which was used to create this snapshot.
+     *
+     * @return the node count per layer.
+     */
+    public int[] getConfiguration() {
+        return configuration.clone();
+    }
+
+    /**
+     * Getter of the numeric policy this snapshot predicts with. The violations detected by predictions of this
+     * snapshot are counted by the neural network the snapshot was created from.
+     *
+     * @return the numeric policy.
+     */
+    public NumericPolicy getNumericPolicy() {
+        return numericPolicy;
+    }
+
+    /**
+     * Returns the violation counter of the neural network this snapshot was created from.
+     *
+     * @return the violation counter.
+     */
+    LongAdder getViolations() {
+        return violations;
+    }
+
+    /**
+     * The key of the node buffers of a thread, which depend on the node count per layer only.
+     */
+    private static final class Shape {
+        private final int[] configuration;
+        private final int hash;
+
+        Shape(int[] configuration) {
+            this.configuration = configuration;
+            this.hash = Arrays.hashCode(configuration);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Shape && Arrays.equals(configuration, ((Shape) o).configuration);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ch.kaiki.nn.neuralnet;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The numeric policy decides how a neural network deals with NaN and Infinity during propagation. Each type holds
+ * a short description. The policy itself is stateless: the violations it detects, i.e. the values which evaluated
+ * to NaN or Infinity, are counted by the neural network which is propagated, see NeuralNetwork.getViolationCount().
+ */
+public enum NumericPolicy {
+
+    /**
+     * Every single operation checks its results. Infinity is clamped to Double.MIN_VALUE or Double.MAX_VALUE,
+     * NaN raises an ArithmeticException. Every violation is logged.
+     */
+    STRICT("Check every operation"),
+    /**
+     * The operations of a layer run without checks. The output of every layer (and the deltas during training)
+     * are scanned once afterwards. A violation raises an ArithmeticException without being clamped or logged.
+     */
+    CHECK_PER_LAYER("Check once per layer"),
+    /**
+     * No checks at all. NaN and Infinity are propagated silently, which is the fastest option for production inference.
+     */
+    UNCHECKED("No checks");
+
+    private final String description;
+
+    NumericPolicy(String description) {
+        this.description = description + " (" + this.name() + ")";
+    }
+
+    /**
+     * Gets short description of the numeric policy.
+     *
+     * @return the description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Scans the given values once if this policy checks per layer. The violations are counted and reported
+     * by a single exception.
+     *
+     * @param values     the values to scan
+     * @param operation  the name of the operation for the exception message
+     * @param violations the counter to add the violations to, or null
+     */
+    void scan(double[] values, String operation, LongAdder violations) {
+        if (this != CHECK_PER_LAYER) {
+            return;
+        }
+        int count = 0;
+        for (double value : values) {
+            if (!Double.isFinite(value)) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            if (violations != null) {
+                violations.add(count);
+            }
+            throw new ArithmeticException(operation + " evaluated to NaN or Infinity for " + count + " values!");
+        }
+    }
+
+    /**
+     * Scans the given single precision values once. The single precision kernels do not check single operations,
+     * so STRICT scans per layer as well.
+     *
+     * @param values     the values to scan
+     * @param operation  the name of the operation for the exception message
+     * @param violations the counter to add the violations to, or null
+     */
+    void scan(float[] values, String operation, LongAdder violations) {
+        if (this == UNCHECKED) {
+            return;
+        }
+        int count = 0;
+        for (float value : values) {
+            if (!Float.isFinite(value)) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            if (violations != null) {
+                violations.add(count);
+            }
+            throw new ArithmeticException(operation + " evaluated to NaN or Infinity for " + count + " values!");
+        }
+    }
+}
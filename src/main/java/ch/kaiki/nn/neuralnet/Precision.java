@@ -0,0 +1,10 @@
+package ch.kaiki.nn.neuralnet;
+
+/**
+ * The floating point precision a neural network computes with when the float[] overloads of predict and fit are used.
+ * DOUBLE converts float values and uses the double precision implementation, SINGLE keeps a float copy of the
+ * weights and propagates in single precision.
+ */
+public enum Precision {
+    DOUBLE,SINGLE
+}
@@ -0,0 +1,59 @@
+package ch.kaiki.nn.neuralnet;
+
+import java.util.List;
+
+/**
+ * The notification of one or more predictions of a neural network. If predictions were made faster than the
+ * listener was notified, they are coalesced into one event holding the node values of the most recent prediction.
+ */
+public class PredictionEvent {
+
+    private final NeuralNetwork source;
+    private final List<List<Double>> nodeValues;
+    private final int predictionCount;
+    private final long timestamp;
+
+    PredictionEvent(NeuralNetwork source, List<List<Double>> nodeValues, int predictionCount, long timestamp) {
+        this.source = source;
+        this.nodeValues = nodeValues;
+        this.predictionCount = predictionCount;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Returns the neural network which made the predictions.
+     *
+     * @return the neural network.
+     */
+    public NeuralNetwork getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the node values of all layers of the most recent prediction. Unlike
+     * NeuralNetwork.getCachedNodeValues(), the list is not changed by later predictions.
+     *
+     * @return an unmodifiable list of the node values per layer.
+     */
+    public List<List<Double>> getNodeValues() {
+        return nodeValues;
+    }
+
+    /**
+     * Returns the count of predictions coalesced into this event.
+     *
+     * @return the count of predictions since the previous event.
+     */
+    public int getPredictionCount() {
+        return predictionCount;
+    }
+
+    /**
+     * Returns the time of the most recent prediction in milliseconds since epoch.
+     *
+     * @return the timestamp.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
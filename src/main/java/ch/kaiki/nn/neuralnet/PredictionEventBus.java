@@ -0,0 +1,152 @@
+package ch.kaiki.nn.neuralnet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers prediction events to listeners without blocking the predicting thread. Every listener holds the node values
+ * of the most recent prediction and at most one scheduled notification. Predictions published in the meantime only
+ * replace these node values, so a burst of predictions results in a single event. Notifications of a listener are
+ * at least the configured interval apart, e.g. one frame of a UI.
+ * If no listener is registered, publishing a prediction costs a single volatile read.
+ */
+class PredictionEventBus {
+
+    private static final Logger LOG = Logger.getLogger("PredictionEventBus logger");
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "prediction-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final NeuralNetwork source;
+    private final long intervalNanos;
+    private volatile Subscription[] subscriptions = new Subscription[0];
+
+    PredictionEventBus(NeuralNetwork source, long intervalMillis) {
+        this.source = source;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    boolean hasListeners() {
+        return subscriptions.length > 0;
+    }
+
+    /**
+     * Adds a listener.
+     *
+     * @param key      the object to identify the listener by when removed, usually the listener itself.
+     * @param listener the listener to notify.
+     * @param executor the executor to notify the listener on.
+     */
+    synchronized void addListener(Object key, PredictionListener listener, Executor executor) {
+        Subscription[] tmp = new Subscription[subscriptions.length + 1];
+        System.arraycopy(subscriptions, 0, tmp, 0, subscriptions.length);
+        tmp[subscriptions.length] = new Subscription(key, listener, executor);
+        subscriptions = tmp;
+    }
+
+    synchronized void removeListener(Object key) {
+        List<Subscription> tmp = new ArrayList<>();
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.key.equals(key)) {
+                tmp.add(subscription);
+            }
+        }
+        subscriptions = tmp.toArray(new Subscription[0]);
+    }
+
+    /**
+     * Publishes a prediction to all listeners. The node values are copied, as the cache of the neural network
+     * is reused by the next prediction.
+     *
+     * @param nodeValues the cached node values of the prediction.
+     */
+    void publish(List<List<Double>> nodeValues) {
+        Subscription[] current = subscriptions;
+        if (current.length == 0) {
+            return;
+        }
+        Prediction prediction = new Prediction(Collections.unmodifiableList(new ArrayList<>(nodeValues)), System.currentTimeMillis());
+        for (Subscription subscription : current) {
+            subscription.offer(prediction);
+        }
+    }
+
+    private static class Prediction {
+        final List<List<Double>> nodeValues;
+        final long timestamp;
+
+        Prediction(List<List<Double>> nodeValues, long timestamp) {
+            this.nodeValues = nodeValues;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private class Subscription implements Runnable {
+        private final Object key;
+        private final PredictionListener listener;
+        private final Executor executor;
+        private final AtomicReference<Prediction> pending = new AtomicReference<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long lastDispatch = System.nanoTime() - intervalNanos;
+
+        Subscription(Object key, PredictionListener listener, Executor executor) {
+            this.key = key;
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        void offer(Prediction prediction) {
+            pending.set(prediction);
+            pendingCount.incrementAndGet();
+            if (scheduled.compareAndSet(false, true)) {
+                long delay = lastDispatch + intervalNanos - System.nanoTime();
+                try {
+                    if (delay > 0) {
+                        SCHEDULER.schedule(() -> executor.execute(this), delay, TimeUnit.NANOSECONDS);
+                    } else {
+                        executor.execute(this);
+                    }
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    LOG.log(Level.WARNING, "Prediction event was rejected by executor!", e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            // reset first, so a prediction published while dispatching schedules the next event
+            scheduled.set(false);
+            Prediction prediction = pending.getAndSet(null);
+            if (prediction == null) {
+                return;
+            }
+            lastDispatch = System.nanoTime();
+            int count = pendingCount.getAndSet(0);
+            try {
+                listener.onPrediction(new PredictionEvent(source, prediction.nodeValues, Math.max(count, 1), prediction.timestamp));
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Prediction listener failed!", e);
+            }
+        }
+    }
+
+    /**
+     * Returns the executor listeners are notified on by default, a single daemon thread shared by all neural networks.
+     *
+     * @return the default executor.
+     */
+    static Executor defaultExecutor() {
+        return SCHEDULER;
+    }
+}
@@ -0,0 +1,17 @@
+package ch.kaiki.nn.neuralnet;
+
+/**
+ * A listener to be notified about predictions of a neural network. Listeners are invoked asynchronously on their
+ * executor, and rapid predictions are coalesced into a single event.
+ */
+@FunctionalInterface
+public interface PredictionListener {
+
+    /**
+     * Called after one or more predictions.
+     *
+     * @param event the event holding the node values of the most recent prediction.
+     */
+    void onPrediction(PredictionEvent event);
+
+}
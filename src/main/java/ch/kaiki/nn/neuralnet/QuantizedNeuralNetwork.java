@@ -0,0 +1,336 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.data.BackPropData;
+import ch.kaiki.nn.data.Dataset;
+import ch.kaiki.nn.util.LoggerFactory;
+import ch.kaiki.nn.util.Rectifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This is an int8 quantized copy of a trained neural network for inference only. The weights of every layer are
+ * quantized per row with an own scale and zero point, the inputs of every layer with a scale and zero point calibrated
+ * over a representative data set. The dot products are accumulated as integers, only bias, activation and
+ * output are computed in floating point. The weights take a quarter of the memory of the original model.
+ * <p>
+ * A quantized neural network is immutable and may be used by multiple threads concurrently.
+ * Its outputs are compatible with NeuralNetwork.predict(), the loss of accuracy is reported at quantization.
+ */
+public class QuantizedNeuralNetwork {
+
+    private static final Logger LOG = LoggerFactory.getLogger("QuantizedNeuralNetwork logger");
+    private final QuantizedLayer[] layers;
+    private final int[] configuration;
+    private final double dropout;
+    private BackPropData referenceData;
+    private BackPropData quantizedData;
+
+    private QuantizedNeuralNetwork(QuantizedLayer[] layers, int[] configuration, double dropout) {
+        this.layers = layers;
+        this.configuration = configuration;
+        this.dropout = dropout;
+    }
+
+    /**
+     * Quantizes a neural network. The input ranges of all layers are calibrated with the training samples of the
+     * given data set. The accuracy of the original and the quantized network are evaluated on the validation samples
+     * (or on the training samples, if there are none) and the difference is logged.
+     *
+     * @param neuralNetwork the neural network to quantize
+     * @param dataset       the representative data set
+     * @return the quantized neural network
+     */
+    public static QuantizedNeuralNetwork quantize(NeuralNetwork neuralNetwork, Dataset dataset) {
+        if (neuralNetwork == null || dataset == null) {
+            throw new NullPointerException("neuralNetwork and dataset are required!");
+        }
+        double[][] inputSet = dataset.getXValidation();
+        double[][] expectedOutputSet = dataset.getYValidation();
+        if (inputSet == null || inputSet.length == 0) {
+            inputSet = dataset.getX();
+            expectedOutputSet = dataset.getY();
+        }
+        QuantizedNeuralNetwork quantizedNeuralNetwork = quantize(neuralNetwork, dataset.getX());
+        quantizedNeuralNetwork.evaluate(neuralNetwork, inputSet, expectedOutputSet);
+        return quantizedNeuralNetwork;
+    }
+
+    /**
+     * Quantizes a neural network. The input ranges of all layers are calibrated with the given samples.
+     *
+     * @param neuralNetwork   the neural network to quantize
+     * @param calibrationSet  the representative input samples
+     * @return the quantized neural network
+     */
+    public static QuantizedNeuralNetwork quantize(NeuralNetwork neuralNetwork, double[][] calibrationSet) {
+        if (neuralNetwork == null || calibrationSet == null) {
+            throw new NullPointerException("neuralNetwork and calibrationSet are required!");
+        } else if (calibrationSet.length == 0) {
+            throw new IllegalArgumentException("calibrationSet must not be empty!");
+        }
+        List<Layer> layerList;
+        int[] configuration;
+        synchronized (neuralNetwork) {
+            layerList = new ArrayList<>();
+            for (Layer layer : neuralNetwork.getLayers()) {
+                layerList.add(layer.copy());
+            }
+            configuration = neuralNetwork.getConfiguration().clone();
+        }
+
+        // record the value range of the input of every layer
+        double[] min = new double[layerList.size()];
+        double[] max = new double[layerList.size()];
+        for (double[] sample : calibrationSet) {
+            if (sample == null) {
+                throw new NullPointerException("calibration samples must not be null!");
+            } else if (sample.length != configuration[0]) {
+                throw new IllegalArgumentException("input node count does not match neural network configuration! received " + sample.length + " instead of " + configuration[0] + " input nodes.");
+            }
+            double[] tmp = sample;
+            for (int i = 0; i < layerList.size(); i++) {
+                for (double value : tmp) {
+                    min[i] = Math.min(min[i], value);
+                    max[i] = Math.max(max[i], value);
+                }
+                double[] out = new double[configuration[i + 1]];
+                layerList.get(i).forward(tmp, out, NumericPolicy.UNCHECKED, null);
+                tmp = out;
+            }
+        }
+
+        QuantizedLayer[] layers = new QuantizedLayer[layerList.size()];
+        for (int i = 0; i < layers.length; i++) {
+            layers[i] = new QuantizedLayer(layerList.get(i), min[i], max[i]);
+        }
+        return new QuantizedNeuralNetwork(layers, configuration, neuralNetwork.getDropoutFactor());
+    }
+
+    /**
+     * This method will take input nodes as parameter and return the predicted output nodes.
+     *
+     * @param inputNodes the input nodes as double array
+     * @return the predicted output nodes as Double List
+     */
+    public List<Double> predict(double[] inputNodes) {
+        double[] outputNodes = new double[configuration[configuration.length - 1]];
+        predict(inputNodes, outputNodes);
+        List<Double> result = new ArrayList<>(outputNodes.length);
+        for (double value : outputNodes) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    /**
+     * This method will take input nodes as parameter and write the predicted output nodes to the output array.
+     *
+     * @param inputNodes  the input nodes as double array
+     * @param outputNodes the array to write the predicted output nodes to
+     */
+    public void predict(double[] inputNodes, double[] outputNodes) {
+        if (inputNodes == null || outputNodes == null) {
+            throw new NullPointerException("inputNodes and outputNodes are required!");
+        } else if (inputNodes.length != configuration[0]) {
+            throw new IllegalArgumentException("input node count does not match neural network configuration! received " + inputNodes.length + " instead of " + configuration[0] + " input nodes.");
+        } else if (outputNodes.length != configuration[configuration.length - 1]) {
+            throw new IllegalArgumentException("output node count does not match neural network configuration! received " + outputNodes.length + " instead of " + configuration[configuration.length - 1] + " output nodes.");
+        }
+        double[] tmp = inputNodes;
+        for (QuantizedLayer layer : layers) {
+            double[] out = new double[layer.rows];
+            layer.forward(tmp, out);
+            tmp = out;
+        }
+        for (int i = 0; i < tmp.length; i++) {
+            outputNodes[i] = dropout > 0 ? tmp[i] / dropout : tmp[i];
+        }
+    }
+
+    /**
+     * Evaluates the original and this quantized neural network on the given samples and logs the differences
+     * of cost and accuracy.
+     *
+     * @param neuralNetwork     the original neural network
+     * @param inputSet          the input samples
+     * @param expectedOutputSet the expected output samples
+     */
+    public void evaluate(NeuralNetwork neuralNetwork, double[][] inputSet, double[][] expectedOutputSet) {
+        if (neuralNetwork == null || inputSet == null || expectedOutputSet == null) {
+            throw new NullPointerException("neuralNetwork, inputSet and expectedOutputSet are required!");
+        } else if (inputSet.length != expectedOutputSet.length || inputSet.length == 0) {
+            throw new IllegalArgumentException("inputSet and expectedOutputSet must have the same, positive length!");
+        }
+        CostFunction costFunction = neuralNetwork.getCostFunction();
+        BackPropData reference = new BackPropData();
+        BackPropData quantized = new BackPropData();
+        double[] output = new double[configuration[configuration.length - 1]];
+        for (int i = 0; i < inputSet.length; i++) {
+            Matrix expected = Matrix.fromArray(expectedOutputSet[i]);
+            Matrix referenceOutput = Matrix.fromArray(neuralNetwork.predictBatch(new double[][]{inputSet[i]})[0]);
+            reference.add(i, costFunction.cost(referenceOutput, expected), Matrix.asArray(referenceOutput), expectedOutputSet[i]);
+            predict(inputSet[i], output);
+            Matrix quantizedOutput = Matrix.fromArray(output);
+            quantized.add(i, costFunction.cost(quantizedOutput, expected), Matrix.asArray(quantizedOutput), expectedOutputSet[i]);
+        }
+        referenceData = reference;
+        quantizedData = quantized;
+        LOG.log(Level.INFO, "Quantization evaluated on " + inputSet.length + " samples: accuracy delta " + getAccuracyDelta() + ", cost delta " + getCostDelta() + ".");
+    }
+
+    /**
+     * Returns the metrics of the original neural network collected by the last evaluation.
+     *
+     * @return the metrics of the original neural network or null, if not evaluated yet.
+     */
+    public BackPropData getReferenceData() {
+        return referenceData;
+    }
+
+    /**
+     * Returns the metrics of this quantized neural network collected by the last evaluation.
+     *
+     * @return the metrics of the quantized neural network or null, if not evaluated yet.
+     */
+    public BackPropData getQuantizedData() {
+        return quantizedData;
+    }
+
+    /**
+     * Returns the accuracy of the quantized minus the accuracy of the original neural network over all evaluated samples.
+     *
+     * @return the accuracy delta or NaN, if not evaluated yet.
+     */
+    public double getAccuracyDelta() {
+        if (referenceData == null) {
+            return Double.NaN;
+        }
+        return quantizedData.getLast().getAccuracySum() - referenceData.getLast().getAccuracySum();
+    }
+
+    /**
+     * Returns the summed up cost of the quantized minus the summed up cost of the original neural network over all evaluated samples.
+     *
+     * @return the cost delta or NaN, if not evaluated yet.
+     */
+    public double getCostDelta() {
+        if (referenceData == null) {
+            return Double.NaN;
+        }
+        return quantizedData.getLast().getCostSum() - referenceData.getLast().getCostSum();
+    }
+
+    /**
+     * Returns the size of the quantized weights and biases in bytes, including scales and zero points.
+     *
+     * @return the size in bytes.
+     */
+    public long getByteSize() {
+        long size = 0;
+        for (QuantizedLayer layer : layers) {
+            size += layer.weight.length + (layer.rows * (4L + 4L + 4L + 4L)) + 8L;
+        }
+        return size;
+    }
+
+    /**
+     * Getter for the configuration of the quantized neural network.
+     * @return the node count of every layer.
+     */
+    public int[] getConfiguration() {
+        return configuration.clone();
+    }
+
+    /**
+     * The quantized weights and biases of a single layer.
+     * A real value is represented as scale * (q - zeroPoint), where q is a signed byte.
+     */
+    private static class QuantizedLayer {
+        private final Rectifier rectifier;
+        private final int rows;
+        private final int cols;
+        private final byte[] weight;
+        private final float[] weightScale;
+        private final int[] weightZeroPoint;
+        private final int[] weightRowSum;
+        // the bias is kept as int32 in the scale of the accumulator, as usual for int8 inference
+        private final int[] bias;
+        private final float inputScale;
+        private final int inputZeroPoint;
+
+        QuantizedLayer(Layer layer, double inputMin, double inputMax) {
+            rectifier = layer.rectifier;
+            rows = layer.weight.getRows();
+            cols = layer.weight.getCols();
+            weight = new byte[rows * cols];
+            weightScale = new float[rows];
+            weightZeroPoint = new int[rows];
+            weightRowSum = new int[rows];
+            bias = new int[rows];
+
+            inputScale = scale(inputMin, inputMax);
+            inputZeroPoint = zeroPoint(inputMin, inputScale);
+
+            double[] w = Matrix.asArray(layer.weight);
+            double[] b = Matrix.asArray(layer.bias);
+            for (int i = 0; i < rows; i++) {
+                int row = i * cols;
+                double min = 0;
+                double max = 0;
+                for (int j = 0; j < cols; j++) {
+                    min = Math.min(min, w[row + j]);
+                    max = Math.max(max, w[row + j]);
+                }
+                weightScale[i] = scale(min, max);
+                weightZeroPoint[i] = zeroPoint(min, weightScale[i]);
+                int sum = 0;
+                for (int j = 0; j < cols; j++) {
+                    byte q = quantize(w[row + j], weightScale[i], weightZeroPoint[i]);
+                    weight[row + j] = q;
+                    sum += q;
+                }
+                weightRowSum[i] = sum;
+                double accumulatorScale = (double) weightScale[i] * inputScale;
+                bias[i] = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.round(b[i] / accumulatorScale)));
+            }
+        }
+
+        void forward(double[] in, double[] out) {
+            byte[] x = new byte[cols];
+            int inputSum = 0;
+            for (int j = 0; j < cols; j++) {
+                x[j] = quantize(in[j], inputScale, inputZeroPoint);
+                inputSum += x[j];
+            }
+            for (int i = 0; i < rows; i++) {
+                int row = i * cols;
+                int acc = 0;
+                for (int j = 0; j < cols; j++) {
+                    acc += weight[row + j] * x[j];
+                }
+                // sum of (w - zw) * (x - zx), expanded to keep the inner loop free of offsets
+                int zw = weightZeroPoint[i];
+                acc += cols * zw * inputZeroPoint - inputZeroPoint * weightRowSum[i] - zw * inputSum;
+                out[i] = (double) weightScale[i] * inputScale * ((long) acc + bias[i]);
+            }
+            rectifier.activateInPlace(out, 0, out.length);
+        }
+
+        private static float scale(double min, double max) {
+            double scale = (max - min) / 255;
+            return scale == 0 ? 1 : (float) scale;
+        }
+
+        private static int zeroPoint(double min, float scale) {
+            return (int) Math.max(-128, Math.min(127, Math.round(-128 - min / scale)));
+        }
+
+        private static byte quantize(double value, float scale, int zeroPoint) {
+            long q = Math.round(value / scale) + zeroPoint;
+            return (byte) Math.max(-128, Math.min(127, q));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.util.LoggerFactory;
+import ch.kaiki.nn.util.Rectifier;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Optional SIMD implementations of the hot Matrix kernels. The implementation VectorKernels is based on the
+ * Vector API (jdk.incubator.vector) and is packed as Java 17 class of the multi-release jar (see profile 'simd' in
+ * the pom.xml). It is only used if the runtime supports it, i.e. on Java 17 or later with the module
+ * jdk.incubator.vector added (--add-modules jdk.incubator.vector). Otherwise, Matrix falls back to its scalar loops.
+ * The backend can be disabled with the system property ch.kaiki.nn.simd=false.
+ */
+abstract class SimdKernels {
+
+    private static final Logger LOG = LoggerFactory.getLogger("SimdKernels logger");
+
+    /**
+     * Loads the SIMD backend if it is supported by the runtime.
+     *
+     * @return the SIMD kernels or null, if not supported.
+     */
+    static SimdKernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("ch.kaiki.nn.simd", "true"))) {
+            return null;
+        }
+        try {
+            SimdKernels kernels = (SimdKernels) Class.forName("ch.kaiki.nn.neuralnet.VectorKernels").getDeclaredConstructor().newInstance();
+            LOG.log(Level.INFO, "SIMD backend loaded: " + kernels.getDescription());
+            return kernels;
+        } catch (Throwable e) {
+            LOG.log(Level.FINE, "SIMD backend not available, scalar kernels are used.", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return a short description of the backend, e.g. the vector width.
+     */
+    abstract String getDescription();
+
+    /**
+     * Multiplies a row-major matrix with a vector: out[i] = sum(a[i][k] * x[k]).
+     */
+    abstract void gemv(double[] a, int rows, int cols, double[] x, double[] out);
+
+    /**
+     * Computes a row of an output tile of the blocked matrix multiplication:
+     * out[rowC + j] += sum(a[rowA + k] * b[k * m + j]) for k in [depthStart, depthEnd) and j in [colStart, colEnd).
+     */
+    abstract void gemmRow(double[] a, int rowA, int depthStart, int depthEnd, double[] b, int m, int colStart, int colEnd, double[] out, int rowC);
+
+    /**
+     * Adds the same value to a range of the buffer, e.g. the bias of a node to all samples.
+     */
+    abstract void addScalar(double[] buf, int off, int len, double value);
+
+    /**
+     * Sums up the exponents of a range of the buffer.
+     */
+    abstract double expSum(double[] buf, int off, int len);
+
+    /**
+     * Activates a range of the buffer in place.
+     *
+     * @return false, if the rectifier is not supported. The buffer is not modified in this case.
+     */
+    abstract boolean activate(Rectifier rectifier, double[] buf, int off, int len);
+}
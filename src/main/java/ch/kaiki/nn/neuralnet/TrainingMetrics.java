@@ -0,0 +1,260 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.metrics.Histogram;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timers and counters of the training of a neural network. If enabled by the builder, every weight update records
+ * the time spent in forward propagation, backward propagation (including the cost and loss computation) and the
+ * update of the weights, as well as the time per layer and the bytes allocated. Durations are recorded in
+ * nanoseconds. The time per layer is recorded in double precision only. If a batch is split into shards by parallelism,
+ * forward and backward propagation are recorded per shard.
+ * All values can be read while the neural network is fitted by another thread.
+ */
+public class TrainingMetrics {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_SUPPORTED = isAllocationSupported();
+
+    private final Histogram forwardTime = new Histogram();
+    private final Histogram backwardTime = new Histogram();
+    private final Histogram updateTime = new Histogram();
+    private final Histogram allocatedBytes = new Histogram();
+    private final Histogram[] layerForwardTime;
+    private final Histogram[] layerBackwardTime;
+    private final LongAdder sampleCount = new LongAdder();
+    private final LongAdder trainingTime = new LongAdder();
+    private final LongAdder pendingAllocation = new LongAdder();
+
+    TrainingMetrics(int layerCount) {
+        layerForwardTime = new Histogram[layerCount];
+        layerBackwardTime = new Histogram[layerCount];
+        for (int i = 0; i < layerCount; i++) {
+            layerForwardTime[i] = new Histogram();
+            layerBackwardTime[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Returns the time of the forward propagation per weight update.
+     *
+     * @return the histogram of durations in nanoseconds.
+     */
+    public Histogram getForwardTime() {
+        return forwardTime;
+    }
+
+    /**
+     * Returns the time of the backward propagation per weight update, including the computation of cost and loss.
+     *
+     * @return the histogram of durations in nanoseconds.
+     */
+    public Histogram getBackwardTime() {
+        return backwardTime;
+    }
+
+    /**
+     * Returns the time to apply the gradient to the weights and biases per weight update.
+     *
+     * @return the histogram of durations in nanoseconds.
+     */
+    public Histogram getUpdateTime() {
+        return updateTime;
+    }
+
+    /**
+     * Returns the time of the forward propagation through a single layer per weight update.
+     *
+     * @param layer the index of the layer, starting with 0 for the first hidden layer.
+     * @return the histogram of durations in nanoseconds.
+     */
+    public Histogram getLayerForwardTime(int layer) {
+        return layerForwardTime[layer];
+    }
+
+    /**
+     * Returns the time of the backward propagation through a single layer per weight update.
+     *
+     * @param layer the index of the layer, starting with 0 for the first hidden layer.
+     * @return the histogram of durations in nanoseconds.
+     */
+    public Histogram getLayerBackwardTime(int layer) {
+        return layerBackwardTime[layer];
+    }
+
+    /**
+     * Returns the bytes allocated per weight update by all threads involved. Nothing is recorded if the
+     * runtime does not support measuring allocations per thread.
+     *
+     * @return the histogram of allocated bytes.
+     */
+    public Histogram getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the count of layers with timers.
+     *
+     * @return the layer count.
+     */
+    public int getLayerCount() {
+        return layerForwardTime.length;
+    }
+
+    /**
+     * Returns the count of fitted samples.
+     *
+     * @return the sample count.
+     */
+    public long getSampleCount() {
+        return sampleCount.sum();
+    }
+
+    /**
+     * Returns the count of weight updates.
+     *
+     * @return the update count.
+     */
+    public long getUpdateCount() {
+        return updateTime.getCount();
+    }
+
+    /**
+     * Returns the count of fitted samples per second of training time.
+     *
+     * @return the throughput or 0 if nothing was fitted yet.
+     */
+    public double getSamplesPerSecond() {
+        long nanos = trainingTime.sum();
+        return nanos == 0 ? 0 : sampleCount.sum() / (nanos / 1e9);
+    }
+
+    /**
+     * Returns all metrics as flat map, e.g. to publish them to a MetricsSink. Histograms are summarized by count,
+     * mean, 50th and 99th percentile and maximum.
+     *
+     * @return the metric values by metric name.
+     */
+    public Map<String, Number> toMap() {
+        Map<String, Number> map = new LinkedHashMap<>();
+        map.put("samples", getSampleCount());
+        map.put("updates", getUpdateCount());
+        map.put("samples_per_second", getSamplesPerSecond());
+        put(map, "forward_time_ns", forwardTime);
+        put(map, "backward_time_ns", backwardTime);
+        put(map, "update_time_ns", updateTime);
+        put(map, "allocated_bytes", allocatedBytes);
+        for (int i = 0; i < layerForwardTime.length; i++) {
+            put(map, "layer_" + i + ".forward_time_ns", layerForwardTime[i]);
+            put(map, "layer_" + i + ".backward_time_ns", layerBackwardTime[i]);
+        }
+        return map;
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset() {
+        forwardTime.reset();
+        backwardTime.reset();
+        updateTime.reset();
+        allocatedBytes.reset();
+        for (int i = 0; i < layerForwardTime.length; i++) {
+            layerForwardTime[i].reset();
+            layerBackwardTime[i].reset();
+        }
+        sampleCount.reset();
+        trainingTime.reset();
+        pendingAllocation.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "samples=" + getSampleCount() + ", updates=" + getUpdateCount() + ", samples/s=" + getSamplesPerSecond()
+                + ", forward [" + forwardTime + "], backward [" + backwardTime + "], update [" + updateTime + "]";
+    }
+
+    void recordForward(long nanos) {
+        forwardTime.record(nanos);
+    }
+
+    void recordBackward(long nanos) {
+        backwardTime.record(nanos);
+    }
+
+    void recordUpdate(long nanos) {
+        updateTime.record(nanos);
+    }
+
+    void recordLayerForward(int layer, long nanos) {
+        layerForwardTime[layer].record(nanos);
+    }
+
+    void recordLayerBackward(int layer, long nanos) {
+        layerBackwardTime[layer].record(nanos);
+    }
+
+    void recordSamples(int samples, long nanos) {
+        sampleCount.add(samples);
+        trainingTime.add(nanos);
+    }
+
+    /**
+     * Adds bytes allocated by a helper thread to the weight update in progress.
+     */
+    void addPendingAllocation(long bytes) {
+        if (bytes > 0) {
+            pendingAllocation.add(bytes);
+        }
+    }
+
+    /**
+     * Records the bytes allocated by the updating thread together with the pending allocations of helper threads.
+     */
+    void recordAllocation(long bytes) {
+        long pending = pendingAllocation.sumThenReset();
+        if (bytes >= 0) {
+            allocatedBytes.record(bytes + pending);
+        }
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far.
+     *
+     * @return the allocated bytes or -1 if not supported.
+     */
+    static long allocatedBytes() {
+        if (!ALLOCATION_SUPPORTED) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static boolean isAllocationSupported() {
+        try {
+            if (THREADS instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+                if (threads.isThreadAllocatedMemorySupported() && !threads.isThreadAllocatedMemoryEnabled()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                }
+                return threads.isThreadAllocatedMemoryEnabled();
+            }
+        } catch (LinkageError | UnsupportedOperationException e) {
+            // not available on this runtime
+        }
+        return false;
+    }
+
+    private static void put(Map<String, Number> map, String name, Histogram histogram) {
+        map.put(name + ".count", histogram.getCount());
+        map.put(name + ".mean", histogram.getMean());
+        map.put(name + ".p50", histogram.getPercentile(50));
+        map.put(name + ".p99", histogram.getPercentile(99));
+        map.put(name + ".max", histogram.getMax());
+    }
+}
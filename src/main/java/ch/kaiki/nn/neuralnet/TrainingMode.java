@@ -0,0 +1,10 @@
+package ch.kaiki.nn.neuralnet;
+
+/**
+ * Decides how the samples of a training run are distributed among the threads of a neural network.
+ * SYNCHRONOUS sums up the gradients of a batch and applies them once, HOGWILD lets every thread apply its
+ * gradients to the shared weights immediately and without locks.
+ */
+public enum TrainingMode {
+    SYNCHRONOUS,HOGWILD
+}
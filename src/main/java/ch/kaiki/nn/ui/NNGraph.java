@@ -1,5 +1,6 @@
 package ch.kaiki.nn.ui;
 
+import javafx.application.Platform;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -7,6 +8,7 @@ import javafx.scene.text.FontPosture;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.TextAlignment;
 import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import ch.kaiki.nn.neuralnet.PredictionListener;
 import ch.kaiki.nn.ui.color.NNGraphColor;
 
 import java.util.*;
@@ -48,6 +50,10 @@ public class NNGraph {
     private NNGraphColor colors = new NNGraphColor(TRANSPARENT, BLACK, BLACK, ROYALBLUE.brighter(), GAINSBORO, STEELBLUE, INDIANRED, STEELBLUE.darker(), INDIANRED.darker());
     private List<List<GraphNode>> graph = new ArrayList<>();
     private List<List<Double>> nodeValues = new ArrayList<>();
+    private final PredictionListener predictionListener = e -> {
+        nodeValues = e.getNodeValues();
+        paintNetwork();
+    };
 
     /**
      * The constructor will prepare the graph. Initially, the display will be blank. It will update as soon
@@ -197,7 +203,7 @@ public class NNGraph {
      * are not relevant anymore.
      */
     public void refresh() {
-        nodeValues.clear();
+        nodeValues = new ArrayList<>();
         paintNetwork();
     }
 
@@ -208,10 +214,14 @@ public class NNGraph {
      * @return this NNGraph (for chaining).
      */
     public NNGraph setNeuralNetwork(NeuralNetwork neuralNetwork) {
-        nodeValues.clear();
         if (neuralNetwork == null) {
             throw new NullPointerException("NeuralNetwork must not be null!");
         }
+        // the node values of the last prediction are an unmodifiable list of the event, so they are replaced
+        nodeValues = new ArrayList<>();
+        if (this.neuralNetwork != null) {
+            this.neuralNetwork.removePredictionListener(predictionListener);
+        }
         this.neuralNetwork = neuralNetwork;
         int[] configuration = neuralNetwork.getConfiguration();
         int[] inNodes = new int[configuration[0]];
@@ -228,10 +238,7 @@ public class NNGraph {
         if (outputNodeLabels == null || outNodes != outputNodeLabels.length) {
             outputNodeLabels = new String[outNodes];
         }
-        neuralNetwork.addListener(e -> {
-            nodeValues = neuralNetwork.getCachedNodeValues();
-            paintNetwork();
-        });
+        neuralNetwork.addPredictionListener(predictionListener, Platform::runLater);
         buildGraph();
         return this;
     }
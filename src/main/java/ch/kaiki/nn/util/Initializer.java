@@ -1,5 +1,8 @@
 package ch.kaiki.nn.util;
 
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
 /**
  * Ths enmum defines different initializers for initializing the matrix components of a neural network.
  */
@@ -10,8 +13,13 @@ public enum Initializer {
      */
     STATIC("Static initialization (scaled from 0 to 1)") {
         @Override
-        public double getValue(int fanIn, int fanOut, boolean isBias) {
-            return Math.random();
+        public double getValue(int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+            return random.nextDouble();
+        }
+
+        @Override
+        public void fill(double[] target, int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+            RandomSource.fill(target, 0, 1, random);
         }
     },
     /**
@@ -19,8 +27,13 @@ public enum Initializer {
      */
     RANDOM("Random initialization (between -1 and 1)") {
         @Override
-        public double getValue(int fanIn, int fanOut, boolean isBias) {
-            return ((Math.random() * 2) - 1);
+        public double getValue(int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+            return ((random.nextDouble() * 2) - 1);
+        }
+
+        @Override
+        public void fill(double[] target, int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+            RandomSource.fill(target, -1, 1, random);
         }
     },
     /**
@@ -29,11 +42,21 @@ public enum Initializer {
      */
     XAVIER("Xavier initialization") {
         @Override
-        public double getValue(int fanIn, int fanOut, boolean isBias) {
+        public double getValue(int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
             if (isBias) {
                 return 0;
             }
-            return ((Math.random() * 2) - 1) * (Math.sqrt(6) / Math.sqrt(fanIn + fanOut));
+            return ((random.nextDouble() * 2) - 1) * (Math.sqrt(6) / Math.sqrt(fanIn + fanOut));
+        }
+
+        @Override
+        public void fill(double[] target, int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+            if (isBias) {
+                Arrays.fill(target, 0);
+                return;
+            }
+            double scale = Math.sqrt(6) / Math.sqrt(fanIn + fanOut);
+            RandomSource.fill(target, -scale, scale, random);
         }
     },
     /**
@@ -42,11 +65,65 @@ public enum Initializer {
      */
     KAIMING("Kaimin initialization") {
         @Override
-        public double getValue(int fanIn, int fanOut, boolean isBias) {
+        public double getValue(int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+            if (isBias) {
+                return 0;
+            }
+            return ((random.nextDouble() * 2) - 1) * Math.sqrt(fanIn / 2);
+        }
+
+        @Override
+        public void fill(double[] target, int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+            if (isBias) {
+                Arrays.fill(target, 0);
+                return;
+            }
+            double scale = Math.sqrt(fanIn / 2);
+            RandomSource.fill(target, -scale, scale, random);
+        }
+    },
+    /**
+     * The He normal initializer will return a normally distributed value with mean 0 and
+     * standard deviation sqrt(2 / fan in). It suits ReLU and its variants. Bias weights will be set to 0.
+     */
+    HE_NORMAL("He normal initialization") {
+        @Override
+        public double getValue(int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+            if (isBias) {
+                return 0;
+            }
+            return RandomSource.nextGaussian(random) * Math.sqrt(2.0 / fanIn);
+        }
+
+        @Override
+        public void fill(double[] target, int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+            if (isBias) {
+                Arrays.fill(target, 0);
+                return;
+            }
+            RandomSource.fillGaussian(target, 0, Math.sqrt(2.0 / fanIn), random);
+        }
+    },
+    /**
+     * The LeCun normal initializer will return a normally distributed value with mean 0 and
+     * standard deviation sqrt(1 / fan in). It suits tanh, sigmoid and SELU. Bias weights will be set to 0.
+     */
+    LECUN_NORMAL("LeCun normal initialization") {
+        @Override
+        public double getValue(int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
             if (isBias) {
                 return 0;
             }
-            return ((Math.random() * 2) - 1) * Math.sqrt(fanIn / 2);
+            return RandomSource.nextGaussian(random) * Math.sqrt(1.0 / fanIn);
+        }
+
+        @Override
+        public void fill(double[] target, int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+            if (isBias) {
+                Arrays.fill(target, 0);
+                return;
+            }
+            RandomSource.fillGaussian(target, 0, Math.sqrt(1.0 / fanIn), random);
         }
     };
 
@@ -75,7 +152,38 @@ public enum Initializer {
      * @return the initialization value for a matrix component.
      */
     public double getValue(int fanIn, int fanOut, boolean isBias) {
+        return getValue(fanIn, fanOut, isBias, RandomSource.getDefault().current());
+    }
+
+    /**
+     * Returns initial value for a weight or bias matrix component drawn from the given random generator.
+     * Depending on the chosen enum, not all parameters will be read.
+     *
+     * @param fanIn  the fan in is the count of incoming values.
+     * @param fanOut the fan out is the count of outgoing values.
+     * @param isBias this boolean indicates if the value is used to initialize a bias or a weight.
+     * @param random the random generator.
+     * @return the initialization value for a matrix component.
+     */
+    public double getValue(int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
         return 0;
     }
 
+    /**
+     * Fills a whole weight or bias matrix with initial values. The scale is computed once per call and the values
+     * are drawn in one pass, which is considerably faster than calling getValue per component.
+     * Depending on the chosen enum, not all parameters will be read.
+     *
+     * @param target the components of the matrix to fill.
+     * @param fanIn  the fan in is the count of incoming values.
+     * @param fanOut the fan out is the count of outgoing values.
+     * @param isBias this boolean indicates if the values are used to initialize a bias or a weight.
+     * @param random the random generator.
+     */
+    public void fill(double[] target, int fanIn, int fanOut, boolean isBias, SplittableRandom random) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] = getValue(fanIn, fanOut, isBias, random);
+        }
+    }
+
 }
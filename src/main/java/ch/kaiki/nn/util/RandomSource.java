@@ -0,0 +1,148 @@
+package ch.kaiki.nn.util;
+
+import java.util.SplittableRandom;
+
+/**
+ * The random source provides the random numbers for initialization, dropout, mutation, crossover and selection.
+ * Every thread draws from its own SplittableRandom stream, which is split from a master generator on first use,
+ * so threads do not contend on a shared generator as they do with Math.random().
+ * <p>
+ * If a seed is given, all streams are derived from it: a run is reproducible as long as the threads draw their
+ * random numbers in the same order, e.g. if a neural network is initialized, mutated and trained by a single thread.
+ * Tasks running on pools can be made reproducible by passing a stream created by split() to each task.
+ */
+public class RandomSource {
+
+    private static final RandomSource DEFAULT = new RandomSource();
+
+    private final SplittableRandom master;
+    private final Long seed;
+    private final ThreadLocal<SplittableRandom> streams = ThreadLocal.withInitial(this::split);
+
+    /**
+     * Creates a random source with a random seed.
+     */
+    public RandomSource() {
+        this.master = new SplittableRandom();
+        this.seed = null;
+    }
+
+    /**
+     * Creates a random source deriving all streams from the given seed.
+     *
+     * @param seed the master seed.
+     */
+    public RandomSource(long seed) {
+        this.master = new SplittableRandom(seed);
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the random source shared by all neural networks without a random source of their own.
+     *
+     * @return the default random source.
+     */
+    public static RandomSource getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the stream of the current thread.
+     *
+     * @return the random generator of the current thread.
+     */
+    public SplittableRandom current() {
+        return streams.get();
+    }
+
+    /**
+     * Splits a new independent stream from the master generator, e.g. to hand it over to a task.
+     *
+     * @return a new random generator.
+     */
+    public synchronized SplittableRandom split() {
+        return master.split();
+    }
+
+    /**
+     * Returns the master seed.
+     *
+     * @return the seed or null if the seed was chosen randomly.
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns a random value between 0.0 (inclusive) and 1.0 (exclusive) from the stream of the current thread.
+     *
+     * @return the random value.
+     */
+    public double nextDouble() {
+        return streams.get().nextDouble();
+    }
+
+    /**
+     * Returns a random value between 0 (inclusive) and the given bound (exclusive) from the stream of the current thread.
+     *
+     * @param bound the upper bound. Must be above 0.
+     * @return the random value.
+     */
+    public int nextInt(int bound) {
+        return streams.get().nextInt(bound);
+    }
+
+    /**
+     * Fills the target array with uniformly distributed values between origin (inclusive) and bound (exclusive).
+     *
+     * @param target the array to fill.
+     * @param origin the lower bound.
+     * @param bound  the upper bound.
+     * @param random the random generator to draw from.
+     */
+    public static void fill(double[] target, double origin, double bound, SplittableRandom random) {
+        double range = bound - origin;
+        for (int i = 0; i < target.length; i++) {
+            target[i] = origin + random.nextDouble() * range;
+        }
+    }
+
+    /**
+     * Fills the target array with normally distributed values of the given mean and standard deviation.
+     *
+     * @param target            the array to fill.
+     * @param mean              the mean.
+     * @param standardDeviation the standard deviation.
+     * @param random            the random generator to draw from.
+     */
+    public static void fillGaussian(double[] target, double mean, double standardDeviation, SplittableRandom random) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] = mean + standardDeviation * nextGaussian(random);
+        }
+    }
+
+    /**
+     * Returns a normally distributed value with mean 0 and standard deviation 1, as SplittableRandom does not
+     * provide one.
+     *
+     * @param random the random generator to draw from.
+     * @return the random value.
+     */
+    public static double nextGaussian(SplittableRandom random) {
+        // Marsaglia polar method
+        double u;
+        double v;
+        double s;
+        do {
+            u = random.nextDouble() * 2 - 1;
+            v = random.nextDouble() * 2 - 1;
+            s = u * u + v * v;
+        } while (s >= 1 || s == 0);
+        return u * Math.sqrt(-2 * Math.log(s) / s);
+    }
+
+    @Override
+    public String toString() {
+        return seed == null ? "random seed" : "seed " + seed;
+    }
+}
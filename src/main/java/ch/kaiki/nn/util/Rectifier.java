@@ -1,5 +1,6 @@
 package ch.kaiki.nn.util;
 
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,6 +25,15 @@ public enum Rectifier {
         public double derive(double value) {
             return 1;
         }
+
+        @Override
+        public void activateInPlace(double[] buf, int off, int len) {
+        }
+
+        @Override
+        public void deriveInPlace(double[] buf, int off, int len) {
+            Arrays.fill(buf, off, off + len, 1);
+        }
     },
     /**
      * The rectified linear unit is linear growth for values above 0 and 0 for values less or equal to 0.
@@ -42,6 +52,20 @@ public enum Rectifier {
         public double derive(double value) {
             return value > 0 ? 1 : 0;
         }
+
+        @Override
+        public void activateInPlace(double[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                buf[i] = buf[i] > 0 ? buf[i] : 0;
+            }
+        }
+
+        @Override
+        public void deriveInPlace(double[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                buf[i] = buf[i] > 0 ? 1 : 0;
+            }
+        }
     },
     /**
      * The leaky rectified linear unit is linear growth for values above 0 and alpha=0.2 for values less or equal to 0.
@@ -60,6 +84,20 @@ public enum Rectifier {
         public double derive(double value) {
             return value > 0 ? 1 : 0.01;
         }
+
+        @Override
+        public void activateInPlace(double[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                buf[i] = buf[i] > 0 ? buf[i] : buf[i] * 0.01;
+            }
+        }
+
+        @Override
+        public void deriveInPlace(double[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                buf[i] = buf[i] > 0 ? 1 : 0.01;
+            }
+        }
     },
     /**
      * The sigmoid is a common activation function as it performs well and its results are quite accurate.
@@ -77,6 +115,20 @@ public enum Rectifier {
         public double derive(double value) {
             return value * (1 - value);
         }
+
+        @Override
+        public void activateInPlace(double[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                buf[i] = 1 / (1 + Math.exp(-buf[i]));
+            }
+        }
+
+        @Override
+        public void deriveInPlace(double[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                buf[i] = buf[i] * (1 - buf[i]);
+            }
+        }
     },
     /**
      * The sigmoid is a common activation function as it performs well and its results are quite accurate.
@@ -175,6 +227,20 @@ public enum Rectifier {
         public double derive(double value) {
             return 1 - (value * value);
         }
+
+        @Override
+        public void activateInPlace(double[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                buf[i] = Math.tanh(buf[i]);
+            }
+        }
+
+        @Override
+        public void deriveInPlace(double[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                buf[i] = 1 - (buf[i] * buf[i]);
+            }
+        }
     },
     /**
      * The exponential linear unit works approximately like RELU, except for negative inputs, where
@@ -291,6 +357,17 @@ public enum Rectifier {
             return 1;
         }
 
+        @Override
+        public void activateInPlace(double[] buf, int off, int len) {
+            double sum = 0;
+            for (int i = off; i < off + len; i++) {
+                sum += Math.exp(buf[i]);
+            }
+            for (int i = off; i < off + len; i++) {
+                buf[i] = activate(buf[i], sum);
+            }
+        }
+
         @Override
         public double derive(double value) {
             double derivation = value * Math.log(value);
@@ -343,6 +420,34 @@ public enum Rectifier {
      */
     public abstract double derive(double value);
 
+    /**
+     * Applies the activation function to a range of an array in place. The common rectifiers override this method
+     * with a plain loop, which saves a call per value and can be optimized by the JIT compiler.
+     * Softmax treats the range as one vector, i.e. the values are normalized by the sum over the range.
+     *
+     * @param buf the values to activate
+     * @param off the index of the first value
+     * @param len the count of values
+     */
+    public void activateInPlace(double[] buf, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            buf[i] = activate(buf[i]);
+        }
+    }
+
+    /**
+     * Applies the derivation function to a range of an array in place.
+     *
+     * @param buf the values to derive
+     * @param off the index of the first value
+     * @param len the count of values
+     */
+    public void deriveInPlace(double[] buf, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            buf[i] = derive(buf[i]);
+        }
+    }
+
     private static void log(Rectifier rectifier, String message) {
         LOG.log(Level.INFO, rectifier.getDescription() + ": " + message);
     }
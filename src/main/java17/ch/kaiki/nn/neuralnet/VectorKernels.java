@@ -0,0 +1,149 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.util.Rectifier;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels based on the Vector API. Loaded by SimdKernels.load() on Java 17 or later.
+ */
+class VectorKernels extends SimdKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    VectorKernels() {
+        // fail early if the module is not available or the species is too narrow to be of use
+        if (LANES < 2) {
+            throw new UnsupportedOperationException("Vector width of " + LANES + " lanes is not supported!");
+        }
+    }
+
+    @Override
+    String getDescription() {
+        return "Vector API with " + LANES + " double lanes (" + SPECIES.vectorBitSize() + " bits)";
+    }
+
+    @Override
+    void gemv(double[] a, int rows, int cols, double[] x, double[] out) {
+        int upperBound = SPECIES.loopBound(cols);
+        for (int i = 0; i < rows; i++) {
+            int row = i * cols;
+            DoubleVector acc = DoubleVector.zero(SPECIES);
+            int k = 0;
+            for (; k < upperBound; k += LANES) {
+                DoubleVector va = DoubleVector.fromArray(SPECIES, a, row + k);
+                DoubleVector vx = DoubleVector.fromArray(SPECIES, x, k);
+                acc = va.fma(vx, acc);
+            }
+            double sum = acc.reduceLanes(VectorOperators.ADD);
+            for (; k < cols; k++) {
+                sum += a[row + k] * x[k];
+            }
+            out[i] = sum;
+        }
+    }
+
+    @Override
+    void gemmRow(double[] a, int rowA, int depthStart, int depthEnd, double[] b, int m, int colStart, int colEnd, double[] out, int rowC) {
+        int upperBound = colStart + SPECIES.loopBound(colEnd - colStart);
+        int j = colStart;
+        // the accumulator stays in a register over the whole depth of the tile
+        for (; j < upperBound; j += LANES) {
+            DoubleVector acc = DoubleVector.fromArray(SPECIES, out, rowC + j);
+            for (int k = depthStart; k < depthEnd; k++) {
+                acc = DoubleVector.fromArray(SPECIES, b, k * m + j).fma(DoubleVector.broadcast(SPECIES, a[rowA + k]), acc);
+            }
+            acc.intoArray(out, rowC + j);
+        }
+        for (; j < colEnd; j++) {
+            double sum = out[rowC + j];
+            for (int k = depthStart; k < depthEnd; k++) {
+                sum += a[rowA + k] * b[k * m + j];
+            }
+            out[rowC + j] = sum;
+        }
+    }
+
+    @Override
+    void addScalar(double[] buf, int off, int len, double value) {
+        int upperBound = SPECIES.loopBound(len);
+        int j = 0;
+        for (; j < upperBound; j += LANES) {
+            DoubleVector.fromArray(SPECIES, buf, off + j).add(value).intoArray(buf, off + j);
+        }
+        for (; j < len; j++) {
+            buf[off + j] += value;
+        }
+    }
+
+    @Override
+    double expSum(double[] buf, int off, int len) {
+        int upperBound = SPECIES.loopBound(len);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int j = 0;
+        for (; j < upperBound; j += LANES) {
+            acc = acc.add(DoubleVector.fromArray(SPECIES, buf, off + j).lanewise(VectorOperators.EXP));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; j < len; j++) {
+            sum += Math.exp(buf[off + j]);
+        }
+        return sum;
+    }
+
+    @Override
+    boolean activate(Rectifier rectifier, double[] buf, int off, int len) {
+        double sum = 0;
+        switch (rectifier) {
+            case RELU:
+            case LEAKY_RELU:
+            case SIGMOID:
+            case TANH:
+                break;
+            case SOFTMAX:
+                sum = expSum(buf, off, len);
+                if (!Double.isFinite(sum) || sum == 0) {
+                    // leave the clamping of extreme values to the scalar implementation
+                    return false;
+                }
+                break;
+            default:
+                return false;
+        }
+        int upperBound = SPECIES.loopBound(len);
+        int j = 0;
+        for (; j < upperBound; j += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, buf, off + j);
+            DoubleVector result;
+            switch (rectifier) {
+                case RELU: {
+                    VectorMask<Double> positive = v.compare(VectorOperators.GT, 0);
+                    result = DoubleVector.zero(SPECIES).blend(v, positive);
+                    break;
+                }
+                case LEAKY_RELU: {
+                    VectorMask<Double> positive = v.compare(VectorOperators.GT, 0);
+                    result = v.mul(0.01).blend(v, positive);
+                    break;
+                }
+                case SIGMOID:
+                    result = DoubleVector.broadcast(SPECIES, 1).div(v.neg().lanewise(VectorOperators.EXP).add(1));
+                    break;
+                case TANH:
+                    result = v.lanewise(VectorOperators.TANH);
+                    break;
+                default:
+                    result = v.lanewise(VectorOperators.EXP).div(sum);
+                    break;
+            }
+            result.intoArray(buf, off + j);
+        }
+        for (; j < len; j++) {
+            buf[off + j] = rectifier == Rectifier.SOFTMAX ? rectifier.activate(buf[off + j], sum) : rectifier.activate(buf[off + j]);
+        }
+        return true;
+    }
+}
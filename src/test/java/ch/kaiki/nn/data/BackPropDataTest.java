@@ -0,0 +1,169 @@
+package ch.kaiki.nn.data;
+
+import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import ch.kaiki.nn.neuralnet.TrainingMode;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class BackPropDataTest {
+
+    private static final double[] ACTUAL = {0.8, 0.2};
+    private static final double[] EXPECTED = {1, 0};
+
+    @Test
+    public void allTest() {
+        BackPropData data = fill(new BackPropData(), 1000);
+        SortedMap<Integer, BackPropEntity> map = data.getMap();
+        assertEquals(1000, map.size());
+        assertEquals(0, (int) map.firstKey());
+        assertEquals(999, (int) map.lastKey());
+        assertEquals(1000 * 0.5, map.get(999).getCostSum(), 1e-9);
+        assertEquals(1.0, map.get(500).getAccuracySum(), 1e-9);
+        assertNull(map.get(1000));
+        assertEquals(10, map.subMap(10, 20).size());
+        assertEquals(990, (int) map.tailMap(990).firstKey());
+        int previous = -1;
+        for (Integer key : map.keySet()) {
+            assertEquals(previous + 1, (int) key);
+            previous = key;
+        }
+    }
+
+    @Test
+    public void ringBufferTest() {
+        BackPropData data = fill(new BackPropData(HistoryPolicy.RING_BUFFER, 100), 1000);
+        SortedMap<Integer, BackPropEntity> map = data.getMap();
+        assertEquals(100, map.size());
+        assertEquals(900, (int) map.firstKey());
+        assertEquals(999, (int) map.lastKey());
+        assertEquals(1000, data.getAddedCount());
+        assertEquals(1000 * 0.5, data.getLast().getCostSum(), 1e-9);
+    }
+
+    @Test
+    public void reservoirTest() {
+        BackPropData data = fill(new BackPropData(HistoryPolicy.RESERVOIR, 100), 10000);
+        SortedMap<Integer, BackPropEntity> map = data.getMap();
+        assertEquals(100, map.size());
+        List<Integer> keys = new ArrayList<>(map.keySet());
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue(keys.get(i - 1) < keys.get(i));
+        }
+        // a uniform sample spans most of the iterations
+        assertTrue(map.firstKey() < 2000);
+        assertTrue(map.lastKey() > 8000);
+    }
+
+    @Test
+    public void seededReservoirTest() {
+        BackPropData first = fill(new BackPropData(HistoryPolicy.RESERVOIR, 100, new SplittableRandom(7)), 10000);
+        BackPropData second = fill(new BackPropData(HistoryPolicy.RESERVOIR, 100, new SplittableRandom(7)), 10000);
+        assertEquals(new ArrayList<>(first.getMap().keySet()), new ArrayList<>(second.getMap().keySet()));
+    }
+
+    @Test
+    public void snapshotTest() {
+        BackPropData data = fill(new BackPropData(), 100);
+        SortedMap<Integer, BackPropEntity> map = data.getMap();
+        assertSame(map, data.getMap());
+        data.add(100, 0.5, ACTUAL, EXPECTED);
+        assertEquals(100, map.size());
+        assertEquals(101, data.getMap().size());
+        map = data.getMap();
+        // an iteration added again must not change a map handed out before
+        data.add(100, 2.0, ACTUAL, EXPECTED);
+        assertEquals(0.5, map.get(100).getCost(), 1e-9);
+        assertEquals(2.0, data.getMap().get(100).getCost(), 1e-9);
+
+        data = fill(new BackPropData(HistoryPolicy.RING_BUFFER, 10), 100);
+        map = data.getMap();
+        assertSame(map, data.getMap());
+        data.add(100, 0.5, ACTUAL, EXPECTED);
+        assertEquals(90, (int) map.firstKey());
+        assertEquals(91, (int) data.getMap().firstKey());
+    }
+
+    @Test
+    public void downsamplingTest() {
+        BackPropData data = fill(new BackPropData(HistoryPolicy.DOWNSAMPLING, 100), 1000);
+        SortedMap<Integer, BackPropEntity> map = data.getMap();
+        assertTrue(map.size() <= 100);
+        assertTrue(map.size() >= 50);
+        assertEquals(0, (int) map.firstKey());
+        for (Integer key : map.keySet()) {
+            assertEquals(0, key % 16);
+        }
+        assertTrue(map.lastKey() > 999 - 16);
+    }
+
+    @Test
+    public void serializationTest() throws Exception {
+        BackPropData data = fill(new BackPropData(HistoryPolicy.RING_BUFFER, 10), 20);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(data);
+        }
+        BackPropData copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (BackPropData) in.readObject();
+        }
+        assertEquals(data.getMap().keySet(), copy.getMap().keySet());
+        assertEquals(data.getLast().getCostSum(), copy.getLast().getCostSum(), 1e-9);
+        fill(copy, 5);
+        assertEquals(10, copy.getMap().size());
+    }
+
+    @Test
+    public void builderTest() {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4).setHistoryPolicy(HistoryPolicy.RING_BUFFER).setHistorySize(50).build();
+        net.fit(dataset.getX(), dataset.getY(), 200, 10);
+        assertEquals(50, net.getBackPropData().getMap().size());
+        assertEquals(HistoryPolicy.RING_BUFFER, net.copy().getBackPropData().getHistoryPolicy());
+        assertEquals(50, net.copy().getBackPropData().getHistorySize());
+    }
+
+    @Test
+    public void samplingRateTest() {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4).setMetricsSamplingRate(0).build();
+        net.fit(dataset.getX(), dataset.getY(), 100, 10);
+        assertTrue(net.getBackPropData().getMap().isEmpty());
+        assertNull(net.getBackPropData().getConfusionMatrix());
+
+        net = new NeuralNetwork.Builder(2, 8, 4).setMetricsSamplingRate(5).build();
+        net.fit(dataset.getX(), dataset.getY(), 100, 10);
+        assertEquals(20, net.getBackPropData().getMap().size());
+        for (Integer key : net.getBackPropData().getMap().keySet()) {
+            assertEquals(0, key % 5);
+        }
+
+        // one sample per pass over the 10 rows of the dataset
+        net = new NeuralNetwork.Builder(2, 8, 4).setMetricsSamplingRate(-1).build();
+        net.fit(dataset.getX(), dataset.getY(), 100, 10);
+        assertEquals(10, net.getBackPropData().getMap().size());
+        assertEquals(99, (int) net.getBackPropData().getMap().lastKey());
+
+        net = new NeuralNetwork.Builder(2, 8, 4).setParallelism(2).setTrainingMode(TrainingMode.HOGWILD).setMetricsSamplingRate(10).build();
+        net.fit(dataset.getX(), dataset.getY(), 100, 10);
+        assertEquals(10, net.getBackPropData().getMap().size());
+    }
+
+    private static BackPropData fill(BackPropData data, int iterations) {
+        int start = (int) data.getAddedCount();
+        for (int i = start; i < start + iterations; i++) {
+            data.add(i, 0.5, ACTUAL, EXPECTED);
+        }
+        return data;
+    }
+}
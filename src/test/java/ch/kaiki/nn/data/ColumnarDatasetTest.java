@@ -0,0 +1,104 @@
+package ch.kaiki.nn.data;
+
+import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import ch.kaiki.nn.neuralnet.Precision;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ColumnarDatasetTest {
+
+    @Test
+    public void convertTest() throws IOException {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        Path file = Files.createTempFile("custom", ".knnd");
+        try (InputStream csv = getClass().getClassLoader().getResourceAsStream("samples/custom/custom.csv")) {
+            assertEquals(dataset.getX().length, ColumnarDataset.convert(csv, file, false));
+        }
+        try (ColumnarDataset columnar = ColumnarDataset.open(file)) {
+            assertEquals(dataset.getX().length, columnar.size());
+            assertEquals(2, columnar.getInputCount());
+            assertEquals(4, columnar.getOutputCount());
+            assertFalse(columnar.isSinglePrecision());
+            double[] input = new double[2];
+            double[] output = new double[4];
+            for (int i = 0; i < columnar.size(); i++) {
+                columnar.readInput(i, input);
+                columnar.readOutput(i, output);
+                assertArrayEquals(dataset.getX()[i], input, 0);
+                assertArrayEquals(dataset.getY()[i], output, 0);
+            }
+            assertArrayEquals(Sampler.classesOf(dataset.getY()), columnar.getClasses());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void singlePrecisionTest() throws IOException {
+        double[][] x = {{0.1, 0.2, 0.3}, {1.5, -2.5, 3.25}};
+        double[][] y = {{1}, {0}};
+        Path file = Files.createTempFile("single", ".knnd");
+        try {
+            ColumnarDataset.write(file, x, y, true);
+            assertEquals(64 + 2 * 4 * 4, Files.size(file));
+            try (ColumnarDataset columnar = ColumnarDataset.open(file)) {
+                assertTrue(columnar.isSinglePrecision());
+                float[] input = new float[3];
+                columnar.readInput(1, input);
+                assertArrayEquals(new float[]{1.5f, -2.5f, 3.25f}, input, 0);
+                double[] output = new double[1];
+                columnar.readOutput(0, output);
+                assertEquals(1, output[0], 0);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidFileTest() throws IOException {
+        Path file = Files.createTempFile("invalid", ".knnd");
+        try {
+            Files.write(file, new byte[]{1, 2, 3});
+            ColumnarDataset.open(file).close();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void fitTest() throws IOException {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        Path file = Files.createTempFile("fit", ".knnd");
+        try {
+            ColumnarDataset.write(file, dataset, false);
+            NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4).setSamplingSeed(3L).build();
+            NeuralNetwork inMemory = net.copy();
+            NeuralNetwork mapped = net.copy();
+            NeuralNetwork single = net.convert(Precision.SINGLE);
+            inMemory.fit(dataset.getX(), dataset.getY(), 200, 4);
+            try (ColumnarDataset columnar = ColumnarDataset.open(file)) {
+                mapped.fit(columnar, 200, 4);
+                single.fit(columnar, 200, 4);
+            }
+            // the same samples are drawn from memory and from the mapping
+            for (double[] input : dataset.getX()) {
+                assertEquals(inMemory.predict(input), mapped.predict(input));
+            }
+            assertEquals(200, mapped.getBackPropData().getAddedCount());
+            assertEquals(200, single.getBackPropData().getAddedCount());
+            try (ColumnarDataset columnar = ColumnarDataset.open(file)) {
+                single.fitEpochs(columnar, 2, 4);
+            }
+            assertEquals(200 + 2 * dataset.getX().length, single.getBackPropData().getAddedCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package ch.kaiki.nn.data;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CsvParserTest {
+
+    @Test
+    public void parseDoubleTest() {
+        String[] values = {"0", "-0", "1", "+2.5", ".2", "3.", "0.1", "-0.30000000000000004", "1e3", "2.5E-7", "1e-30",
+                "123456789012345678901234567890", "9007199254740993", "4.9e-324", "1.7976931348623157e308", "NaN", "-Infinity"};
+        for (String value : values) {
+            assertEquals(value, Double.parseDouble(value), parse(value), 0);
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            String value = Double.toString(random.nextGaussian() * Math.pow(10, random.nextInt(20) - 10));
+            assertEquals(value, Double.parseDouble(value), parse(value), 0);
+            value = String.format("%.6f", random.nextDouble());
+            assertEquals(value, Double.parseDouble(value), parse(value), 0);
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseInvalidDoubleTest() {
+        parse("1.2.3");
+    }
+
+    @Test
+    public void outputDelimiterTest() {
+        CsvParser parser = new CsvParser.Builder().setOutputDelimiter(';').build();
+        CsvParser.Result result = parser.parse("X;y\r\n0.1, 2.2;1, 0\r\n\r\n-3,4;0,1\r\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, result.size());
+        assertArrayEquals(new double[]{0.1, 2.2}, result.getX()[0], 0);
+        assertArrayEquals(new double[]{1, 0}, result.getY()[0], 0);
+        assertArrayEquals(new double[]{-3, 4}, result.getX()[1], 0);
+        assertTrue(result.getMalformedRows().isEmpty());
+    }
+
+    @Test
+    public void labelTest() {
+        String csv = "id,a,b,label\n1,0.5,1.5,\"b\"\n2,2,3,a\n";
+        CsvParser parser = new CsvParser.Builder().setIgnoredColumns(0).setLabelColumn(3).setLabels("a", "b").setOneHotWidth(2).build();
+        CsvParser.Result result = parser.parse(csv.getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(new double[]{0.5, 1.5}, result.getX()[0], 0);
+        assertArrayEquals(new double[]{0, 1}, result.getY()[0], 0);
+        assertArrayEquals(new double[]{1, 0}, result.getY()[1], 0);
+
+        parser = new CsvParser.Builder().setHeader(false).setLabelColumn(0).setOneHotWidth(3).build();
+        result = parser.parse("2,7,8\n0,9,10\n".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(new double[]{0, 0, 1}, result.getY()[0], 0);
+        assertArrayEquals(new double[]{9, 10}, result.getX()[1], 0);
+    }
+
+    @Test
+    public void malformedRowTest() {
+        String csv = "label,a,b\n1,2,3\n1,x,3\n4,2,3\n1,2\n1,2,\n0,5,6\n";
+        CsvParser parser = new CsvParser.Builder().setLabelColumn(0).setOneHotWidth(2).build();
+        CsvParser.Result result = parser.parse(csv.getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, result.size());
+        List<CsvParser.MalformedRow> malformedRows = result.getMalformedRows();
+        assertEquals(4, malformedRows.size());
+        assertEquals(3, malformedRows.get(0).getLine());
+        assertTrue(malformedRows.get(0).getMessage().contains("'x'"));
+        assertEquals(4, malformedRows.get(1).getLine());
+        assertEquals(5, malformedRows.get(2).getLine());
+        assertEquals(6, malformedRows.get(3).getLine());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void strictTest() {
+        new CsvParser.Builder().setStrict(true).build().parse("a,b\n1,2\n3,?\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void parallelTest() throws IOException {
+        StringBuilder csv = new StringBuilder("label,x1,x2,x3\n");
+        Random random = new Random(2);
+        for (int i = 0; i < 50000; i++) {
+            csv.append(random.nextInt(10)).append(',').append(random.nextDouble()).append(',').append(random.nextInt(256)).append(',');
+            csv.append(i % 10007 == 0 ? "bad" : String.valueOf(random.nextGaussian())).append('\n');
+        }
+        Path file = Files.createTempFile("parallel", ".csv");
+        try {
+            Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+            CsvParser.Result sequential = new CsvParser.Builder().setLabelColumn(0).setOneHotWidth(10).build().parse(file);
+            CsvParser.Result parallel = new CsvParser.Builder().setLabelColumn(0).setOneHotWidth(10).setParallelism(4).build().parse(file);
+            assertEquals(50000 - 5, sequential.size());
+            assertArrayEquals(sequential.getX(), parallel.getX());
+            assertArrayEquals(sequential.getY(), parallel.getY());
+            assertEquals(5, parallel.getMalformedRows().size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(2 + i * 10007, parallel.getMalformedRows().get(i).getLine());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void datasetTest() {
+        Dataset iris = new Dataset(DatasetType.IRIS);
+        assertEquals(150, iris.getX().length);
+        assertEquals(4, iris.getX()[0].length);
+        assertArrayEquals(new double[]{5.1, 3.5, 1.4, 0.2}, iris.getX()[0], 0);
+        assertArrayEquals(new double[]{2}, iris.getY()[149], 0);
+
+        Dataset custom = new Dataset(DatasetType.CUSTOM);
+        assertEquals(2, custom.getX()[0].length);
+        assertEquals(4, custom.getY()[0].length);
+    }
+
+    private static double parse(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return CsvParser.parseDouble(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+}
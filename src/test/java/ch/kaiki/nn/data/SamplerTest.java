@@ -0,0 +1,149 @@
+package ch.kaiki.nn.data;
+
+import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SamplerTest {
+
+    @Test
+    public void shuffleTest() {
+        Sampler sampler = new Sampler(SamplingStrategy.SHUFFLE, 100, null, 42);
+        for (int epoch = 0; epoch < 3; epoch++) {
+            boolean[] seen = new boolean[100];
+            for (int i = 0; i < 100; i++) {
+                int index = sampler.next();
+                assertFalse(seen[index]);
+                seen[index] = true;
+            }
+        }
+        assertEquals(3, sampler.getEpoch());
+    }
+
+    @Test
+    public void determinismTest() {
+        Sampler first = new Sampler(SamplingStrategy.SHUFFLE, 50, null, 7);
+        Sampler second = new Sampler(SamplingStrategy.SHUFFLE, 50, null, 7);
+        int[] a = new int[500];
+        int[] b = new int[500];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = first.next();
+            b[i] = second.next();
+        }
+        assertArrayEquals(a, b);
+    }
+
+    @Test
+    public void batchTest() {
+        Sampler sampler = new Sampler(SamplingStrategy.RANDOM, 1000, null, 1);
+        int[] indices = new int[32];
+        sampler.next(indices, 0, indices.length);
+        for (int i = 1; i < indices.length; i++) {
+            assertTrue(indices[i - 1] <= indices[i]);
+        }
+    }
+
+    @Test
+    public void stratifiedTest() {
+        // 80 samples of class 0, 20 samples of class 1
+        int[] classes = new int[100];
+        for (int i = 80; i < 100; i++) {
+            classes[i] = 1;
+        }
+        Sampler sampler = new Sampler(SamplingStrategy.STRATIFIED, 100, classes, 3);
+        for (int batch = 0; batch < 20; batch++) {
+            int ones = 0;
+            for (int i = 0; i < 10; i++) {
+                ones += classes[sampler.next()];
+            }
+            // every batch of 10 holds about 2 samples of class 1
+            assertTrue(ones >= 1 && ones <= 3);
+        }
+    }
+
+    @Test
+    public void weightedTest() {
+        int[] classes = new int[100];
+        for (int i = 90; i < 100; i++) {
+            classes[i] = 1;
+        }
+        Sampler sampler = new Sampler(SamplingStrategy.WEIGHTED, 100, classes, 5);
+        int ones = 0;
+        for (int i = 0; i < 10000; i++) {
+            ones += classes[sampler.next()];
+        }
+        assertEquals(5000, ones, 300);
+
+        double[] weights = new double[10];
+        weights[3] = 1;
+        weights[7] = 3;
+        sampler = new Sampler(weights, 5);
+        int[] counts = new int[10];
+        for (int i = 0; i < 4000; i++) {
+            counts[sampler.next()]++;
+        }
+        assertEquals(4000, counts[3] + counts[7]);
+        assertEquals(1000, counts[3], 150);
+    }
+
+    @Test
+    public void reproducibleFitTest() {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4).setSamplingSeed(11L).build();
+        NeuralNetwork first = net.copy();
+        NeuralNetwork second = net.copy();
+        first.fit(dataset.getX(), dataset.getY(), 100, 4);
+        second.fit(dataset.getX(), dataset.getY(), 100, 4);
+        for (double[] input : dataset.getX()) {
+            assertEquals(first.predict(input), second.predict(input));
+        }
+        assertTrue(Arrays.deepEquals(first.getBackPropData().getConfusionMatrix(), second.getBackPropData().getConfusionMatrix()));
+    }
+
+    @Test
+    public void continuedFloatFitTest() {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        float[][] x = new float[dataset.getX().length][];
+        float[][] y = new float[dataset.getY().length][];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = toFloat(dataset.getX()[i]);
+            y[i] = toFloat(dataset.getY()[i]);
+        }
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4).setSamplingSeed(5L).build();
+        NeuralNetwork once = net.copy();
+        NeuralNetwork twice = net.copy();
+        once.fit(x, y, 100, 5);
+        // the converted double set must not restart the epoch on every call
+        twice.fit(x, y, 50, 5);
+        twice.fit(x, y, 50, 5);
+        for (double[] input : dataset.getX()) {
+            assertEquals(once.predict(input), twice.predict(input));
+        }
+    }
+
+    @Test
+    public void fitEpochsTest() {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        int size = dataset.getX().length;
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4).setSamplingSeed(9L).build();
+        NeuralNetwork samples = net.copy();
+        NeuralNetwork epochs = net.copy();
+        samples.fit(dataset.getX(), dataset.getY(), 3 * size, 4);
+        epochs.fitEpochs(dataset.getX(), dataset.getY(), 3, 4);
+        assertEquals(3 * size, epochs.getBackPropData().getAddedCount());
+        for (double[] input : dataset.getX()) {
+            assertEquals(samples.predict(input), epochs.predict(input));
+        }
+    }
+
+    private static float[] toFloat(double[] values) {
+        float[] result = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (float) values[i];
+        }
+        return result;
+    }
+}
@@ -1,9 +1,19 @@
 package ch.kaiki.nn.data;
 
 import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import ch.kaiki.nn.util.RandomSource;
 import ch.kaiki.nn.util.Rectifier;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
 public class SerializerTest {
 
     @Test
@@ -19,5 +29,45 @@ public class SerializerTest {
         System.out.println(neuralNetwork);
     }
 
+    @Test
+    public void roundTripTest() throws Exception {
+        NeuralNetwork neuralNetwork = new NeuralNetwork.Builder(3, 4, 2).setDefaultRectifier(Rectifier.TANH).build();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(neuralNetwork);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            NeuralNetwork copy = (NeuralNetwork) in.readObject();
+            assertEquals(neuralNetwork.predict(new double[]{0.1, 0.2, 0.3}), copy.predict(new double[]{0.1, 0.2, 0.3}));
+        }
+    }
+
+    @Test
+    public void builderTest() throws Exception {
+        NeuralNetwork.Builder builder = new NeuralNetwork.Builder(2, 3, 1).setRandomSource(new RandomSource(1));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(builder);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            NeuralNetwork neuralNetwork = ((NeuralNetwork.Builder) in.readObject()).build();
+            assertSame(RandomSource.getDefault(), neuralNetwork.getRandomSource());
+        }
+    }
+
+    @Test
+    public void legacyFormatTest() throws Exception {
+        // written by the version storing the matrix values in a two-dimensional array, after fitting a few samples
+        try (InputStream file = getClass().getClassLoader().getResourceAsStream("serialized/NeuralNetwork_legacy.ser");
+             ObjectInputStream in = new ObjectInputStream(file)) {
+            NeuralNetwork neuralNetwork = (NeuralNetwork) in.readObject();
+            assertEquals(0.8310884771168979, neuralNetwork.predict(new double[]{0, 0}).get(0), 0);
+            assertEquals(0.9322700220224649, neuralNetwork.predict(new double[]{1, 0}).get(0), 0);
+            assertEquals(0.9355310461060811, neuralNetwork.predict(new double[]{0, 1}).get(0), 0);
+            assertEquals(0.9472610670264525, neuralNetwork.predict(new double[]{1, 1}).get(0), 0);
+            neuralNetwork.fit(new double[][]{{0, 0}, {1, 1}}, new double[][]{{0}, {0}}, 4, 2);
+            assertEquals(4, neuralNetwork.getBackPropData().getAddedCount());
+        }
+    }
 
 }
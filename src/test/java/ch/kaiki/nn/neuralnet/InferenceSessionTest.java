@@ -0,0 +1,32 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.util.Rectifier;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class InferenceSessionTest {
+
+    @Test
+    public void predictTest() {
+        double[][] in = {{0, 0}, {1, 0}, {0, 1}, {1, 1}};
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4, 3).setLastLayerRectifier(Rectifier.SOFTMAX).build();
+        InferenceSession session = new InferenceSession(net);
+        double[] out = new double[3];
+        for (double[] sample : in) {
+            session.predict(sample, out);
+            List<Double> expected = net.predict(sample);
+            for (int i = 0; i < out.length; i++) {
+                assertEquals(expected.get(i), out[i], 1e-12);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void outputLengthTest() {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 3, 1).build();
+        new InferenceSession(net).predict(new double[2], new double[2]);
+    }
+}
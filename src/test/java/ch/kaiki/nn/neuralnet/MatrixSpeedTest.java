@@ -0,0 +1,72 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.util.Initializer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class MatrixSpeedTest {
+
+    private final int[][] shapes = {{2, 64}, {64, 64}, {128, 784}, {256, 256}, {512, 512}, {1024, 1024}};
+
+    @Test
+    public void multiplySpeedTest() {
+        for (int[] shape : shapes) {
+            testMultiply(shape[0], shape[1], 1);
+            testMultiply(shape[0], shape[1], 32);
+        }
+    }
+
+    void testMultiply(int rows, int cols, int batchSize) {
+        Matrix weight = new Matrix(rows, cols);
+        Matrix input = new Matrix(cols, batchSize);
+        weight.initialize(Initializer.RANDOM, cols, rows, false);
+        input.initialize(Initializer.RANDOM, cols, rows, false);
+        int repetitions = Math.max(1, 20_000_000 / (rows * cols * batchSize));
+
+        // warm up both implementations before timing them
+        naiveMultiply(weight.getData(), input.getData());
+        Matrix.multiply(weight, input);
+
+        double[][] a = weight.getData();
+        double[][] b = input.getData();
+        long startTime = System.nanoTime();
+        double[][] expected = null;
+        for (int i = 0; i < repetitions; i++) {
+            expected = naiveMultiply(a, b);
+        }
+        long naiveDuration = (System.nanoTime() - startTime) / repetitions;
+
+        startTime = System.nanoTime();
+        Matrix actual = null;
+        for (int i = 0; i < repetitions; i++) {
+            actual = Matrix.multiply(weight, input);
+        }
+        long duration = (System.nanoTime() - startTime) / repetitions;
+
+        double[][] actualData = actual.getData();
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actualData[i], 1e-9);
+        }
+        System.out.println("multiply " + rows + "x" + cols + " by " + cols + "x" + batchSize);
+        System.out.println(" - naive: " + naiveDuration + " ns, blocked: " + duration + " ns");
+    }
+
+    // reference implementation: i-j-k order with per operation checks
+    private double[][] naiveMultiply(double[][] a, double[][] b) {
+        double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b[0].length; j++) {
+                double sum = 0;
+                for (int k = 0; k < b.length; k++) {
+                    sum += a[i][k] * b[k][j];
+                    if (Double.isInfinite(sum) || Double.isNaN(sum)) {
+                        throw new ArithmeticException("Multiply operation evaluated to " + sum);
+                    }
+                }
+                c[i][j] = sum;
+            }
+        }
+        return c;
+    }
+}
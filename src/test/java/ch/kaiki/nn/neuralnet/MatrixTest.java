@@ -6,9 +6,12 @@ import ch.kaiki.nn.util.Rectifier;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class MatrixTest {
 
@@ -170,4 +173,104 @@ public class MatrixTest {
         c.initialize(Initializer.RANDOM, 1, 2, true);
         assertNotEquals(a, c);
     }
+
+    @Test
+    public void flatLayoutTest() {
+        double[][] d = new double[][]{{2, 1, 0}, {3, 5, 4}};
+        Matrix a = new Matrix(d);
+        double[] flat = Matrix.asArray(a);
+        assertEquals(6, flat.length);
+        assertEquals(4, flat[5], 0);
+        Matrix b = Matrix.fromArray(flat, 3, 2);
+        flat[0] = 7;
+        assertEquals(7, b.getData()[0][0], 0);
+        assertEquals(7, a.getData()[0][0], 0);
+        assertEquals(3, b.getData()[1][1], 0);
+    }
+
+    @Test
+    public void forwardTest() {
+        // the fused kernel must match multiplication, bias addition and activation done separately
+        for (Rectifier rectifier : new Rectifier[]{Rectifier.SIGMOID, Rectifier.RELU, Rectifier.TANH, Rectifier.SOFTMAX}) {
+            Layer layer = new Layer(rectifier, 7, 5);
+            layer.initialize(Initializer.XAVIER, 5, 7);
+            for (int samples : new int[]{1, 3}) {
+                Matrix in = new Matrix(5, samples);
+                in.initialize(Initializer.RANDOM, 5, 1, false);
+                Matrix expected = Matrix.multiply(layer.weight, in);
+                expected.addBias(layer.bias);
+                expected.activate(rectifier);
+                Matrix actual = layer.forward(in);
+                double[] e = Matrix.asArray(expected);
+                double[] a = Matrix.asArray(actual);
+                for (int i = 0; i < e.length; i++) {
+                    assertEquals(e[i], a[i], 1e-12);
+                }
+                if (samples == 1) {
+                    double[] out = new double[7];
+                    layer.forward(Matrix.asArray(in), out);
+                    for (int i = 0; i < e.length; i++) {
+                        assertEquals(e[i], out[i], 1e-12);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void numericPolicyTest() {
+        Layer layer = new Layer(Rectifier.SIGMOID, 3, 2);
+        Matrix.asArray(layer.weight)[0] = Double.NaN;
+        double[] in = {1, 2};
+        double[] out = new double[3];
+
+        LongAdder violations = new LongAdder();
+        layer.forward(in, out, NumericPolicy.UNCHECKED, violations);
+        assertTrue(Double.isNaN(out[0]));
+        assertEquals(0, violations.sum());
+
+        try {
+            layer.forward(in, out, NumericPolicy.CHECK_PER_LAYER, violations);
+            fail();
+        } catch (ArithmeticException e) {
+            System.out.println(e.getMessage());
+        }
+        assertEquals(1, violations.sum());
+
+        try {
+            layer.forward(in, out, NumericPolicy.STRICT, violations);
+            fail();
+        } catch (ArithmeticException e) {
+            System.out.println(e.getMessage());
+        }
+        assertTrue(violations.sum() > 1);
+    }
+
+    @Test
+    public void violationCountPerNetworkTest() {
+        NeuralNetwork first = new NeuralNetwork.Builder(2, 3, 1).setNumericPolicy(NumericPolicy.CHECK_PER_LAYER).build();
+        NeuralNetwork second = first.copy();
+        Matrix.asArray(first.getLayers().get(0).weight)[0] = Double.NaN;
+        try {
+            first.predict(new double[]{1, 2});
+            fail();
+        } catch (ArithmeticException e) {
+            System.out.println(e.getMessage());
+        }
+        assertEquals(1, first.getViolationCount());
+        assertEquals(0, second.getViolationCount());
+
+        Matrix.asArray(second.getLayers().get(0).weight)[0] = Double.NaN;
+        try {
+            second.snapshot().predict(new double[]{1, 2});
+            fail();
+        } catch (ArithmeticException e) {
+            System.out.println(e.getMessage());
+        }
+        assertEquals(1, second.getViolationCount());
+        second.resetViolationCount();
+        assertEquals(0, second.getViolationCount());
+        assertEquals(1, first.getViolationCount());
+    }
+
 }
@@ -0,0 +1,130 @@
+package ch.kaiki.nn.neuralnet;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MonitoredNeuralNetworkTest {
+
+    @Test
+    public void recordTest() {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 4, 1).build();
+        MonitoredNeuralNetwork monitored = new MonitoredNeuralNetwork("xor", net);
+        for (int i = 0; i < 100; i++) {
+            List<Double> expected = net.predict(new double[]{i % 2, 1});
+            assertEquals(expected, monitored.predict(new double[]{i % 2, 1}));
+        }
+        double[] out = new double[1];
+        monitored.predict(new double[]{1, 1}, out);
+        assertEquals(net.predict(new double[]{1, 1}).get(0), out[0], 0);
+
+        try {
+            monitored.predict(new double[]{1, 1, 1});
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            monitored.predict(new double[]{1, 1}, new double[2]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            monitored.predict(null, out);
+            fail();
+        } catch (NullPointerException e) {
+            // expected
+        }
+        System.out.println(monitored);
+        assertEquals(104, monitored.getCallCount());
+        assertEquals(101, monitored.getLatency().getCount());
+        assertEquals(3, monitored.getValidationFailureCount());
+        assertEquals(0, monitored.getNumericEventCount());
+        assertTrue(monitored.getLatencyP99() <= monitored.getLatencyMax());
+        assertTrue(monitored.getCallRate() > 0);
+
+        monitored.reset();
+        assertEquals(0, monitored.getCallCount());
+        assertEquals(0, monitored.getLatencyMax());
+    }
+
+    @Test
+    public void numericEventTest() {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 4, 1).setDefaultRectifier(ch.kaiki.nn.util.Rectifier.IDENTITY)
+                .setNumericPolicy(NumericPolicy.UNCHECKED).build();
+        MonitoredNeuralNetwork monitored = new MonitoredNeuralNetwork("unchecked", net.snapshot());
+        monitored.predict(new double[]{Double.NaN, 1});
+        monitored.predict(new double[]{1, 1});
+        assertEquals(1, monitored.getNumericEventCount());
+    }
+
+    @Test
+    public void policyViolationTest() {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 4, 1).setNumericPolicy(NumericPolicy.CHECK_PER_LAYER).build();
+        NeuralNetwork other = net.copy();
+        MonitoredNeuralNetwork monitored = new MonitoredNeuralNetwork("checked", net.snapshot());
+        try {
+            monitored.predict(new double[]{Double.NaN, 1});
+            fail();
+        } catch (ArithmeticException e) {
+            // expected
+        }
+        long violations = monitored.getPolicyViolationCount();
+        try {
+            other.predict(new double[]{Double.NaN, 1});
+            fail();
+        } catch (ArithmeticException e) {
+            // expected
+        }
+        assertEquals(1, monitored.getNumericEventCount());
+        assertEquals(0, monitored.getValidationFailureCount());
+        assertTrue(violations > 0);
+        assertEquals(violations, monitored.getPolicyViolationCount());
+        assertEquals(net.getViolationCount(), monitored.getPolicyViolationCount());
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException {
+        NeuralNetwork net = new NeuralNetwork.Builder(4, 16, 2).build();
+        MonitoredNeuralNetwork monitored = new MonitoredNeuralNetwork("concurrent", net.snapshot());
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                double[] out = new double[2];
+                for (int i = 0; i < 1000; i++) {
+                    monitored.predict(new double[]{0.1, 0.2, 0.3, 0.4}, out);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, monitored.getCallCount());
+        assertEquals(4000, monitored.getLatency().getCount());
+    }
+
+    @Test
+    public void jmxTest() throws Exception {
+        MonitoredNeuralNetwork monitored = new MonitoredNeuralNetwork("jmx network", new NeuralNetwork.Builder(2, 4, 1).build());
+        ObjectName name = monitored.register();
+        try {
+            monitored.predict(new double[]{1, 0});
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "CallCount"));
+            assertEquals("jmx network", server.getAttribute(name, "Name"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "CallCount"));
+        } finally {
+            monitored.unregister();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+}
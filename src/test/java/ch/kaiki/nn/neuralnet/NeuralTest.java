@@ -2,10 +2,13 @@ package ch.kaiki.nn.neuralnet;
 
 import org.junit.Test;
 import ch.kaiki.nn.util.Initializer;
+import ch.kaiki.nn.util.Optimizer;
 
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class NeuralTest {
 
@@ -33,6 +36,100 @@ public class NeuralTest {
         System.out.println(net);
     }
 
+    @Test
+    public void testBatch() {
+        // the mean over a batch of identical samples must match fitting the single sample
+        double[] in = {1, 0};
+        double[] out = {1};
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 3, 1).setBatchMode(BatchMode.MEAN).setLearningRateOptimizer(Optimizer.NONE).build();
+        NeuralNetwork batchNet = net.copy();
+        net.fit(in, out);
+        batchNet.fit(new double[][]{in, in, in}, new double[][]{out, out, out}, 3, 3);
+
+        List<double[][]> weights = net.getWeights();
+        List<double[][]> batchWeights = batchNet.getWeights();
+        for (int i = 0; i < weights.size(); i++) {
+            for (int j = 0; j < weights.get(i).length; j++) {
+                assertArrayEquals(weights.get(i)[j], batchWeights.get(i)[j], 1e-12);
+            }
+        }
+        List<double[][]> biases = net.getBiases();
+        List<double[][]> batchBiases = batchNet.getBiases();
+        for (int i = 0; i < biases.size(); i++) {
+            for (int j = 0; j < biases.get(i).length; j++) {
+                assertArrayEquals(biases.get(i)[j], batchBiases.get(i)[j], 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelBatch() {
+        // sharding a batch across threads must yield the same update as fitting it sequentially
+        double[][] in = {{0, 0}, {1, 0}, {0, 1}, {1, 1}, {0.5, 0.2}, {0.1, 0.9}, {0.7, 0.3}};
+        double[][] out = {{0}, {1}, {1}, {0}, {1}, {0}, {1}};
+        int[] indices = {0, 1, 2, 3, 4, 5, 6};
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 4, 3, 1).setLearningRateOptimizer(Optimizer.NONE).build();
+        NeuralNetwork parallelNet = new NeuralNetwork.Builder(2, 4, 3, 1).setLearningRateOptimizer(Optimizer.NONE).setParallelism(3).build();
+        for (int i = 0; i < net.getLayers().size(); i++) {
+            parallelNet.getLayers().get(i).weight = net.getLayers().get(i).weight.copy();
+            parallelNet.getLayers().get(i).bias = net.getLayers().get(i).bias.copy();
+        }
+        for (int i = 0; i < 5; i++) {
+            double[][] actual = net.fit(in, out, indices, indices.length);
+            double[][] parallelActual = parallelNet.fit(in, out, indices, indices.length);
+            for (int j = 0; j < actual.length; j++) {
+                assertArrayEquals(actual[j], parallelActual[j], 1e-12);
+            }
+        }
+
+        List<double[][]> weights = net.getWeights();
+        List<double[][]> parallelWeights = parallelNet.getWeights();
+        for (int i = 0; i < weights.size(); i++) {
+            for (int j = 0; j < weights.get(i).length; j++) {
+                assertArrayEquals(weights.get(i)[j], parallelWeights.get(i)[j], 1e-12);
+            }
+        }
+        List<double[][]> biases = net.getBiases();
+        List<double[][]> parallelBiases = parallelNet.getBiases();
+        for (int i = 0; i < biases.size(); i++) {
+            for (int j = 0; j < biases.get(i).length; j++) {
+                assertArrayEquals(biases.get(i)[j], parallelBiases.get(i)[j], 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testHogwild() {
+        double[][] in = {{0, 0}, {1, 0}, {0, 1}, {1, 1}};
+        double[][] out = {{0}, {1}, {1}, {0}};
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 15, 15, 1).setTrainingMode(TrainingMode.HOGWILD).setParallelism(4).build();
+        net.fit(in, out, 10000, 1);
+
+        for (int i = 0; i < in.length; i++) {
+            System.out.println("expected: " + out[i][0] + ", actual: " + net.predict(in[i]).get(0));
+        }
+        System.out.println("update throughput: " + net.getUpdateThroughput() + " updates/s");
+        assertEquals(10000, net.getBackPropData().getMap().size());
+        assertTrue(net.getUpdateThroughput() > 0);
+    }
+
+    @Test
+    public void testPredictBatch() {
+        double[][] in = {{0, 0}, {1, 0}, {0, 1}, {1, 1}};
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 5, 3).build();
+        double[][] out = net.predictBatch(in);
+        double[] flatIn = {0, 0, 1, 0, 0, 1, 1, 1};
+        double[] flatOut = new double[12];
+        net.predictBatch(flatIn, 4, flatOut);
+        for (int i = 0; i < in.length; i++) {
+            List<Double> expected = net.predict(in[i]);
+            for (int j = 0; j < expected.size(); j++) {
+                assertEquals(expected.get(j), out[i][j], 1e-12);
+                assertEquals(expected.get(j), flatOut[i * 3 + j], 1e-12);
+            }
+        }
+    }
+
     public void testNeurons() {
         NeuralNetwork net = new NeuralNetwork.Builder(3, 4, 7, 2).build();
         List<Double> out = net.predict(new double[]{1, 2, 3});
@@ -0,0 +1,97 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.util.Optimizer;
+import ch.kaiki.nn.util.Rectifier;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class PrecisionTest {
+
+    private final float[][] in = {{0, 0}, {1, 0}, {0, 1}, {1, 1}, {0.5f, 0.2f}, {0.1f, 0.9f}};
+    private final float[][] out = {{0, 1}, {1, 0}, {1, 0}, {0, 1}, {1, 0}, {0, 1}};
+
+    @Test
+    public void buildTest() {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 2).setPrecision(Precision.SINGLE).build();
+        assertEquals(Precision.SINGLE, net.getPrecision());
+        for (double[][] weight : net.getWeights()) {
+            for (double[] row : weight) {
+                for (double value : row) {
+                    assertEquals((float) value, value, 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void predictParityTest() {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 16, 8, 2).setLastLayerRectifier(Rectifier.SOFTMAX).build();
+        NeuralNetwork singleNet = net.convert(Precision.SINGLE);
+        for (float[] sample : in) {
+            List<Double> expected = net.predict(new double[]{sample[0], sample[1]});
+            float[] actual = singleNet.predict(sample);
+            float[] converted = net.predict(sample);
+            for (int i = 0; i < actual.length; i++) {
+                assertEquals(expected.get(i), actual[i], 1e-5);
+                assertEquals(expected.get(i), converted[i], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void fitParityTest() {
+        NeuralNetwork singleNet = new NeuralNetwork.Builder(2, 16, 8, 2).setLearningRateOptimizer(Optimizer.NONE).setPrecision(Precision.SINGLE).build();
+        NeuralNetwork doubleNet = singleNet.convert(Precision.DOUBLE);
+        int[] indices = {0, 1, 2, 3, 4, 5};
+        for (int i = 0; i < 20; i++) {
+            float[][] actual = singleNet.fit(in, out, indices, indices.length);
+            float[][] expected = doubleNet.fit(in, out, indices, indices.length);
+            for (int j = 0; j < actual.length; j++) {
+                for (int k = 0; k < actual[j].length; k++) {
+                    assertEquals(expected[j][k], actual[j][k], 1e-4);
+                }
+            }
+        }
+        singleNet.fit(in[0], out[0]);
+        doubleNet.fit(in[0], out[0]);
+
+        List<double[][]> weights = singleNet.getWeights();
+        List<double[][]> expectedWeights = doubleNet.getWeights();
+        for (int i = 0; i < weights.size(); i++) {
+            for (int j = 0; j < weights.get(i).length; j++) {
+                for (int k = 0; k < weights.get(i)[j].length; k++) {
+                    assertEquals(expectedWeights.get(i)[j][k], weights.get(i)[j][k], 1e-4);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void writeBackTest() {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 2).setPrecision(Precision.SINGLE).build();
+        NeuralNetwork initial = net.copy();
+        for (float[] sample : in) {
+            net.fit(sample, out[0]);
+        }
+        net.fit(in, out, 12, 3);
+        // the float weights are written back before the double precision layers are read
+        NeuralNetworkSnapshot snapshot = net.snapshot();
+        NeuralNetwork copy = net.copy();
+        for (float[] sample : in) {
+            double[] input = {sample[0], sample[1]};
+            float[] expected = net.predict(sample);
+            List<Double> actual = net.predict(input);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], actual.get(i), 1e-6);
+            }
+            assertEquals(actual, snapshot.predict(input));
+            assertEquals(actual, copy.predict(input));
+        }
+        assertNotEquals(initial.toString(), net.toString());
+    }
+
+}
@@ -0,0 +1,86 @@
+package ch.kaiki.nn.neuralnet;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class PredictionEventTest {
+
+    @Test
+    public void coalesceTest() throws InterruptedException {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 4, 1).setPredictionEventInterval(20).build();
+        AtomicInteger events = new AtomicInteger();
+        AtomicInteger predictions = new AtomicInteger();
+        AtomicReference<PredictionEvent> lastEvent = new AtomicReference<>();
+        net.addPredictionListener(e -> {
+            events.incrementAndGet();
+            predictions.addAndGet(e.getPredictionCount());
+            lastEvent.set(e);
+        });
+        List<Double> last = null;
+        for (int i = 0; i < 10000; i++) {
+            last = net.predict(new double[]{i % 2, 0.5});
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (predictions.get() < 10000 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        System.out.println(events.get() + " events for " + predictions.get() + " predictions.");
+        assertEquals(10000, predictions.get());
+        assertTrue(events.get() < 10000);
+        List<List<Double>> nodeValues = lastEvent.get().getNodeValues();
+        assertEquals(3, nodeValues.size());
+        assertEquals(last, nodeValues.get(2));
+        assertSame(net, lastEvent.get().getSource());
+    }
+
+    @Test
+    public void nonBlockingTest() throws InterruptedException {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 4, 1).setPredictionEventInterval(0).build();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch notified = new CountDownLatch(1);
+        net.addPredictionListener(e -> {
+            notified.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, runnable -> new Thread(runnable).start());
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            net.predict(new double[]{1, 0});
+        }
+        // the listener blocks, but predictions are not delayed
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void propertyChangeListenerTest() throws InterruptedException {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 4, 1).setPredictionEventInterval(0).build();
+        CountDownLatch notified = new CountDownLatch(1);
+        AtomicInteger count = new AtomicInteger();
+        java.beans.PropertyChangeListener listener = e -> {
+            assertEquals("predict", e.getPropertyName());
+            count.incrementAndGet();
+            notified.countDown();
+        };
+        net.addListener(listener);
+        net.predictBatch(new double[][]{{1, 0}, {0, 1}}, new double[2][1], true);
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+        net.removeListener(listener);
+        int before = count.get();
+        net.predict(new double[]{1, 0});
+        Thread.sleep(50);
+        assertEquals(before, count.get());
+    }
+
+}
@@ -0,0 +1,35 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.data.Dataset;
+import ch.kaiki.nn.data.DatasetType;
+import ch.kaiki.nn.util.Rectifier;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuantizationTest {
+
+    @Test
+    public void customTest() {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 32, 16, 4).setLastLayerRectifier(Rectifier.SOFTMAX).build();
+        net.fit(dataset.getX(), dataset.getY(), 2000, 8);
+
+        QuantizedNeuralNetwork quantized = QuantizedNeuralNetwork.quantize(net, dataset);
+        System.out.println("accuracy delta: " + quantized.getAccuracyDelta() + ", cost delta: " + quantized.getCostDelta());
+        System.out.println("size: " + quantized.getByteSize() + " bytes");
+        for (double[] sample : dataset.getX()) {
+            List<Double> expected = net.predict(sample);
+            List<Double> actual = quantized.predict(sample);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), actual.get(i), 0.05);
+            }
+        }
+        assertEquals(0, quantized.getAccuracyDelta(), 0.05);
+        assertTrue(quantized.getByteSize() < (2 * 32 + 32 * 16 + 16 * 4) * 8 / 2);
+    }
+
+}
@@ -0,0 +1,88 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.util.Initializer;
+import ch.kaiki.nn.util.Rectifier;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the SIMD backend with the scalar kernels, which are called through their own entry points. Without the backend (e.g. on Java 8 or without
+ * --add-modules jdk.incubator.vector), both runs use the scalar kernels. The profile 'simd' compiles the backend
+ * into the test classes and sets the system property ch.kaiki.nn.simd.expected, so the backend must be loaded.
+ */
+public class SimdSpeedTest {
+
+    private final int[][] shapes = {{64, 64}, {128, 784}, {512, 512}, {1024, 1024}};
+
+    @Test
+    public void backendTest() {
+        if (Boolean.getBoolean("ch.kaiki.nn.simd.expected")) {
+            assertTrue("SIMD backend not loaded", Matrix.isSimdSupported());
+        }
+    }
+
+    @Test
+    public void multiplySpeedTest() {
+        for (int[] shape : shapes) {
+            testMultiply(shape[0], shape[1], 1);
+            testMultiply(shape[0], shape[1], 32);
+        }
+    }
+
+    @Test
+    public void activationSpeedTest() {
+        for (Rectifier rectifier : new Rectifier[]{Rectifier.RELU, Rectifier.LEAKY_RELU, Rectifier.SIGMOID, Rectifier.TANH, Rectifier.SOFTMAX}) {
+            testActivation(rectifier, 4096);
+        }
+    }
+
+    void testMultiply(int rows, int cols, int batchSize) {
+        Matrix weight = new Matrix(rows, cols);
+        Matrix input = new Matrix(cols, batchSize);
+        weight.initialize(Initializer.RANDOM, cols, rows, false);
+        input.initialize(Initializer.RANDOM, cols, rows, false);
+        int repetitions = Math.max(1, 50_000_000 / (rows * cols * batchSize));
+
+        Matrix expected = Matrix.multiplyScalar(weight, input);
+        long scalarDuration = time(() -> Matrix.multiplyScalar(weight, input), repetitions);
+        boolean simd = Matrix.isSimdSupported();
+        Matrix actual = Matrix.multiply(weight, input);
+        long simdDuration = time(() -> Matrix.multiply(weight, input), repetitions);
+
+        assertArrayEquals(Matrix.asArray(expected), Matrix.asArray(actual), 1e-9);
+        System.out.println("multiply " + rows + "x" + cols + " by " + cols + "x" + batchSize + (simd ? "" : " (no SIMD backend)"));
+        System.out.println(" - scalar: " + scalarDuration + " ns, simd: " + simdDuration + " ns");
+    }
+
+    void testActivation(Rectifier rectifier, int size) {
+        Matrix values = new Matrix(size, 1);
+        values.initialize(Initializer.RANDOM, size, 1, false);
+        int repetitions = 20_000;
+
+        Matrix expected = values.copy();
+        expected.activateScalar(rectifier);
+        long scalarDuration = time(() -> values.copy().activateScalar(rectifier), repetitions);
+        boolean simd = Matrix.isSimdSupported();
+        Matrix actual = values.copy();
+        actual.activate(rectifier);
+        long simdDuration = time(() -> values.copy().activate(rectifier), repetitions);
+
+        assertArrayEquals(Matrix.asArray(expected), Matrix.asArray(actual), 1e-12);
+        System.out.println("activate " + rectifier + " of " + size + " values" + (simd ? "" : " (no SIMD backend)"));
+        System.out.println(" - scalar: " + scalarDuration + " ns, simd: " + simdDuration + " ns");
+    }
+
+    private long time(Runnable runnable, int repetitions) {
+        // warm up before timing
+        for (int i = 0; i < Math.min(repetitions, 100); i++) {
+            runnable.run();
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            runnable.run();
+        }
+        return (System.nanoTime() - startTime) / repetitions;
+    }
+}
@@ -0,0 +1,68 @@
+package ch.kaiki.nn.neuralnet;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SnapshotTest {
+
+    private final double[][] in = {{0, 0}, {1, 0}, {0, 1}, {1, 1}};
+    private final double[][] out = {{0}, {1}, {1}, {0}};
+
+    @Test
+    public void immutableTest() {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 4, 1).build();
+        NeuralNetworkSnapshot snapshot = net.snapshot();
+        List<Double> before = snapshot.predict(in[1]);
+        assertEquals(net.predict(in[1]).get(0), before.get(0), 1e-12);
+        net.fit(in, out, 100, 4);
+        assertEquals(before.get(0), snapshot.predict(in[1]).get(0), 0);
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 16, 16, 1).build();
+        NeuralNetworkSnapshot snapshot = net.snapshot();
+        double[] expected = new double[in.length];
+        for (int i = 0; i < in.length; i++) {
+            expected[i] = net.predict(in[i]).get(0);
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executorService.submit(() -> {
+                double[] result = new double[1];
+                for (int i = 0; i < 1000; i++) {
+                    snapshot.predict(in[i % in.length], result);
+                    assertEquals(expected[i % in.length], result[0], 1e-12);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+    }
+
+    @Test
+    public void sharedBuffersTest() {
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 1).build();
+        NeuralNetworkSnapshot first = net.snapshot();
+        net.fit(in, out, 200, 4);
+        NeuralNetworkSnapshot second = net.snapshot();
+        // both snapshots predict with the same buffers of this thread, but with their own weights
+        for (double[] sample : in) {
+            double expected = net.predict(sample).get(0);
+            first.predict(sample);
+            assertEquals(expected, second.predict(sample).get(0), 1e-12);
+        }
+        assertNotEquals(first.predict(in[1]).get(0), second.predict(in[1]).get(0), 0);
+    }
+}
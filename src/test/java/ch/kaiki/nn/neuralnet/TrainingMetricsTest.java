@@ -0,0 +1,122 @@
+package ch.kaiki.nn.neuralnet;
+
+import ch.kaiki.nn.data.Dataset;
+import ch.kaiki.nn.data.DatasetType;
+import ch.kaiki.nn.metrics.Histogram;
+import ch.kaiki.nn.metrics.InMemoryMetricsRegistry;
+import ch.kaiki.nn.metrics.JmxMetricsSink;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class TrainingMetricsTest {
+
+    @Test
+    public void histogramTest() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500, histogram.getPercentile(50), 500 * 0.125);
+        assertEquals(990, histogram.getPercentile(99), 990 * 0.125);
+        assertEquals(1000, histogram.getPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void disabledTest() {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4).build();
+        net.fit(dataset.getX(), dataset.getY(), 100, 10);
+        assertFalse(net.isTrainingMetricsEnabled());
+        assertEquals(0, net.getTrainingMetrics().getUpdateCount());
+    }
+
+    @Test
+    public void synchronousTest() {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 6, 4).setTrainingMetrics(true).build();
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+        net.addMetricsSink("custom", registry);
+        net.fit(dataset.getX(), dataset.getY(), 100, 10);
+
+        TrainingMetrics metrics = net.getTrainingMetrics();
+        System.out.println(metrics);
+        assertEquals(100, metrics.getSampleCount());
+        assertEquals(10, metrics.getUpdateCount());
+        assertEquals(10, metrics.getForwardTime().getCount());
+        assertEquals(10, metrics.getBackwardTime().getCount());
+        assertEquals(3, metrics.getLayerCount());
+        for (int i = 0; i < metrics.getLayerCount(); i++) {
+            assertEquals(10, metrics.getLayerForwardTime(i).getCount());
+            assertEquals(10, metrics.getLayerBackwardTime(i).getCount());
+        }
+        assertTrue(metrics.getSamplesPerSecond() > 0);
+        assertEquals(100L, registry.getValue("custom", "samples"));
+        assertEquals(10L, registry.getValue("custom", "layer_2.forward_time_ns.count"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getSampleCount());
+    }
+
+    @Test
+    public void parallelTest() {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4).setParallelism(2).setTrainingMetrics(true).build();
+        net.fit(dataset.getX(), dataset.getY(), 100, 10);
+        TrainingMetrics metrics = net.getTrainingMetrics();
+        assertEquals(100, metrics.getSampleCount());
+        assertEquals(10, metrics.getUpdateCount());
+        // one record per shard
+        assertEquals(20, metrics.getForwardTime().getCount());
+        if (metrics.getAllocatedBytes().getCount() > 0) {
+            assertTrue(metrics.getAllocatedBytes().getMean() > 0);
+        }
+    }
+
+    @Test
+    public void hogwildTest() {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4).setParallelism(2).setTrainingMode(TrainingMode.HOGWILD).setTrainingMetrics(true).build();
+        net.fit(dataset.getX(), dataset.getY(), 100, 10);
+        TrainingMetrics metrics = net.getTrainingMetrics();
+        assertEquals(100, metrics.getSampleCount());
+        assertEquals(10, metrics.getUpdateCount());
+    }
+
+    @Test
+    public void singlePrecisionTest() {
+        float[][] in = {{0, 0}, {1, 0}, {0, 1}, {1, 1}};
+        float[][] out = {{0}, {1}, {1}, {0}};
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 4, 1).setPrecision(Precision.SINGLE).setTrainingMetrics(true).build();
+        net.fit(in, out, 40, 4);
+        TrainingMetrics metrics = net.getTrainingMetrics();
+        assertEquals(40, metrics.getSampleCount());
+        assertEquals(10, metrics.getForwardTime().getCount());
+        assertEquals(0, metrics.getLayerForwardTime(0).getCount());
+    }
+
+    @Test
+    public void jmxTest() throws Exception {
+        Dataset dataset = new Dataset(DatasetType.CUSTOM);
+        NeuralNetwork net = new NeuralNetwork.Builder(2, 8, 4).setTrainingMetrics(true).build();
+        JmxMetricsSink sink = new JmxMetricsSink();
+        net.addMetricsSink("jmx test", sink);
+        net.fit(dataset.getX(), dataset.getY(), 20, 10);
+        try {
+            Object samples = ManagementFactory.getPlatformMBeanServer().getAttribute(sink.getObjectName("jmx test"), "samples");
+            assertEquals(20L, samples);
+        } finally {
+            sink.close();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(sink.getObjectName("jmx test")));
+    }
+
+}
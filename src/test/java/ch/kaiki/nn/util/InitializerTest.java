@@ -0,0 +1,86 @@
+package ch.kaiki.nn.util;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class InitializerTest {
+
+    @Test
+    public void uniformBoundsTest() {
+        double[] target = new double[1024 * 64];
+        Initializer.XAVIER.fill(target, 1024, 1024, false, new SplittableRandom(1));
+        double scale = Math.sqrt(6) / Math.sqrt(2048);
+        for (double value : target) {
+            assertTrue(Math.abs(value) <= scale);
+        }
+        Initializer.RANDOM.fill(target, 0, 0, false, new SplittableRandom(1));
+        for (double value : target) {
+            assertTrue(value >= -1 && value < 1);
+        }
+        Initializer.KAIMING.fill(target, 8, 0, true, new SplittableRandom(1));
+        for (double value : target) {
+            assertEquals(0, value, 0);
+        }
+    }
+
+    @Test
+    public void fillMatchesGetValueTest() {
+        for (Initializer initializer : new Initializer[]{Initializer.STATIC, Initializer.RANDOM, Initializer.XAVIER, Initializer.KAIMING, Initializer.HE_NORMAL, Initializer.LECUN_NORMAL}) {
+            double[] target = new double[100];
+            initializer.fill(target, 16, 8, false, new SplittableRandom(5));
+            SplittableRandom random = new SplittableRandom(5);
+            for (double value : target) {
+                assertEquals(initializer.getValue(16, 8, false, random), value, 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void gaussianTest() {
+        int fanIn = 512;
+        double[] target = new double[fanIn * 256];
+        Initializer.HE_NORMAL.fill(target, fanIn, 256, false, new SplittableRandom(2));
+        assertEquals(Math.sqrt(2.0 / fanIn), standardDeviation(target), 0.002);
+        Initializer.LECUN_NORMAL.fill(target, fanIn, 256, false, new SplittableRandom(2));
+        assertEquals(Math.sqrt(1.0 / fanIn), standardDeviation(target), 0.002);
+
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < target.length; i++) {
+            target[i] = Initializer.HE_NORMAL.getValue(fanIn, 256, false, random);
+        }
+        assertEquals(Math.sqrt(2.0 / fanIn), standardDeviation(target), 0.002);
+    }
+
+    @Test
+    public void speedTest() {
+        double[] target = new double[1024 * 1024];
+        SplittableRandom random = new SplittableRandom(4);
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < target.length; j++) {
+                target[j] = Initializer.XAVIER.getValue(1024, 1024, false, random);
+            }
+            long single = System.nanoTime() - start;
+            start = System.nanoTime();
+            Initializer.XAVIER.fill(target, 1024, 1024, false, random);
+            long bulk = System.nanoTime() - start;
+            System.out.println("1024x1024 xavier: getValue " + single / 1000000.0 + " ms, fill " + bulk / 1000000.0 + " ms");
+        }
+    }
+
+    private static double standardDeviation(double[] values) {
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= values.length;
+        double variance = 0;
+        for (double value : values) {
+            variance += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(variance / values.length);
+    }
+}
@@ -0,0 +1,85 @@
+package ch.kaiki.nn.util;
+
+import ch.kaiki.nn.neuralnet.NeuralNetwork;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class RandomSourceTest {
+
+    @Test
+    public void seededInitializationTest() {
+        NeuralNetwork a = new NeuralNetwork.Builder(4, 8, 2).setInitializer(Initializer.XAVIER).setRandomSource(new RandomSource(42)).build();
+        NeuralNetwork b = new NeuralNetwork.Builder(4, 8, 2).setInitializer(Initializer.XAVIER).setRandomSource(new RandomSource(42)).build();
+        NeuralNetwork c = new NeuralNetwork.Builder(4, 8, 2).setInitializer(Initializer.XAVIER).setRandomSource(new RandomSource(43)).build();
+        assertWeightsEqual(a, b);
+        assertNotEquals(a.getWeights().get(0)[0][0], c.getWeights().get(0)[0][0], 0);
+    }
+
+    @Test
+    public void seededMutationTest() {
+        NeuralNetwork a = new NeuralNetwork.Builder(4, 8, 2).setRandomSource(new RandomSource(7)).build();
+        NeuralNetwork b = new NeuralNetwork.Builder(4, 8, 2).setRandomSource(new RandomSource(7)).build();
+        assertWeightsEqual((NeuralNetwork) a.mutate(), (NeuralNetwork) b.mutate());
+        assertWeightsEqual((NeuralNetwork) a.initialize(), (NeuralNetwork) b.initialize());
+    }
+
+    @Test
+    public void threadStreamTest() throws InterruptedException {
+        RandomSource source = new RandomSource(1);
+        List<Double> values = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> values.add(source.nextDouble()));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // every thread draws from its own stream
+        assertEquals(4, values.stream().distinct().count());
+        assertSame(source.current(), source.current());
+        assertEquals(Long.valueOf(1), source.getSeed());
+    }
+
+    @Test
+    public void fillTest() {
+        SplittableRandom random = new SplittableRandom(3);
+        double[] uniform = new double[10000];
+        RandomSource.fill(uniform, -2, 2, random);
+        double sum = 0;
+        for (double value : uniform) {
+            assertTrue(value >= -2 && value < 2);
+            sum += value;
+        }
+        assertEquals(0, sum / uniform.length, 0.1);
+
+        double[] gaussian = new double[10001];
+        RandomSource.fillGaussian(gaussian, 1, 0.5, random);
+        double mean = 0;
+        for (double value : gaussian) {
+            mean += value;
+        }
+        mean /= gaussian.length;
+        double variance = 0;
+        for (double value : gaussian) {
+            variance += (value - mean) * (value - mean);
+        }
+        variance /= gaussian.length;
+        assertEquals(1, mean, 0.05);
+        assertEquals(0.5, Math.sqrt(variance), 0.05);
+    }
+
+    private static void assertWeightsEqual(NeuralNetwork a, NeuralNetwork b) {
+        for (int i = 0; i < a.getWeights().size(); i++) {
+            assertArrayEquals(a.getWeights().get(i), b.getWeights().get(i));
+            assertArrayEquals(a.getBiases().get(i), b.getBiases().get(i));
+        }
+    }
+}
@@ -6,6 +6,8 @@ import org.junit.Test;
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+
 public class RectifierAccuracyTest {
 
     @Test
@@ -25,6 +27,34 @@ public class RectifierAccuracyTest {
         testXOr(Rectifier.TANH, in, out);
     }
 
+    @Test
+    public void bulkTest() {
+        // the bulk kernels must match the per-value functions
+        double[] values = {-3, -1.5, -0.2, 0, 0.1, 0.5, 0.9, 2, 7};
+        for (Rectifier rectifier : Rectifier.values()) {
+            if (rectifier == Rectifier.SOFTMAX) {
+                continue;
+            }
+            double[] activated = values.clone();
+            double[] derived = values.clone();
+            rectifier.activateInPlace(activated, 1, values.length - 2);
+            rectifier.deriveInPlace(derived, 1, values.length - 2);
+            assertEquals(values[0], activated[0], 0);
+            assertEquals(values[values.length - 1], derived[values.length - 1], 0);
+            for (int i = 1; i < values.length - 1; i++) {
+                assertEquals(rectifier.activate(values[i]), activated[i], 0);
+                assertEquals(rectifier.derive(values[i]), derived[i], 0);
+            }
+        }
+        double[] softmax = values.clone();
+        Rectifier.SOFTMAX.activateInPlace(softmax, 0, softmax.length);
+        double sum = 0;
+        for (double value : softmax) {
+            sum += value;
+        }
+        assertEquals(1, sum, 1e-12);
+    }
+
     void testXOr(Rectifier rectifier, double[][] in, double[][] out) {
         // testing xor function
 